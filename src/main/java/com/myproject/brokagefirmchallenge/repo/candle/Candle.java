@@ -0,0 +1,37 @@
+package com.myproject.brokagefirmchallenge.repo.candle;
+
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+
+import java.math.BigDecimal;
+
+/**
+ * One OHLCV bar. Prices are ticks and volume is lots, as in the matching engine.
+ */
+public record Candle(long openTime,
+                     long openTicks,
+                     long highTicks,
+                     long lowTicks,
+                     long closeTicks,
+                     long volumeLots,
+                     long tradeCount) {
+
+    public BigDecimal open() {
+        return FixedPoint.toBigDecimal(openTicks);
+    }
+
+    public BigDecimal high() {
+        return FixedPoint.toBigDecimal(highTicks);
+    }
+
+    public BigDecimal low() {
+        return FixedPoint.toBigDecimal(lowTicks);
+    }
+
+    public BigDecimal close() {
+        return FixedPoint.toBigDecimal(closeTicks);
+    }
+
+    public BigDecimal volume() {
+        return FixedPoint.toBigDecimal(volumeLots);
+    }
+}
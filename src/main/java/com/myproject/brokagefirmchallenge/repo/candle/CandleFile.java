@@ -0,0 +1,130 @@
+package com.myproject.brokagefirmchallenge.repo.candle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of closed bars of one asset and interval: fixed-size records of seven
+ * longs in open-time order, so a range is found by binary search over a read-only mapping.
+ * A torn record left by a crash is cut off when the file is opened.
+ * <p>
+ * The last record may be a bar that was still open at shutdown. Appending a bar with the same
+ * open time replaces it, so that bar is completed in place once it closes after a restart.
+ * <p>
+ * Only the flush thread appends; readers map whatever whole records exist at the time.
+ */
+public final class CandleFile implements Closeable {
+
+    static final int RECORD_BYTES = 7 * Long.BYTES;
+
+    private final FileChannel channel;
+
+    public CandleFile(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size % RECORD_BYTES != 0) {
+            channel.truncate(size - size % RECORD_BYTES);
+        }
+    }
+
+    public void append(List<Candle> candles) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(candles.size() * RECORD_BYTES);
+        for (Candle candle : candles) {
+            buffer.putLong(candle.openTime())
+                    .putLong(candle.openTicks())
+                    .putLong(candle.highTicks())
+                    .putLong(candle.lowTicks())
+                    .putLong(candle.closeTicks())
+                    .putLong(candle.volumeLots())
+                    .putLong(candle.tradeCount());
+        }
+        buffer.flip();
+
+        long position = channel.size();
+        Candle last = last();
+        if (last != null && !candles.isEmpty() && last.openTime() == candles.get(0).openTime()) {
+            position -= RECORD_BYTES;
+        }
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * The most recently written bar, or {@code null} if the file is empty.
+     */
+    public Candle last() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        long position = size - RECORD_BYTES;
+        while (record.hasRemaining()) {
+            position += channel.read(record, position);
+        }
+        record.flip();
+        return new Candle(record.getLong(), record.getLong(), record.getLong(), record.getLong(),
+                record.getLong(), record.getLong(), record.getLong());
+    }
+
+    /**
+     * Up to {@code limit} of the most recent bars opened within {@code [from, to]}, oldest first.
+     */
+    public List<Candle> read(long from, long to, int limit) throws IOException {
+        int count = (int) (channel.size() / RECORD_BYTES);
+        if (count == 0 || limit <= 0 || from > to) {
+            return List.of();
+        }
+
+        MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * RECORD_BYTES);
+        int end = firstAfter(records, count, to);
+        int first = from == Long.MIN_VALUE ? 0 : firstAfter(records, end, from - 1);
+        int start = Math.max(first, end - limit);
+
+        List<Candle> candles = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            int offset = i * RECORD_BYTES;
+            candles.add(new Candle(records.getLong(offset),
+                    records.getLong(offset + 8),
+                    records.getLong(offset + 16),
+                    records.getLong(offset + 24),
+                    records.getLong(offset + 32),
+                    records.getLong(offset + 40),
+                    records.getLong(offset + 48)));
+        }
+        return candles;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Index of the first of the first {@code count} records opened after {@code openTime}.
+     */
+    private static int firstAfter(MappedByteBuffer records, int count, long openTime) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (records.getLong(middle * RECORD_BYTES) <= openTime) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,176 @@
+package com.myproject.brokagefirmchallenge.repo.candle;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bars of one asset and interval: the bar being built plus a fixed-size ring of the most
+ * recently closed ones, held as parallel primitive arrays. Bars are only created by trades,
+ * so an interval without trades leaves no bar. Closed bars also wait in a small list until
+ * {@link #drainClosed} hands them to the file writer.
+ * <p>
+ * Written by the shard owning the asset and read by request and flush threads; every
+ * method holds the instance lock for a few array writes at most.
+ */
+public final class CandleSeries {
+
+    private final CandleInterval interval;
+    private final int capacity;
+    private final long[] openTimes;
+    private final long[] opens;
+    private final long[] highs;
+    private final long[] lows;
+    private final long[] closes;
+    private final long[] volumes;
+    private final long[] tradeCounts;
+    private final List<Candle> unflushed = new ArrayList<>();
+
+    private int next;
+    private int size;
+
+    private boolean building;
+    private long openTime;
+    private long open;
+    private long high;
+    private long low;
+    private long close;
+    private long volume;
+    private long tradeCount;
+
+    public CandleSeries(CandleInterval interval, int capacity) {
+        this.interval = interval;
+        this.capacity = capacity;
+        this.openTimes = new long[capacity];
+        this.opens = new long[capacity];
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.closes = new long[capacity];
+        this.volumes = new long[capacity];
+        this.tradeCounts = new long[capacity];
+    }
+
+    public synchronized void record(long timestamp, long priceTicks, long sizeLots) {
+        long barOpenTime = interval.openTime(timestamp);
+        if (building && barOpenTime > openTime) {
+            closeBar();
+        }
+        if (!building) {
+            building = true;
+            openTime = barOpenTime;
+            open = priceTicks;
+            high = priceTicks;
+            low = priceTicks;
+            volume = 0L;
+            tradeCount = 0L;
+        }
+        high = Math.max(high, priceTicks);
+        low = Math.min(low, priceTicks);
+        close = priceTicks;
+        volume += sizeLots;
+        tradeCount++;
+    }
+
+    /**
+     * Closes the current bar if its interval has ended by {@code now}, then returns and
+     * forgets every bar closed since the previous call, oldest first.
+     */
+    public synchronized List<Candle> drainClosed(long now) {
+        if (building && interval.openTime(now) > openTime) {
+            closeBar();
+        }
+        if (unflushed.isEmpty()) {
+            return List.of();
+        }
+        List<Candle> closed = List.copyOf(unflushed);
+        unflushed.clear();
+        return closed;
+    }
+
+    /**
+     * Puts back bars {@link #drainClosed} handed out but that could not be written, ahead of
+     * any closed since, so the next drain retries them in order.
+     */
+    public synchronized void requeue(List<Candle> bars) {
+        unflushed.addAll(0, bars);
+    }
+
+    /**
+     * The bar being built, or {@code null} if no trade has opened one.
+     */
+    public synchronized Candle openBar() {
+        return building ? new Candle(openTime, open, high, low, close, volume, tradeCount) : null;
+    }
+
+    /**
+     * Continues building {@code bar}, an open bar persisted by a previous run, so trades in the
+     * rest of its interval extend it rather than opening a second bar at the same time. Only
+     * takes effect before this series has recorded anything.
+     */
+    public synchronized void resume(Candle bar) {
+        if (building || size > 0) {
+            return;
+        }
+        building = true;
+        openTime = bar.openTime();
+        open = bar.openTicks();
+        high = bar.highTicks();
+        low = bar.lowTicks();
+        close = bar.closeTicks();
+        volume = bar.volumeLots();
+        tradeCount = bar.tradeCount();
+    }
+
+    /**
+     * Open time of the oldest bar held in memory, or {@link Long#MAX_VALUE} if there is none.
+     */
+    public synchronized long oldestOpenTime() {
+        if (size > 0) {
+            return openTimes[Math.floorMod(next - size, capacity)];
+        }
+        return building ? openTime : Long.MAX_VALUE;
+    }
+
+    /**
+     * Up to {@code limit} of the most recent bars opened within {@code [from, to]}, oldest
+     * first, including the bar being built.
+     */
+    public synchronized List<Candle> range(long from, long to, int limit) {
+        List<Candle> newestFirst = new ArrayList<>(Math.min(limit, size + 1));
+        if (building && openTime >= from && openTime <= to && limit > 0) {
+            newestFirst.add(new Candle(openTime, open, high, low, close, volume, tradeCount));
+        }
+        for (int i = 1; i <= size && newestFirst.size() < limit; i++) {
+            int index = Math.floorMod(next - i, capacity);
+            if (openTimes[index] < from) {
+                break;
+            }
+            if (openTimes[index] <= to) {
+                newestFirst.add(candleAt(index));
+            }
+        }
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    private void closeBar() {
+        openTimes[next] = openTime;
+        opens[next] = open;
+        highs[next] = high;
+        lows[next] = low;
+        closes[next] = close;
+        volumes[next] = volume;
+        tradeCounts[next] = tradeCount;
+        unflushed.add(candleAt(next));
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        building = false;
+    }
+
+    private Candle candleAt(int index) {
+        return new Candle(openTimes[index], opens[index], highs[index], lows[index],
+                closes[index], volumes[index], tradeCounts[index]);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
@@ -35,4 +36,45 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Single thread, so engine batches persist in the order they were matched. A full queue
+     * blocks the submitting shard until there is room rather than running the batch on the
+     * shard thread, which would stall matching and overtake the batches already queued.
+     */
+    @Bean(name = "matchingPersistenceExecutor")
+    public Executor matchingPersistenceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("MatchPersistence-");
+        executor.setRejectedExecutionHandler(AsyncConfig::waitForQueueSpace);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private static void waitForQueueSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Matching persistence executor is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for matching persistence queue space", e);
+        }
+    }
+
+    @Bean(name = "marketStreamExecutor")
+    public Executor marketStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("MarketStream-");
+        executor.initialize();
+        return executor;
+    }
 }
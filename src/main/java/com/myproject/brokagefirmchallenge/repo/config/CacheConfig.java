@@ -21,8 +21,7 @@ public class CacheConfig {
         cacheManager.setCaches(Arrays.asList(
                 buildCache("customerCache", 60, 1000),
                 buildCache("assetCache", 30, 5000),
-                buildCache("orderCache", 10, 10000),
-                buildCache("marketDataCache", 5, 1000)
+                buildCache("orderCache", 10, 10000)
         ));
         return cacheManager;
     }
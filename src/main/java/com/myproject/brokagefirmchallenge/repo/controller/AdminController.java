@@ -2,7 +2,9 @@ package com.myproject.brokagefirmchallenge.repo.controller;
 
 import com.myproject.brokagefirmchallenge.repo.manager.AdminManager;
 import com.myproject.brokagefirmchallenge.repo.request.MatchOrdersRequest;
+import com.myproject.brokagefirmchallenge.repo.request.SwitchPricingStrategyRequest;
 import com.myproject.brokagefirmchallenge.repo.response.ApiResponse;
+import com.myproject.brokagefirmchallenge.repo.vo.AssetMatchReportVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -14,6 +16,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/admin")
 @RequiredArgsConstructor
@@ -38,11 +42,23 @@ public class AdminController {
     }
 
     @PostMapping("/orders/match-all")
-    @Operation(summary = "Match All Orders", description = "Manually trigger order matching for all assets")
-    public ResponseEntity<ApiResponse<String>> matchAllOrders() {
+    @Operation(summary = "Match All Orders", description = "Match all assets in parallel across engine shards and report per-asset results")
+    public ResponseEntity<ApiResponse<List<AssetMatchReportVO>>> matchAllOrders() {
 
         log.info("REST request to match all pending orders");
-        ApiResponse<String> response = adminManager.matchAllOrders();
+        ApiResponse<List<AssetMatchReportVO>> response = adminManager.matchAllOrders();
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/assets/{assetName}/pricing-strategy")
+    @Operation(summary = "Switch Pricing Strategy", description = "Atomically rebind an asset's order book to another pricing strategy")
+    public ResponseEntity<ApiResponse<String>> switchPricingStrategy(
+            @PathVariable String assetName,
+            @Valid @RequestBody SwitchPricingStrategyRequest request) {
+
+        log.info("REST request to switch pricing strategy for asset: {}", assetName);
+        ApiResponse<String> response = adminManager.switchPricingStrategy(assetName, request);
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,89 @@
+package com.myproject.brokagefirmchallenge.repo.controller;
+
+import com.myproject.brokagefirmchallenge.repo.manager.MarketManager;
+import com.myproject.brokagefirmchallenge.repo.response.ApiResponse;
+import com.myproject.brokagefirmchallenge.repo.vo.CandleVO;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketDepthVO;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketStatisticsVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/market")
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+@Tag(name = "Market Data", description = "Order book market data")
+@SecurityRequirement(name = "Bearer Authentication")
+public class MarketController {
+
+    private final MarketManager marketManager;
+
+    @GetMapping("/{assetName}/depth")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    @Operation(summary = "Market Depth", description = "Aggregated size and order count per price level, best first")
+    public ResponseEntity<ApiResponse<MarketDepthVO>> getDepth(
+            @Parameter(description = "Asset Name") @PathVariable String assetName,
+            @Parameter(description = "Price levels per side") @RequestParam(defaultValue = "10") @Min(1) int levels) {
+
+        log.debug("REST request to get depth for asset: {}", assetName);
+        ApiResponse<MarketDepthVO> response = marketManager.getDepth(assetName, levels);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{assetName}/statistics")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    @Operation(summary = "Market Statistics", description = "Last price, VWAP, session high/low and volume from executed trades")
+    public ResponseEntity<ApiResponse<MarketStatisticsVO>> getStatistics(
+            @Parameter(description = "Asset Name") @PathVariable String assetName) {
+
+        log.debug("REST request to get statistics for asset: {}", assetName);
+        ApiResponse<MarketStatisticsVO> response = marketManager.getStatistics(assetName);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{assetName}/candles")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    @Operation(summary = "Candles", description = "OHLCV bars of one interval (1s, 1m, 5m, 1h, 1d), oldest first")
+    public ResponseEntity<ApiResponse<List<CandleVO>>> getCandles(
+            @Parameter(description = "Asset Name") @PathVariable String assetName,
+            @Parameter(description = "Bar interval") @RequestParam(defaultValue = "1m") String interval,
+            @Parameter(description = "Earliest bar open time") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest bar open time") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Most recent bars to return") @RequestParam(defaultValue = "500") @Min(1) @Max(5000) int limit) {
+
+        log.debug("REST request to get {} candles for asset: {}", interval, assetName);
+        ApiResponse<List<CandleVO>> response = marketManager.getCandles(assetName, interval, from, to, limit);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/{assetName}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    @Operation(summary = "Market Data Stream", description = "Server-sent snapshot followed by top of book, depth changes and trades")
+    public SseEmitter stream(@Parameter(description = "Asset Name") @PathVariable String assetName) {
+
+        log.debug("REST request to stream market data for asset: {}", assetName);
+        return marketManager.stream(assetName);
+    }
+}
@@ -0,0 +1,156 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.util.Arrays;
+
+/**
+ * Heap book: resting orders are {@link BookOrder} nodes queued in {@link PriceLevel}s, and
+ * the implementations differ only in how price levels are located. A node's handle is its
+ * slot in a node table, so {@link HandleOrderBook}'s match loop reaches it with one array
+ * load; freed slots are reused first. Resting orders are indexed by id, so cancel and reduce
+ * unlink a node without scanning.
+ */
+abstract class AbstractOrderBook extends HandleOrderBook<PriceLevel> {
+
+    private final LongIntHashMap handles = new LongIntHashMap();
+    private BookOrder[] nodes = new BookOrder[1024];
+    private int[] freeHandles = new int[64];
+    private int freeCount;
+    private int highWater;
+
+    protected AbstractOrderBook(String assetName) {
+        super(assetName);
+    }
+
+    protected abstract PriceLevel createLevel(OrderSide side, long priceTicks);
+
+    protected abstract void removeLevel(OrderSide side, PriceLevel level);
+
+    @Override
+    protected final int handleOf(long orderId) {
+        return handles.get(orderId);
+    }
+
+    @Override
+    protected final void insert(BookOrder order) {
+        int handle = freeCount > 0 ? freeHandles[--freeCount] : nextHandle();
+        order.handle = handle;
+        nodes[handle] = order;
+        handles.put(order.getOrderId(), handle);
+
+        PriceLevel level = findLevel(order.getSide(), order.getPriceTicks());
+        if (level == null) {
+            level = createLevel(order.getSide(), order.getPriceTicks());
+        }
+        level.append(order);
+    }
+
+    @Override
+    protected final void shrink(int order, long lots) {
+        BookOrder node = nodes[order];
+        node.level.reduce(node, lots);
+    }
+
+    @Override
+    protected final void release(int order) {
+        BookOrder node = nodes[order];
+        PriceLevel level = node.level;
+        level.remove(node);
+        if (level.isEmpty()) {
+            removeLevel(node.getSide(), level);
+        }
+        handles.remove(node.getOrderId());
+        nodes[order] = null;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = order;
+    }
+
+    /**
+     * The node itself; orders handed out by a heap book are the ones it holds.
+     */
+    @Override
+    protected final BookOrder view(int order) {
+        return nodes[order];
+    }
+
+    @Override
+    protected final long orderId(int order) {
+        return nodes[order].getOrderId();
+    }
+
+    @Override
+    protected final long customerId(int order) {
+        return nodes[order].getCustomerId();
+    }
+
+    @Override
+    protected final OrderSide side(int order) {
+        return nodes[order].getSide();
+    }
+
+    @Override
+    protected final long priceTicks(int order) {
+        return nodes[order].getPriceTicks();
+    }
+
+    @Override
+    protected final long remainingLotsOf(int order) {
+        return nodes[order].getRemainingLots();
+    }
+
+    @Override
+    protected final long sequence(int order) {
+        return nodes[order].sequence;
+    }
+
+    @Override
+    protected final int next(int order) {
+        BookOrder next = nodes[order].next;
+        return next == null ? NONE : next.handle;
+    }
+
+    @Override
+    protected final boolean isResting(int order) {
+        return nodes[order] != null;
+    }
+
+    @Override
+    protected final PriceLevel levelOf(int order) {
+        return nodes[order].level;
+    }
+
+    @Override
+    protected final int head(PriceLevel level) {
+        return level.getHead().handle;
+    }
+
+    @Override
+    protected final long levelPriceTicks(PriceLevel level) {
+        return level.getPriceTicks();
+    }
+
+    @Override
+    protected final long levelLots(PriceLevel level) {
+        return level.getTotalLots();
+    }
+
+    @Override
+    protected final int levelOrderCount(PriceLevel level) {
+        return level.getOrderCount();
+    }
+
+    @Override
+    public int restingOrderCount() {
+        return handles.size();
+    }
+
+    private int nextHandle() {
+        if (highWater == nodes.length) {
+            nodes = Arrays.copyOf(nodes, highWater * 2);
+        }
+        return highWater++;
+    }
+}
@@ -0,0 +1,104 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Resting order as seen by the engine. Price and remaining size are converted to ticks and
+ * lots once, on the submitting thread, so the match loop never touches {@code BigDecimal}.
+ * <p>
+ * Holds primitives and shared enum constants only, about 90 bytes per order, and keeps no
+ * reference to the {@link Order} entity it was built from: the entity's metadata map,
+ * {@code BigDecimal} fields and audit timestamps would otherwise stay reachable for as long
+ * as the order rests. Listeners load the entity by id when a fill or expiry is persisted.
+ */
+@Getter
+public final class BookOrder {
+
+    private final long orderId;
+    private final long customerId;
+    private final OrderSide side;
+    private final long priceTicks;
+    private final TimeInForce timeInForce;
+    private long remainingLots;
+
+    /**
+     * Set for a market order, whose price is only a collar: its fills are priced at the maker's
+     * price whatever the book's strategy. Never set on a resting order, since market orders
+     * are immediate.
+     */
+    private final boolean marketOrder;
+
+    /**
+     * Remaining size when the order reached the engine, before any fill. What the journal
+     * records for it, since a taker has already matched by the time it is journaled.
+     */
+    private final long sizeLots;
+
+    /**
+     * Arrival order within the book, stamped when the order first rests. Unlike the order id
+     * it reflects when the engine saw the order, whatever order ids were assigned in.
+     */
+    long sequence;
+
+    /**
+     * When the order was handed to the engine, cleared once it has been acknowledged. Zero for
+     * orders rebuilt from a journal.
+     */
+    @Getter(AccessLevel.NONE)
+    long acceptedNanos;
+    /**
+     * Slot in the node table of the heap book the order rests in.
+     */
+    @Getter(AccessLevel.NONE)
+    int handle;
+    @Getter(AccessLevel.NONE)
+    PriceLevel level;
+    @Getter(AccessLevel.NONE)
+    BookOrder prev;
+    @Getter(AccessLevel.NONE)
+    BookOrder next;
+
+    private BookOrder(Order order) {
+        this.orderId = order.getId();
+        this.customerId = order.getCustomerId();
+        this.side = order.getOrderSide();
+        this.priceTicks = FixedPoint.toTicks(order.getPrice());
+        this.timeInForce = order.getTimeInForce() != null ? order.getTimeInForce() : TimeInForce.GTC;
+        this.remainingLots = FixedPoint.toTicks(order.getRemainingSize());
+        this.marketOrder = order.isMarketOrder();
+        this.sizeLots = remainingLots;
+        this.acceptedNanos = System.nanoTime();
+    }
+
+    BookOrder(long orderId, long customerId, OrderSide side, long priceTicks, long remainingLots) {
+        this(orderId, customerId, side, priceTicks, remainingLots, 0);
+    }
+
+    BookOrder(long orderId, long customerId, OrderSide side, long priceTicks, long remainingLots, long sequence) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.side = side;
+        this.priceTicks = priceTicks;
+        this.timeInForce = TimeInForce.GTC;
+        this.remainingLots = remainingLots;
+        this.marketOrder = false;
+        this.sizeLots = remainingLots;
+        this.sequence = sequence;
+    }
+
+    public static BookOrder of(Order order) {
+        return new BookOrder(order);
+    }
+
+    void reduce(long lots) {
+        remainingLots -= lots;
+    }
+
+    boolean isFilled() {
+        return remainingLots == 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.util.Arrays;
+
+/**
+ * Places assets on shards by consistent hashing: every shard owns {@value #VIRTUAL_NODES}
+ * points on a 64-bit ring and an asset belongs to the first point at or after its own hash.
+ * Growing from N to N+1 shards therefore moves about 1/(N+1) of the assets instead of nearly
+ * all of them, which is what lets shards later be spread over nodes and rebalanced.
+ * <p>
+ * Hashes are computed from the characters of the name, not {@link String#hashCode()}, and are
+ * the same on every JVM, so all nodes agree on the placement. Lookups allocate nothing.
+ */
+final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final long[] points;
+    private final int[] owners;
+
+    ConsistentHashRing(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        long[][] entries = new long[shardCount * VIRTUAL_NODES][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                entries[shard * VIRTUAL_NODES + node] = new long[]{hash("shard-" + shard + "#" + node), shard};
+            }
+        }
+        Arrays.sort(entries, (left, right) -> left[0] != right[0]
+                ? Long.compare(left[0], right[0])
+                : Long.compare(left[1], right[1]));
+
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    int shardOf(String assetName) {
+        int index = Arrays.binarySearch(points, hash(assetName));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer so that
+     * names differing in one trailing character still land far apart.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,14 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.math.BigDecimal;
+
+public record DepthLevel(long priceTicks, long sizeLots, int orderCount) {
+
+    public BigDecimal price() {
+        return FixedPoint.toBigDecimal(priceTicks);
+    }
+
+    public BigDecimal size() {
+        return FixedPoint.toBigDecimal(sizeLots);
+    }
+}
@@ -0,0 +1,52 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public sealed interface EngineCommand {
+
+    String assetName();
+
+    CompletableFuture<?> result();
+
+    record AddOrder(String assetName, BookOrder order, CompletableFuture<Void> result) implements EngineCommand {
+    }
+
+    record PlaceOrder(String assetName, BookOrder order, CompletableFuture<Integer> result) implements EngineCommand {
+    }
+
+    /**
+     * Arms a stop. {@code lastTicks} is the last trade price known from before a restart, zero
+     * if there is none.
+     */
+    record AddStop(String assetName, BookOrder order, long triggerTicks, long lastTicks,
+                   CompletableFuture<Void> result) implements EngineCommand {
+    }
+
+    record CancelOrder(String assetName, long orderId, CompletableFuture<Boolean> result) implements EngineCommand {
+    }
+
+    /**
+     * Cancel requested by the order's owner. Completes with the lots the book or the stop
+     * book still held, zero if the order was in neither.
+     */
+    record CancelRemainder(String assetName, long orderId, CompletableFuture<Long> result) implements EngineCommand {
+    }
+
+    record ReduceOrder(String assetName, long orderId, long lots,
+                       CompletableFuture<Boolean> result) implements EngineCommand {
+    }
+
+    record MatchOrders(String assetName, CompletableFuture<MatchOutcome> result) implements EngineCommand {
+    }
+
+    record SwitchStrategy(String assetName, PricingStrategy strategy,
+                          CompletableFuture<PricingStrategy> result) implements EngineCommand {
+    }
+
+    record Inspect<T>(String assetName, Function<OrderBook, T> query,
+                      CompletableFuture<T> result) implements EngineCommand {
+    }
+}
@@ -0,0 +1,352 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-shard recovery log: a memory-mapped, append-only journal of book mutations plus a
+ * binary snapshot of every book the shard owns. Fills are journaled rather than match
+ * commands, so replay never depends on a pricing strategy.
+ * <p>
+ * Every entry carries a sequence number and the snapshot records the last one it covers;
+ * replay skips anything older, so a crash between writing a snapshot and resetting the
+ * journal is harmless. An entry's type byte is written last and is followed by a zero
+ * terminator, so a torn tail simply ends the replay. Writes reach the page cache only and
+ * survive a process crash; the journal is forced to disk on every snapshot.
+ * Only the owning shard thread touches an instance after {@link #recover}.
+ */
+@Slf4j
+class EngineJournal {
+
+    private static final int JOURNAL_MAGIC = 0x4A524E4C;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    /**
+     * 2: assets are placed on shards by {@link ConsistentHashRing}, so books journaled under
+     * the previous placement may belong to another shard.
+     * 3: snapshots carry each order's arrival sequence.
+     */
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 12;
+
+    private static final byte END = 0;
+    private static final byte ADD = 1;
+    private static final byte CANCEL = 2;
+    private static final byte REDUCE = 3;
+    private static final byte FILL = 4;
+
+    private static final int ENTRY_HEADER_BYTES = 1 + 8 + 2;
+    private static final int MAX_ASSET_BYTES = 256;
+
+    private final int shardCount;
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, byte[]> assetBytes = new HashMap<>();
+
+    private long sequence;
+
+    EngineJournal(Path directory, int shardId, int shardCount, int journalBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.shardCount = shardCount;
+        this.journalFile = directory.resolve("shard-" + shardId + ".journal");
+        this.snapshotFile = directory.resolve("shard-" + shardId + ".snapshot");
+        this.channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, journalBytes);
+    }
+
+    /**
+     * Rebuilds the shard's books from the latest snapshot and the journal tail.
+     *
+     * @return {@code true} if any prior state was found
+     */
+    boolean recover(Map<String, OrderBook> books, Function<String, OrderBook> bookFactory) throws IOException {
+        long snapshotSequence = loadSnapshot(books, bookFactory);
+        boolean recovered = snapshotSequence >= 0;
+        sequence = Math.max(snapshotSequence, 0);
+
+        if (buffer.getInt(0) == JOURNAL_MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == shardCount) {
+            int replayed = replay(books, bookFactory, snapshotSequence);
+            recovered |= replayed > 0 || buffer.position() > HEADER_BYTES;
+            log.info("Replayed {} journal entries from {}", replayed, journalFile);
+        } else {
+            if (buffer.getInt(0) == JOURNAL_MAGIC) {
+                log.warn("Ignoring journal {} written for a different shard layout", journalFile);
+            }
+            reset();
+        }
+
+        return recovered;
+    }
+
+    /**
+     * Appends a command's mutation, if it {@code applied} one, followed by its fills.
+     *
+     * @return {@code false} if the entries do not fit, in which case nothing is written and
+     * the caller must snapshot instead, which captures the command's effects on its own
+     */
+    boolean record(EngineCommand command, boolean applied, List<MatchResult> fills, int firstFill) {
+        int fillCount = fills.size() - firstFill;
+        byte type = applied ? commandType(command) : END;
+        if (type == END && fillCount == 0) {
+            return true;
+        }
+
+        byte[] asset = assetBytes.computeIfAbsent(command.assetName(), this::encode);
+        int required = (type == END ? 0 : entryBytes(type, asset)) + fillCount * entryBytes(FILL, asset) + 1;
+        if (required > buffer.remaining()) {
+            return false;
+        }
+
+        if (command instanceof EngineCommand.AddOrder add && applied) {
+            appendAdd(asset, add.order());
+        } else if (command instanceof EngineCommand.PlaceOrder place && applied) {
+            appendAdd(asset, place.order());
+        } else if (command instanceof EngineCommand.CancelOrder cancel && applied) {
+            int start = begin(asset);
+            buffer.putLong(cancel.orderId());
+            commit(start, CANCEL);
+        } else if (command instanceof EngineCommand.CancelRemainder cancel && applied) {
+            int start = begin(asset);
+            buffer.putLong(cancel.orderId());
+            commit(start, CANCEL);
+        } else if (command instanceof EngineCommand.ReduceOrder reduce && applied) {
+            int start = begin(asset);
+            buffer.putLong(reduce.orderId());
+            buffer.putLong(reduce.lots());
+            commit(start, REDUCE);
+        }
+
+        for (int i = firstFill; i < fills.size(); i++) {
+            MatchResult fill = fills.get(i);
+            int start = begin(asset);
+            buffer.putLong(fill.buyOrderId());
+            buffer.putLong(fill.sellOrderId());
+            buffer.putLong(fill.sizeLots());
+            commit(start, FILL);
+        }
+        return true;
+    }
+
+    /**
+     * Writes every book to a fresh snapshot, then truncates the journal. Must be called on the
+     * owning shard thread, between commands.
+     */
+    void snapshot(Map<String, OrderBook> books) throws IOException {
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(tempFile.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(shardCount);
+            out.writeLong(sequence);
+            out.writeInt(books.size());
+            for (OrderBook book : books.values()) {
+                writeBook(out, book);
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+
+        Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        reset();
+        buffer.force();
+        log.debug("Wrote snapshot {} at sequence {}", snapshotFile, sequence);
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private long loadSnapshot(Map<String, OrderBook> books, Function<String, OrderBook> bookFactory) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return -1;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION || in.readInt() != shardCount) {
+                log.warn("Ignoring snapshot {} written for a different format or shard layout", snapshotFile);
+                return -1;
+            }
+            long snapshotSequence = in.readLong();
+            int bookCount = in.readInt();
+            int orderCount = 0;
+            for (int i = 0; i < bookCount; i++) {
+                orderCount += readBook(in, books, bookFactory);
+            }
+            log.info("Loaded snapshot {} with {} books and {} orders", snapshotFile, bookCount, orderCount);
+            return snapshotSequence;
+        }
+    }
+
+    private void writeBook(DataOutputStream out, OrderBook book) throws IOException {
+        out.writeUTF(book.getAssetName());
+        out.writeInt(book.orderCount(OrderSide.BUY) + book.orderCount(OrderSide.SELL));
+        for (OrderSide side : OrderSide.values()) {
+            book.forEachOrder(side, order -> {
+                try {
+                    out.writeLong(order.getOrderId());
+                    out.writeLong(order.getCustomerId());
+                    out.writeByte(order.getSide().ordinal());
+                    out.writeLong(order.getPriceTicks());
+                    out.writeLong(order.getRemainingLots());
+                    out.writeLong(order.getSequence());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private int readBook(DataInputStream in, Map<String, OrderBook> books,
+                         Function<String, OrderBook> bookFactory) throws IOException {
+        OrderBook book = books.computeIfAbsent(in.readUTF(), bookFactory);
+        int orderCount = in.readInt();
+        for (int i = 0; i < orderCount; i++) {
+            long orderId = in.readLong();
+            long customerId = in.readLong();
+            OrderSide side = OrderSide.values()[in.readByte()];
+            long priceTicks = in.readLong();
+            long remainingLots = in.readLong();
+            long sequence = in.readLong();
+            book.add(new BookOrder(orderId, customerId, side, priceTicks, remainingLots, sequence));
+        }
+        return orderCount;
+    }
+
+    private int replay(Map<String, OrderBook> books, Function<String, OrderBook> bookFactory, long snapshotSequence) {
+        int replayed = 0;
+        buffer.position(HEADER_BYTES);
+
+        while (buffer.remaining() > ENTRY_HEADER_BYTES) {
+            int start = buffer.position();
+            byte type = buffer.get();
+            if (type == END) {
+                buffer.position(start);
+                break;
+            }
+            long entrySequence = buffer.getLong();
+            byte[] asset = new byte[buffer.getShort()];
+            buffer.get(asset);
+            OrderBook book = books.computeIfAbsent(new String(asset, StandardCharsets.UTF_8), bookFactory);
+            boolean apply = entrySequence > snapshotSequence;
+
+            switch (type) {
+                case ADD -> {
+                    BookOrder order = new BookOrder(buffer.getLong(), buffer.getLong(),
+                            OrderSide.values()[buffer.get()], buffer.getLong(), buffer.getLong());
+                    if (apply) {
+                        book.add(order);
+                    }
+                }
+                case CANCEL -> {
+                    long orderId = buffer.getLong();
+                    if (apply) {
+                        book.cancel(orderId);
+                    }
+                }
+                case REDUCE -> {
+                    long orderId = buffer.getLong();
+                    long lots = buffer.getLong();
+                    if (apply) {
+                        book.reduce(orderId, lots);
+                    }
+                }
+                case FILL -> {
+                    long buyOrderId = buffer.getLong();
+                    long sellOrderId = buffer.getLong();
+                    long lots = buffer.getLong();
+                    if (apply) {
+                        book.reduce(buyOrderId, lots);
+                        book.reduce(sellOrderId, lots);
+                    }
+                }
+                default -> throw new IllegalStateException("Corrupt journal entry type " + type + " in " + journalFile);
+            }
+
+            sequence = Math.max(sequence, entrySequence);
+            if (apply) {
+                replayed++;
+            }
+        }
+
+        return replayed;
+    }
+
+    private void appendAdd(byte[] asset, BookOrder order) {
+        int start = begin(asset);
+        buffer.putLong(order.getOrderId());
+        buffer.putLong(order.getCustomerId());
+        buffer.put((byte) order.getSide().ordinal());
+        buffer.putLong(order.getPriceTicks());
+        buffer.putLong(order.getSizeLots());
+        commit(start, ADD);
+    }
+
+    private int begin(byte[] asset) {
+        int start = buffer.position();
+        buffer.put(END);
+        buffer.putLong(++sequence);
+        buffer.putShort((short) asset.length);
+        buffer.put(asset);
+        return start;
+    }
+
+    private void commit(int start, byte type) {
+        buffer.put(buffer.position(), END);
+        buffer.put(start, type);
+    }
+
+    private void reset() {
+        buffer.putInt(0, JOURNAL_MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, shardCount);
+        buffer.put(HEADER_BYTES, END);
+        buffer.position(HEADER_BYTES);
+    }
+
+    private byte commandType(EngineCommand command) {
+        if (command instanceof EngineCommand.AddOrder || command instanceof EngineCommand.PlaceOrder) {
+            return ADD;
+        } else if (command instanceof EngineCommand.CancelOrder || command instanceof EngineCommand.CancelRemainder) {
+            return CANCEL;
+        } else if (command instanceof EngineCommand.ReduceOrder) {
+            return REDUCE;
+        }
+        return END;
+    }
+
+    private int entryBytes(byte type, byte[] asset) {
+        int payload = switch (type) {
+            case ADD -> 8 + 8 + 1 + 8 + 8;
+            case CANCEL -> 8;
+            case REDUCE -> 8 + 8;
+            default -> 8 + 8 + 8;
+        };
+        return ENTRY_HEADER_BYTES + asset.length + payload;
+    }
+
+    private byte[] encode(String assetName) {
+        byte[] bytes = assetName.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ASSET_BYTES) {
+            throw new IllegalArgumentException("Asset name too long for the journal: " + assetName);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,168 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers, book gauges and activity counters of the matching engine, tagged by asset.
+ * Meters are created once per asset, when its book is, and held by the owning shard, so
+ * recording is a field access and an update of a pre-sized HdrHistogram: nothing is looked
+ * up or allocated per order.
+ * <p>
+ * Only the first {@code max-tagged-assets} assets get meters of their own. The rest share
+ * timers and counters tagged {@value #OTHER_ASSET} and publish no gauges, which would be
+ * meaningless once several books feed them.
+ */
+@Component
+@RequiredArgsConstructor
+public class EngineMetrics {
+
+    static final String OTHER_ASSET = "other";
+
+    private final MeterRegistry registry;
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    @Value("${order.matching.metrics.max-tagged-assets:100}")
+    private int maxTaggedAssets;
+
+    /**
+     * Trade and expiry batches parked after every delivery attempt failed.
+     */
+    void gaugeDeadLetters(Collection<?> deadLetters) {
+        Gauge.builder("matching.engine.persistence.dead-letters", deadLetters, Collection::size)
+                .description("Fill and expiry batches waiting to be redelivered to the trade listeners")
+                .register(registry);
+    }
+
+    Asset forAsset(String assetName) {
+        Asset asset = assets.get(assetName);
+        if (asset != null) {
+            return asset;
+        }
+        synchronized (assets) {
+            asset = assets.get(assetName);
+            if (asset == null) {
+                if (assets.size() >= maxTaggedAssets) {
+                    return assets.computeIfAbsent(OTHER_ASSET, name -> new Asset(name, false));
+                }
+                asset = new Asset(assetName, true);
+                assets.put(assetName, asset);
+            }
+            return asset;
+        }
+    }
+
+    /**
+     * Meters of one asset. Recorded only by the shard that owns the asset; the gauge values
+     * are copied from the book at the end of each batch that changed it, so a scrape never
+     * touches the book itself.
+     */
+    final class Asset {
+
+        private final Timer ack;
+        private final Timer firstFill;
+        private final Timer match;
+        private final Counter matches;
+        private final Counter cancels;
+
+        private volatile int bidLevels;
+        private volatile int askLevels;
+        private volatile int restingOrders;
+        private volatile long bidLots;
+        private volatile long askLots;
+
+        private Asset(String assetName, boolean gauged) {
+            Tags tags = Tags.of("asset", assetName);
+            this.ack = latency("matching.engine.order.ack",
+                    "From handing an order to the engine until its caller is released", tags);
+            this.firstFill = latency("matching.engine.order.first-fill",
+                    "From handing a marketable order to the engine until it first fills", tags);
+            this.match = latency("matching.engine.match",
+                    "Time spent in one pass of the book's match loop", tags);
+            this.matches = Counter.builder("matching.engine.matches")
+                    .description("Fills produced by the book")
+                    .tags(tags)
+                    .register(registry);
+            this.cancels = Counter.builder("matching.engine.cancels")
+                    .description("Resting or dormant orders removed before filling")
+                    .tags(tags)
+                    .register(registry);
+
+            if (gauged) {
+                registerSideGauges(tags, OrderSide.BUY);
+                registerSideGauges(tags, OrderSide.SELL);
+                Gauge.builder("matching.engine.book.orders", this, asset -> asset.restingOrders)
+                        .description("Resting orders in the book")
+                        .tags(tags)
+                        .register(registry);
+            }
+        }
+
+        void recordAck(long nanos) {
+            ack.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void recordFirstFill(long nanos) {
+            firstFill.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void recordMatch(long nanos) {
+            match.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void countMatches(int count) {
+            if (count > 0) {
+                matches.increment(count);
+            }
+        }
+
+        void countCancel() {
+            cancels.increment();
+        }
+
+        void update(OrderBook book) {
+            bidLevels = book.levelCount(OrderSide.BUY);
+            askLevels = book.levelCount(OrderSide.SELL);
+            restingOrders = book.restingOrderCount();
+            bidLots = book.totalLots(OrderSide.BUY);
+            askLots = book.totalLots(OrderSide.SELL);
+        }
+
+        private void registerSideGauges(Tags tags, OrderSide side) {
+            Tags sideTags = tags.and("side", side.name());
+            boolean buy = side == OrderSide.BUY;
+            Gauge.builder("matching.engine.book.levels", this, asset -> buy ? asset.bidLevels : asset.askLevels)
+                    .description("Price levels on one side of the book")
+                    .tags(sideTags)
+                    .register(registry);
+            Gauge.builder("matching.engine.book.depth", this,
+                            asset -> FixedPoint.toBigDecimal(buy ? asset.bidLots : asset.askLots).doubleValue())
+                    .description("Remaining size resting on one side of the book")
+                    .tags(sideTags)
+                    .register(registry);
+        }
+
+        private Timer latency(String name, String description, Tags tags) {
+            return Timer.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(registry);
+        }
+    }
+}
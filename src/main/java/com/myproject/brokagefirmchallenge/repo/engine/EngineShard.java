@@ -0,0 +1,591 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ConcurrencyException;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-writer event loop for a subset of assets. Commands are drained from a bounded
+ * ring buffer in batches and applied to books that only this thread ever touches. The
+ * fills of a batch are handed to {@code tradeSink} before any caller of that batch is
+ * released, so a completed command always has its fills on the way to persistence.
+ * When a journal is configured, every mutation is journaled before its caller is released.
+ * Books changed by a batch republish their {@link MarketDepth} once, at the end of the batch.
+ * <p>
+ * Dormant stops wait in a {@link StopBook} per asset. Whenever a command fills, the stops it
+ * crossed are placed as if submitted right after it, so they are journaled like any other
+ * order and can in turn trigger further stops within the same batch. Their ids go to
+ * {@code triggerSink} after the batch's fills, so persistence knows they are no longer dormant.
+ * <p>
+ * Immediate orders never rest: the remainder of an IOC order is canceled right after its
+ * match and a FOK order that the opposite side cannot fill is dropped before touching the
+ * book. Either way the order is handed to {@code expirySink} after the batch's fills, as is
+ * whatever is left of an order the shard failed on while bringing it in.
+ * <p>
+ * Latencies and counts are recorded on {@link EngineMetrics} meters held per asset, and the
+ * book gauges are refreshed together with the depth of every book the batch changed.
+ * <p>
+ * A failure once commands have been applied, in the journal or while handing a batch on,
+ * halts the shard: its books may then hold what the database never receives, so it stops
+ * taking commands rather than carry on from state nothing else agrees with.
+ */
+@Slf4j
+class EngineShard implements Runnable {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final int shardId;
+    private final BlockingQueue<EngineCommand> ringBuffer;
+    private final int maxBatchSize;
+    private final Consumer<List<MatchResult>> tradeSink;
+    private final Consumer<List<ExpiredOrder>> expirySink;
+    private final Consumer<List<Long>> triggerSink;
+    private final Function<String, OrderBook> bookFactory;
+    private final Function<String, EngineMetrics.Asset> metricsFactory;
+    private final EngineJournal journal;
+    private final Consumer<MarketDepth> depthSink;
+    private final int depthLevels;
+    private final Map<String, OrderBook> books = new HashMap<>();
+    private final Map<String, StopBook> stopBooks = new HashMap<>();
+    private final Map<String, EngineMetrics.Asset> metrics = new HashMap<>();
+    private final List<BookOrder> triggeredStops = new ArrayList<>();
+    private final List<Long> triggered = new ArrayList<>();
+    private final ArrayDeque<EngineCommand> followUps = new ArrayDeque<>();
+    private final List<ExpiredOrder> expired = new ArrayList<>();
+    private final List<BookOrder> selfTradeCanceled = new ArrayList<>();
+    private final Set<String> changedBooks = new HashSet<>();
+    private final List<EngineCommand> batch;
+    private final List<Runnable> completions;
+    private final Thread thread;
+
+    private volatile boolean running;
+    private volatile boolean snapshotRequested;
+    private volatile Exception failure;
+
+    EngineShard(int shardId, int ringBufferSize, int maxBatchSize,
+                Consumer<List<MatchResult>> tradeSink, Consumer<List<ExpiredOrder>> expirySink,
+                Consumer<List<Long>> triggerSink, Function<String, OrderBook> bookFactory, Function<String, EngineMetrics.Asset> metricsFactory,
+                EngineJournal journal, Consumer<MarketDepth> depthSink, int depthLevels) {
+        this.shardId = shardId;
+        this.ringBuffer = new ArrayBlockingQueue<>(ringBufferSize);
+        this.maxBatchSize = maxBatchSize;
+        this.tradeSink = tradeSink;
+        this.expirySink = expirySink;
+        this.triggerSink = triggerSink;
+        this.bookFactory = bookFactory;
+        this.metricsFactory = metricsFactory;
+        this.journal = journal;
+        this.depthSink = depthSink;
+        this.depthLevels = depthLevels;
+        this.batch = new ArrayList<>(maxBatchSize);
+        this.completions = new ArrayList<>(maxBatchSize);
+        this.thread = new Thread(this, "MatchingEngine-" + shardId);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Restores the books from the journal, if any. Must run before {@link #start()}.
+     *
+     * @return {@code true} if prior state was recovered
+     */
+    boolean recover() throws IOException {
+        boolean recovered = journal != null && journal.recover(books, bookFactory);
+        books.values().forEach(this::publishDepth);
+        books.values().forEach(book -> metricsFor(book.getAssetName()).update(book));
+        return recovered;
+    }
+
+    Set<String> assetNames() {
+        return Set.copyOf(books.keySet());
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Lets the shard drain its ring buffer and write its final snapshot on its own thread. A
+     * shard still draining when the wait runs out keeps its journal open: the books are never
+     * touched from another thread.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        if (thread.isAlive()) {
+            log.error("Matching engine shard {} did not stop in time, leaving its final snapshot unwritten", shardId);
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("Matching engine shard {} failed to close its journal", shardId, e);
+            }
+        }
+    }
+
+    void requestSnapshot() {
+        snapshotRequested = true;
+    }
+
+    void submit(EngineCommand command, long timeoutMillis) {
+        if (failure != null) {
+            throw new ConcurrencyException("Matching engine shard " + shardId + " halted after a failure", failure);
+        }
+        try {
+            if (!ringBuffer.offer(command, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ConcurrencyException("Matching engine shard " + shardId + " is saturated");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyException("Interrupted while submitting to matching engine", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        log.info("Matching engine shard {} started", shardId);
+
+        while ((running || !ringBuffer.isEmpty()) && failure == null) {
+            try {
+                EngineCommand first = ringBuffer.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    ringBuffer.drainTo(batch, maxBatchSize - 1);
+                    processBatch();
+                }
+                if (snapshotRequested && failure == null) {
+                    snapshotRequested = false;
+                    snapshot();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                halt(e);
+            } finally {
+                batch.clear();
+                completions.clear();
+                changedBooks.clear();
+                expired.clear();
+                followUps.clear();
+                selfTradeCanceled.clear();
+                triggeredStops.clear();
+                triggered.clear();
+            }
+        }
+
+        if (failure != null) {
+            for (EngineCommand command; (command = ringBuffer.poll()) != null; ) {
+                command.result().completeExceptionally(
+                        new ConcurrencyException("Matching engine shard " + shardId + " halted after a failure", failure));
+            }
+            log.warn("Matching engine shard {} halted, leaving recovery to its last snapshot and journal", shardId);
+        } else if (journal != null) {
+            snapshot();
+        }
+        log.info("Matching engine shard {} stopped", shardId);
+    }
+
+    private void processBatch() {
+        List<MatchResult> fills = new ArrayList<>();
+
+        try {
+            for (EngineCommand command : batch) {
+                process(command, fills);
+                for (EngineCommand followUp; (followUp = followUps.poll()) != null; ) {
+                    process(followUp, fills);
+                }
+            }
+        } catch (RuntimeException e) {
+            handOff(fills);
+            throw e;
+        }
+        Exception handOffFailure = handOff(fills);
+        if (handOffFailure != null) {
+            halt(handOffFailure);
+            return;
+        }
+
+        for (String assetName : changedBooks) {
+            OrderBook book = books.get(assetName);
+            publishDepth(book);
+            metricsFor(assetName).update(book);
+        }
+
+        completions.forEach(Runnable::run);
+
+        long acknowledgedNanos = System.nanoTime();
+        for (EngineCommand command : batch) {
+            acknowledge(command, acknowledgedNanos);
+        }
+    }
+
+    /**
+     * Hands what the batch applied to the sinks, each on its own, so one that fails does not
+     * keep the others from the database.
+     *
+     * @return the first failure, {@code null} if every sink took its share
+     */
+    private Exception handOff(List<MatchResult> fills) {
+        Exception first = null;
+        if (!fills.isEmpty()) {
+            first = handOff(tradeSink, fills, "fills", first);
+        }
+        if (!triggered.isEmpty()) {
+            first = handOff(triggerSink, List.copyOf(triggered), "triggered stops", first);
+        }
+        if (!expired.isEmpty()) {
+            first = handOff(expirySink, List.copyOf(expired), "expired orders", first);
+        }
+        return first;
+    }
+
+    private <T> Exception handOff(Consumer<List<T>> sink, List<T> items, String description, Exception first) {
+        try {
+            sink.accept(items);
+            return first;
+        } catch (Exception e) {
+            log.error("Matching engine shard {} failed to hand on {} {}", shardId, items.size(), description, e);
+            return first != null ? first : e;
+        }
+    }
+
+    /**
+     * A batch failed outside of a single command, in the journal or while handing it on, so
+     * the books may have moved where the database will not follow. The shard stops: callers of
+     * the batch and of every command still queued are released with the failure, and later
+     * submits are refused.
+     */
+    private void halt(Exception e) {
+        log.error("Matching engine shard {} halted on a batch of {} commands; its books may no longer match the database",
+                shardId, batch.size(), e);
+        failure = e;
+        for (EngineCommand command : batch) {
+            command.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Records the order-to-ack latency of a new order once its caller has been released.
+     */
+    private void acknowledge(EngineCommand command, long acknowledgedNanos) {
+        BookOrder order = enteredOrder(command);
+        if (order != null && order.acceptedNanos != 0) {
+            metricsFor(command.assetName()).recordAck(acknowledgedNanos - order.acceptedNanos);
+            order.acceptedNanos = 0;
+        }
+    }
+
+    /**
+     * The order a command brings into the engine, or {@code null} for commands on orders
+     * already there.
+     */
+    private static BookOrder enteredOrder(EngineCommand command) {
+        if (command instanceof EngineCommand.AddOrder add) {
+            return add.order();
+        } else if (command instanceof EngineCommand.PlaceOrder place) {
+            return place.order();
+        } else if (command instanceof EngineCommand.AddStop stop) {
+            return stop.order();
+        }
+        return null;
+    }
+
+    private void process(EngineCommand command, List<MatchResult> fills) {
+        int firstFill = fills.size();
+        boolean applied = false;
+        boolean failed = false;
+        try {
+            applied = execute(command, fills);
+        } catch (Exception e) {
+            log.error("Matching engine shard {} failed on {} for asset {}",
+                    shardId, command.getClass().getSimpleName(), command.assetName(), e);
+            command.result().completeExceptionally(e);
+            failed = true;
+        }
+        if (journal != null && !journal.record(command, applied, fills, firstFill)) {
+            snapshot();
+        }
+        if (failed) {
+            expireRejected(command, fills, firstFill);
+        }
+        expireSelfTrades(command.assetName(), fills);
+        if (applied || fills.size() > firstFill) {
+            changedBooks.add(command.assetName());
+        }
+        if (fills.size() > firstFill) {
+            metricsFor(command.assetName()).countMatches(fills.size() - firstFill);
+            stopBookFor(command.assetName()).trigger(fills, firstFill, triggeredStops);
+            for (BookOrder stop : triggeredStops) {
+                triggered.add(stop.getOrderId());
+                placeNext(command.assetName(), stop);
+            }
+            triggeredStops.clear();
+        }
+    }
+
+    /**
+     * Orders canceled by self-trade prevention left the book in the middle of a match, so each
+     * gets its own journaled cancel after the command that matched.
+     */
+    private void expireSelfTrades(String assetName, List<MatchResult> fills) {
+        for (BookOrder order : selfTradeCanceled) {
+            expired.add(ExpiredOrder.of(assetName, order, ExpiryReason.SELF_TRADE));
+            metricsFor(assetName).countCancel();
+            EngineCommand cancel = new EngineCommand.CancelOrder(assetName, order.getOrderId(), new CompletableFuture<>());
+            if (journal != null && !journal.record(cancel, true, fills, fills.size())) {
+                snapshot();
+            }
+        }
+        selfTradeCanceled.clear();
+    }
+
+    /**
+     * An order failed on its way in. Whatever is left of it, in the book, armed in the stop
+     * book or never added at all, is taken out and expired, so that its row is canceled and
+     * its blocked balance released in the persistence stage, after any fill it got before the
+     * failure. The caller only sees the failure and has nothing to undo. An order that failed
+     * because the same order already rests is a duplicate and leaves that one alone.
+     */
+    private void expireRejected(EngineCommand command, List<MatchResult> fills, int firstFill) {
+        BookOrder order = enteredOrder(command);
+        if (order == null) {
+            return;
+        }
+        String assetName = command.assetName();
+        OrderBook book = books.get(assetName);
+        long remainingLots;
+        if (order.sequence != 0) {
+            // Rested during this command, so the book holds what is left of it, if anything
+            remainingLots = book.remove(order.getOrderId()).map(BookOrder::getRemainingLots).orElse(0L);
+            if (remainingLots > 0) {
+                changedBooks.add(assetName);
+                EngineCommand cancel = new EngineCommand.CancelOrder(assetName, order.getOrderId(), new CompletableFuture<>());
+                if (journal != null && !journal.record(cancel, true, fills, fills.size())) {
+                    snapshot();
+                }
+            }
+        } else if (book != null && book.remainingLots(order.getOrderId()) > 0) {
+            return;
+        } else {
+            BookOrder armed = stopBookFor(assetName).remove(order.getOrderId());
+            remainingLots = armed != null
+                    ? armed.getRemainingLots()
+                    : order.getSizeLots() - filledLots(order.getOrderId(), fills, firstFill);
+        }
+        if (remainingLots > 0) {
+            expired.add(ExpiredOrder.of(assetName, order, ExpiryReason.REJECTED, remainingLots));
+        }
+    }
+
+    private static long filledLots(long orderId, List<MatchResult> fills, int firstFill) {
+        long lots = 0;
+        for (int i = firstFill; i < fills.size(); i++) {
+            MatchResult fill = fills.get(i);
+            if (fill.buyOrderId() == orderId || fill.sellOrderId() == orderId) {
+                lots += fill.sizeLots();
+            }
+        }
+        return lots;
+    }
+
+    /**
+     * Queues an order to be placed once the current command is done, as if it had been
+     * submitted right behind it.
+     */
+    private void placeNext(String assetName, BookOrder order) {
+        followUps.add(new EngineCommand.PlaceOrder(assetName, order, new CompletableFuture<>()));
+    }
+
+    /**
+     * @return {@code true} if the command changed a resting order outside of matching
+     */
+    private boolean execute(EngineCommand command, List<MatchResult> fills) {
+        OrderBook book = enteredOrder(command) != null
+                ? books.computeIfAbsent(command.assetName(), bookFactory)
+                : books.get(command.assetName());
+        if (book == null) {
+            completeWithoutBook(command);
+            return false;
+        }
+
+        if (command instanceof EngineCommand.AddOrder add) {
+            book.add(add.order());
+            completions.add(() -> add.result().complete(null));
+            return true;
+        } else if (command instanceof EngineCommand.PlaceOrder place) {
+            return place(book, place, fills);
+        } else if (command instanceof EngineCommand.AddStop stop) {
+            addStop(book, stop);
+            completions.add(() -> stop.result().complete(null));
+        } else if (command instanceof EngineCommand.CancelOrder cancel) {
+            boolean canceled = book.cancel(cancel.orderId());
+            boolean disarmed = !canceled && stopBookFor(cancel.assetName()).cancel(cancel.orderId());
+            if (canceled || disarmed) {
+                metricsFor(cancel.assetName()).countCancel();
+            }
+            completions.add(() -> cancel.result().complete(canceled || disarmed));
+            return canceled;
+        } else if (command instanceof EngineCommand.CancelRemainder cancel) {
+            return cancelRemainder(book, cancel);
+        } else if (command instanceof EngineCommand.ReduceOrder reduce) {
+            boolean reduced = book.reduce(reduce.orderId(), reduce.lots());
+            completions.add(() -> reduce.result().complete(reduced));
+            return reduced;
+        } else if (command instanceof EngineCommand.MatchOrders match) {
+            long start = System.nanoTime();
+            int matchCount = book.match(fills, selfTradeCanceled);
+            long elapsedNanos = System.nanoTime() - start;
+            metricsFor(match.assetName()).recordMatch(elapsedNanos);
+            MatchOutcome outcome = new MatchOutcome(match.assetName(), matchCount, elapsedNanos, null);
+            completions.add(() -> match.result().complete(outcome));
+        } else if (command instanceof EngineCommand.SwitchStrategy switchStrategy) {
+            PricingStrategy previous = book.getPricingStrategy();
+            book.setPricingStrategy(switchStrategy.strategy());
+            completions.add(() -> switchStrategy.result().complete(previous));
+        } else if (command instanceof EngineCommand.Inspect<?> inspect) {
+            completeInspect(inspect, book);
+        }
+        return false;
+    }
+
+    /**
+     * Only a command bringing an order in creates a book. Any other command naming an asset
+     * without one, a typo on an admin endpoint for instance, completes as if the book were
+     * empty and registers neither a book nor its meters. An inspect runs against a fresh book
+     * that is dropped afterwards, so it still sees the asset's configured strategy.
+     */
+    private void completeWithoutBook(EngineCommand command) {
+        if (command instanceof EngineCommand.CancelOrder cancel) {
+            completions.add(() -> cancel.result().complete(false));
+        } else if (command instanceof EngineCommand.CancelRemainder cancel) {
+            completions.add(() -> cancel.result().complete(0L));
+        } else if (command instanceof EngineCommand.ReduceOrder reduce) {
+            completions.add(() -> reduce.result().complete(false));
+        } else if (command instanceof EngineCommand.MatchOrders match) {
+            MatchOutcome outcome = new MatchOutcome(match.assetName(), 0, 0, null);
+            completions.add(() -> match.result().complete(outcome));
+        } else if (command instanceof EngineCommand.SwitchStrategy switchStrategy) {
+            completions.add(() -> switchStrategy.result().complete(null));
+        } else if (command instanceof EngineCommand.Inspect<?> inspect) {
+            completeInspect(inspect, bookFactory.apply(inspect.assetName()));
+        }
+    }
+
+    private boolean place(OrderBook book, EngineCommand.PlaceOrder place, List<MatchResult> fills) {
+        BookOrder order = place.order();
+        if (order.getTimeInForce() == TimeInForce.FOK && !book.canFill(order)) {
+            expired.add(ExpiredOrder.of(place.assetName(), order, ExpiryReason.FILL_OR_KILL));
+            completions.add(() -> place.result().complete(0));
+            return false;
+        }
+
+        book.add(order);
+        long start = System.nanoTime();
+        int matchCount = book.match(fills, selfTradeCanceled);
+        long end = System.nanoTime();
+        EngineMetrics.Asset assetMetrics = metricsFor(place.assetName());
+        assetMetrics.recordMatch(end - start);
+        if (matchCount > 0 && order.acceptedNanos != 0) {
+            assetMetrics.recordFirstFill(end - order.acceptedNanos);
+        }
+        long unfilledLots = book.remainingLots(order.getOrderId());
+        if (order.getTimeInForce().isImmediate() && unfilledLots > 0) {
+            expired.add(ExpiredOrder.of(place.assetName(), order, ExpiryReason.UNFILLED_REMAINDER, unfilledLots));
+            followUps.addFirst(new EngineCommand.CancelOrder(place.assetName(), order.getOrderId(), new CompletableFuture<>()));
+        }
+        completions.add(() -> place.result().complete(matchCount));
+        return true;
+    }
+
+    /**
+     * Drops an order at its owner's request and reports it as expired with the exact size the
+     * book held, so its row and blocked balance are persisted in the same stage as, and after,
+     * every fill that preceded the cancel. An armed stop is disarmed the same way but, like
+     * every stop, is not journaled.
+     */
+    private boolean cancelRemainder(OrderBook book, EngineCommand.CancelRemainder cancel) {
+        BookOrder order = book.remove(cancel.orderId()).orElse(null);
+        boolean resting = order != null;
+        if (!resting) {
+            order = stopBookFor(cancel.assetName()).remove(cancel.orderId());
+        }
+        if (order == null) {
+            completions.add(() -> cancel.result().complete(0L));
+            return false;
+        }
+
+        expired.add(ExpiredOrder.of(cancel.assetName(), order, ExpiryReason.USER_CANCELED));
+        metricsFor(cancel.assetName()).countCancel();
+        long canceledLots = order.getRemainingLots();
+        completions.add(() -> cancel.result().complete(canceledLots));
+        return resting;
+    }
+
+    /**
+     * A stop already resting in the book was triggered before a restart and replayed from the
+     * journal, so it is not armed again. One whose trigger the last trade has already crossed
+     * is placed straight away.
+     */
+    private void addStop(OrderBook book, EngineCommand.AddStop stop) {
+        if (book.remainingSize(stop.order().getOrderId()).isPresent()) {
+            return;
+        }
+        StopBook stopBook = stopBookFor(stop.assetName());
+        stopBook.seed(stop.lastTicks());
+        if (!stopBook.add(stop.order(), stop.triggerTicks())) {
+            triggered.add(stop.order().getOrderId());
+            placeNext(stop.assetName(), stop.order());
+        }
+    }
+
+    private EngineMetrics.Asset metricsFor(String assetName) {
+        return metrics.computeIfAbsent(assetName, metricsFactory);
+    }
+
+    private StopBook stopBookFor(String assetName) {
+        return stopBooks.computeIfAbsent(assetName, ignored -> new StopBook());
+    }
+
+    private <T> void completeInspect(EngineCommand.Inspect<T> inspect, OrderBook book) {
+        T value = inspect.query().apply(book);
+        completions.add(() -> inspect.result().complete(value));
+    }
+
+    private void publishDepth(OrderBook book) {
+        try {
+            depthSink.accept(book.depth(depthLevels, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("Matching engine shard {} failed to publish depth for asset {}",
+                    shardId, book.getAssetName(), e);
+        }
+    }
+
+    private void snapshot() {
+        try {
+            journal.snapshot(books);
+        } catch (IOException e) {
+            log.error("Matching engine shard {} failed to write a snapshot", shardId, e);
+        }
+    }
+}
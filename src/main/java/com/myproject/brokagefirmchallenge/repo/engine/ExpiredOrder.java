@@ -0,0 +1,38 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.math.BigDecimal;
+
+/**
+ * Order the engine dropped rather than resting or keeping it: the unfilled remainder of an
+ * immediate order, a fill-or-kill order the book could not fill, the loser of a self-trade
+ * check, an order its owner canceled, or one the engine failed on. The remainder is exactly
+ * what the book held.
+ */
+public record ExpiredOrder(String assetName,
+                           long orderId,
+                           long customerId,
+                           OrderSide side,
+                           ExpiryReason reason,
+                           long priceTicks,
+                           long remainingLots) {
+
+    static ExpiredOrder of(String assetName, BookOrder order, ExpiryReason reason) {
+        return of(assetName, order, reason, order.getRemainingLots());
+    }
+
+    static ExpiredOrder of(String assetName, BookOrder order, ExpiryReason reason, long remainingLots) {
+        return new ExpiredOrder(assetName, order.getOrderId(), order.getCustomerId(), order.getSide(),
+                reason, order.getPriceTicks(), remainingLots);
+    }
+
+    public BigDecimal remainingSize() {
+        return FixedPoint.toBigDecimal(remainingLots);
+    }
+
+    public BigDecimal price() {
+        return FixedPoint.toBigDecimal(priceTicks);
+    }
+}
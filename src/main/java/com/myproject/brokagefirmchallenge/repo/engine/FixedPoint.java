@@ -0,0 +1,51 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Scaled-long representation used inside the order book. Prices are held as ticks and
+ * sizes as lots of 10^-{@value #SCALE}, matching the {@code scale = 4} of the order columns.
+ * <p>
+ * Overflow policy: {@code precision = 19, scale = 4} admits unscaled values up to
+ * 10^19 - 1, which is slightly more than {@link Long#MAX_VALUE}. Such values, and values
+ * with more than four decimals, are rejected at the boundary by {@link #toTicks}.
+ * Inside the engine, sizes only ever shrink, and execution prices always lie between the
+ * two limit prices, so results always fit. Intermediate products use exact arithmetic and
+ * callers fall back to {@link BigDecimal} for the rare computation that overflows.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 4;
+    public static final long CENT_TICKS = 100L;
+
+    private FixedPoint() {
+    }
+
+    public static long toTicks(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long ticks) {
+        return BigDecimal.valueOf(ticks, SCALE);
+    }
+
+    public static boolean isRepresentable(BigDecimal value) {
+        try {
+            toTicks(value);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        return remainder >= divisor - remainder ? quotient + 1 : quotient;
+    }
+
+    public static long roundToCents(BigDecimal value) {
+        return toTicks(value.setScale(2, RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,426 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Matching, cancel and reduce logic shared by every book. It addresses resting orders by a
+ * non-negative int handle and price levels by an opaque type {@code L}, so the heap books,
+ * whose handles index a table of {@link BookOrder} nodes, and {@link SlabOrderBook}, whose
+ * handles are slab records, run the same loop. Prices and sizes are fixed-point ticks and
+ * lots; the match loop does no {@code BigDecimal} arithmetic and allocates nothing but fills.
+ *
+ * @param <L> the book's price level type
+ */
+abstract class HandleOrderBook<L> implements OrderBook {
+
+    static final int NONE = -1;
+
+    @Getter
+    private final String assetName;
+
+    private long bidLots;
+    private long askLots;
+    private long lastSequence;
+
+    /**
+     * Id of the last market order added, whose fills are priced at the maker's price. A market
+     * order is matched in the command that adds it and its remainder canceled right after, so
+     * it is the only one the book can hold at a time.
+     */
+    private long marketOrderId = -1;
+
+    @Getter
+    @Setter
+    private PricingStrategy pricingStrategy;
+
+    @Getter
+    @Setter
+    private SelfTradePrevention selfTradePrevention = SelfTradePrevention.SKIP;
+
+    protected HandleOrderBook(String assetName) {
+        this.assetName = assetName;
+    }
+
+    /**
+     * Handle of the resting order with this id, or {@link #NONE}.
+     */
+    protected abstract int handleOf(long orderId);
+
+    /**
+     * Rests an order, already stamped with its sequence, behind the others at its price.
+     */
+    protected abstract void insert(BookOrder order);
+
+    /**
+     * Takes lots off a resting order and its level without unlinking it.
+     */
+    protected abstract void shrink(int order, long lots);
+
+    /**
+     * Unlinks an order from its level, drops the level once empty and forgets the handle.
+     */
+    protected abstract void release(int order);
+
+    /**
+     * The order behind a handle as a {@link BookOrder}, for callers outside the match loop.
+     */
+    protected abstract BookOrder view(int order);
+
+    protected abstract long orderId(int order);
+
+    protected abstract long customerId(int order);
+
+    protected abstract OrderSide side(int order);
+
+    protected abstract long priceTicks(int order);
+
+    protected abstract long remainingLotsOf(int order);
+
+    protected abstract long sequence(int order);
+
+    /**
+     * The order queued behind this one at its price, or {@link #NONE}.
+     */
+    protected abstract int next(int order);
+
+    /**
+     * Whether the handle still refers to a resting order. Handles are only reused by
+     * {@link #insert}, which never runs while the book is matching.
+     */
+    protected abstract boolean isResting(int order);
+
+    protected abstract L bestLevel(OrderSide side);
+
+    protected abstract L levelOf(int order);
+
+    protected abstract L findLevel(OrderSide side, long priceTicks);
+
+    /**
+     * The level behind {@code level} on its side, one step worse in price, or {@code null}.
+     * Lets every walk over levels be a plain loop without a visitor to allocate.
+     */
+    protected abstract L nextLevel(OrderSide side, L level);
+
+    protected abstract int head(L level);
+
+    protected abstract long levelPriceTicks(L level);
+
+    protected abstract long levelLots(L level);
+
+    protected abstract int levelOrderCount(L level);
+
+    /**
+     * Rests an order behind the others at its price and stamps its arrival sequence. Orders
+     * restored from a snapshot keep the sequence they were written with.
+     */
+    @Override
+    public void add(BookOrder order) {
+        if (handleOf(order.getOrderId()) != NONE) {
+            throw new IllegalStateException("Order " + order.getOrderId() + " is already in the book");
+        }
+        if (order.sequence == 0) {
+            order.sequence = ++lastSequence;
+        } else {
+            lastSequence = Math.max(lastSequence, order.sequence);
+        }
+        if (order.isMarketOrder()) {
+            marketOrderId = order.getOrderId();
+        }
+        insert(order);
+        addLots(order.getSide(), order.getRemainingLots());
+    }
+
+    @Override
+    public boolean cancel(long orderId) {
+        int order = handleOf(orderId);
+        if (order == NONE) {
+            return false;
+        }
+        addLots(side(order), -remainingLotsOf(order));
+        release(order);
+        return true;
+    }
+
+    @Override
+    public Optional<BookOrder> remove(long orderId) {
+        int order = handleOf(orderId);
+        if (order == NONE) {
+            return Optional.empty();
+        }
+        BookOrder removed = view(order);
+        cancel(orderId);
+        return Optional.of(removed);
+    }
+
+    /**
+     * Shrinks a resting order in place, keeping its time priority. Reducing by the whole
+     * remaining size cancels it.
+     */
+    @Override
+    public boolean reduce(long orderId, long lots) {
+        int order = handleOf(orderId);
+        if (order == NONE) {
+            return false;
+        }
+        if (lots >= remainingLotsOf(order)) {
+            return cancel(orderId);
+        }
+        shrink(order, lots);
+        addLots(side(order), -lots);
+        return true;
+    }
+
+    /**
+     * Crosses the best bid against the best offer until they no longer cross. When both heads
+     * belong to the same customer the {@link SelfTradePrevention} mode decides: the newer or the
+     * older order is canceled and reported in {@code canceled}, or, when skipping, the newer one
+     * trades with the first order of another customer behind the older one. The skip resumes
+     * where it left off as long as the same order is taking, so stacked orders of one customer
+     * are stepped over once rather than on every fill.
+     */
+    @Override
+    public int match(PricingStrategy strategy, List<MatchResult> fills, List<BookOrder> canceled) {
+        int matchCount = 0;
+        int skipTaker = NONE;
+        int skipFrom = NONE;
+
+        while (true) {
+            L bidLevel = bestLevel(OrderSide.BUY);
+            L askLevel = bestLevel(OrderSide.SELL);
+            if (bidLevel == null || askLevel == null) {
+                break;
+            }
+            int buyOrder = head(bidLevel);
+            int sellOrder = head(askLevel);
+
+            if (customerId(buyOrder) != customerId(sellOrder)) {
+                if (!strategy.canMatch(priceTicks(buyOrder), priceTicks(sellOrder))) {
+                    break;
+                }
+                fill(buyOrder, sellOrder, strategy, fills);
+                matchCount++;
+                continue;
+            }
+
+            int newer = sequence(buyOrder) > sequence(sellOrder) ? buyOrder : sellOrder;
+            int older = newer == buyOrder ? sellOrder : buyOrder;
+            if (selfTradePrevention != SelfTradePrevention.SKIP) {
+                int victim = selfTradePrevention == SelfTradePrevention.CANCEL_NEWEST ? newer : older;
+                if (!strategy.canMatch(priceTicks(buyOrder), priceTicks(sellOrder))) {
+                    break;
+                }
+                canceled.add(view(victim));
+                cancel(orderId(victim));
+                continue;
+            }
+
+            int from = newer == skipTaker && skipFrom != NONE && isResting(skipFrom) ? skipFrom : older;
+            int taker = newer;
+            int counterparty = nextCounterparty(taker, from, strategy);
+            if (counterparty == NONE) {
+                taker = older;
+                counterparty = nextCounterparty(taker, newer, strategy);
+            }
+            if (counterparty == NONE) {
+                // Every crossing order on either side belongs to this customer
+                break;
+            }
+
+            int resume = remainingLotsOf(counterparty) > remainingLotsOf(taker) ? counterparty : next(counterparty);
+            if (side(taker) == OrderSide.BUY) {
+                fill(taker, counterparty, strategy, fills);
+            } else {
+                fill(counterparty, taker, strategy, fills);
+            }
+            matchCount++;
+            skipTaker = taker == newer ? newer : NONE;
+            skipFrom = resume;
+        }
+
+        return matchCount;
+    }
+
+    /**
+     * First order from {@code from} onwards, in priority order on its side, that belongs to
+     * another customer than {@code taker}, or {@link #NONE} if there is none at a price that
+     * crosses the taker. Starts at {@code from}'s own level, so levels ahead of it are never
+     * visited, and stops at the first level that no longer crosses.
+     */
+    private int nextCounterparty(int taker, int from, PricingStrategy strategy) {
+        OrderSide side = side(from);
+        boolean buying = side(taker) == OrderSide.BUY;
+        long takerTicks = priceTicks(taker);
+        long takerCustomerId = customerId(taker);
+        int order = from;
+        for (L level = levelOf(from); level != null; level = nextLevel(side, level)) {
+            long levelTicks = levelPriceTicks(level);
+            boolean crosses = buying
+                    ? strategy.canMatch(takerTicks, levelTicks)
+                    : strategy.canMatch(levelTicks, takerTicks);
+            if (!crosses) {
+                return NONE;
+            }
+            for (order = order == NONE ? head(level) : order; order != NONE; order = next(order)) {
+                if (customerId(order) != takerCustomerId) {
+                    return order;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Trades the smaller remaining size of the two orders, priced with the one that rested
+     * first, by arrival sequence, as the maker. A market taker trades at the maker's price, so
+     * an averaging strategy never blends in its collar.
+     */
+    private void fill(int buyOrder, int sellOrder, PricingStrategy strategy, List<MatchResult> fills) {
+        long buyLots = remainingLotsOf(buyOrder);
+        long sellLots = remainingLotsOf(sellOrder);
+        long size = Math.min(buyLots, sellLots);
+        int maker = sequence(buyOrder) < sequence(sellOrder) ? buyOrder : sellOrder;
+        int taker = maker == buyOrder ? sellOrder : buyOrder;
+        long price = orderId(taker) == marketOrderId
+                ? priceTicks(maker)
+                : strategy.calculateExecutionPrice(priceTicks(maker), remainingLotsOf(maker),
+                        priceTicks(taker), remainingLotsOf(taker));
+
+        shrink(buyOrder, size);
+        shrink(sellOrder, size);
+        bidLots -= size;
+        askLots -= size;
+        fills.add(new MatchResult(assetName,
+                orderId(buyOrder), customerId(buyOrder),
+                orderId(sellOrder), customerId(sellOrder),
+                size, price));
+
+        if (buyLots == size) {
+            release(buyOrder);
+        }
+        if (sellLots == size) {
+            release(sellOrder);
+        }
+    }
+
+    @Override
+    public boolean canFill(BookOrder order, PricingStrategy strategy) {
+        boolean buying = order.getSide() == OrderSide.BUY;
+        OrderSide opposite = buying ? OrderSide.SELL : OrderSide.BUY;
+        long available = 0;
+        for (L level = bestLevel(opposite); level != null; level = nextLevel(opposite, level)) {
+            boolean crosses = buying
+                    ? strategy.canMatch(order.getPriceTicks(), levelPriceTicks(level))
+                    : strategy.canMatch(levelPriceTicks(level), order.getPriceTicks());
+            if (!crosses) {
+                break;
+            }
+            for (int resting = head(level); resting != NONE; resting = next(resting)) {
+                if (customerId(resting) != order.getCustomerId()) {
+                    available += remainingLotsOf(resting);
+                    if (available >= order.getRemainingLots()) {
+                        return true;
+                    }
+                } else if (selfTradePrevention == SelfTradePrevention.CANCEL_NEWEST) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Optional<BookOrder> bestBid() {
+        return bestOrder(OrderSide.BUY);
+    }
+
+    @Override
+    public Optional<BookOrder> bestAsk() {
+        return bestOrder(OrderSide.SELL);
+    }
+
+    private Optional<BookOrder> bestOrder(OrderSide side) {
+        L level = bestLevel(side);
+        return level == null ? Optional.empty() : Optional.of(view(head(level)));
+    }
+
+    @Override
+    public Optional<BigDecimal> remainingSize(long orderId) {
+        int order = handleOf(orderId);
+        return order == NONE ? Optional.empty() : Optional.of(FixedPoint.toBigDecimal(remainingLotsOf(order)));
+    }
+
+    @Override
+    public long remainingLots(long orderId) {
+        int order = handleOf(orderId);
+        return order == NONE ? 0 : remainingLotsOf(order);
+    }
+
+    @Override
+    public boolean hasLevel(OrderSide side, BigDecimal price) {
+        return findLevel(side, FixedPoint.toTicks(price)) != null;
+    }
+
+    @Override
+    public int orderCount(OrderSide side) {
+        int count = 0;
+        for (L level = bestLevel(side); level != null; level = nextLevel(side, level)) {
+            count += levelOrderCount(level);
+        }
+        return count;
+    }
+
+    @Override
+    public long totalLots(OrderSide side) {
+        return side == OrderSide.BUY ? bidLots : askLots;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return restingOrderCount() == 0;
+    }
+
+    @Override
+    public MarketDepth depth(int maxLevels, long timestamp) {
+        return new MarketDepth(assetName, depthLevels(OrderSide.BUY, maxLevels),
+                depthLevels(OrderSide.SELL, maxLevels), timestamp);
+    }
+
+    private List<DepthLevel> depthLevels(OrderSide side, int maxLevels) {
+        if (maxLevels <= 0) {
+            return List.of();
+        }
+        List<DepthLevel> levels = new ArrayList<>(Math.min(maxLevels, levelCount(side)));
+        for (L level = bestLevel(side); level != null && levels.size() < maxLevels; level = nextLevel(side, level)) {
+            levels.add(new DepthLevel(levelPriceTicks(level), levelLots(level), levelOrderCount(level)));
+        }
+        return Collections.unmodifiableList(levels);
+    }
+
+    @Override
+    public void forEachOrder(OrderSide side, Consumer<BookOrder> consumer) {
+        for (L level = bestLevel(side); level != null; level = nextLevel(side, level)) {
+            for (int order = head(level); order != NONE; order = next(order)) {
+                consumer.accept(view(order));
+            }
+        }
+    }
+
+    private void addLots(OrderSide side, long lots) {
+        if (side == OrderSide.BUY) {
+            bidLots += lots;
+        } else {
+            askLots += lots;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs every shard in this process and hands commands straight to the shard's ring buffer on
+ * the calling thread.
+ */
+@Component
+public class InProcessShardRouter implements ShardRouter {
+
+    private volatile Endpoint[] shards;
+
+    @Override
+    public boolean owns(int shardId) {
+        return true;
+    }
+
+    @Override
+    public void bind(Endpoint[] localShards) {
+        this.shards = localShards.clone();
+    }
+
+    @Override
+    public void route(int shardId, EngineCommand command) {
+        shards[shardId].submit(command);
+    }
+}
@@ -0,0 +1,277 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Array-ladder book for dense, liquid assets. Each side keeps a circular array of price
+ * levels indexed by tick offset from an anchor, plus a cursor on the best level, so best-price
+ * lookups and level inserts are O(1) array accesses instead of tree walks.
+ * <p>
+ * The window slides to stay centred on the touch: a price better than the ladder's best but
+ * outside the window re-centres it there, and so does an overflow level that becomes the best
+ * once the ladder's best is gone. Prices that fall behind the window or off the tick grid rest
+ * in a small sorted overflow map, so the book stays correct for any price at tree cost for
+ * those outliers only.
+ */
+public class LadderOrderBook extends AbstractOrderBook {
+
+    private final Ladder bids;
+    private final Ladder asks;
+
+    public LadderOrderBook(String assetName, long tickSizeTicks, int capacity) {
+        super(assetName);
+        if (tickSizeTicks <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ladder needs a positive tick size and a power-of-two capacity");
+        }
+        this.bids = new Ladder(true, tickSizeTicks, capacity);
+        this.asks = new Ladder(false, tickSizeTicks, capacity);
+    }
+
+    @Override
+    protected PriceLevel bestLevel(OrderSide side) {
+        return sideOf(side).best();
+    }
+
+    @Override
+    protected PriceLevel findLevel(OrderSide side, long priceTicks) {
+        return sideOf(side).find(priceTicks);
+    }
+
+    @Override
+    protected PriceLevel createLevel(OrderSide side, long priceTicks) {
+        return sideOf(side).create(priceTicks);
+    }
+
+    @Override
+    protected void removeLevel(OrderSide side, PriceLevel level) {
+        sideOf(side).remove(level);
+    }
+
+    @Override
+    protected PriceLevel nextLevel(OrderSide side, PriceLevel level) {
+        return sideOf(side).next(level.getPriceTicks());
+    }
+
+    @Override
+    public int levelCount(OrderSide side) {
+        Ladder ladder = sideOf(side);
+        return ladder.ladderLevels + ladder.overflow.size();
+    }
+
+    /**
+     * Whether the side's best level is held in the ladder slots rather than the overflow map.
+     */
+    boolean isBestOnLadder(OrderSide side) {
+        Ladder ladder = sideOf(side);
+        return ladder.best != Ladder.NONE && ladder.best() == ladder.slots[ladder.slot(ladder.best)];
+    }
+
+    private Ladder sideOf(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    private static final class Ladder {
+
+        private static final long NONE = -1;
+
+        private final boolean bid;
+        private final long tickSize;
+        private final PriceLevel[] slots;
+        private final int mask;
+        private final NavigableMap<Long, PriceLevel> overflow;
+
+        private long base = NONE;
+        private long best = NONE;
+        private int ladderLevels;
+
+        private Ladder(boolean bid, long tickSize, int capacity) {
+            this.bid = bid;
+            this.tickSize = tickSize;
+            this.slots = new PriceLevel[capacity];
+            this.mask = capacity - 1;
+            this.overflow = bid ? new TreeMap<>(Comparator.reverseOrder()) : new TreeMap<>();
+        }
+
+        PriceLevel best() {
+            PriceLevel ladderBest = best == NONE ? null : slots[slot(best)];
+            if (overflow.isEmpty()) {
+                return ladderBest;
+            }
+            PriceLevel overflowBest = overflow.get(overflow.firstKey());
+            if (ladderBest == null || better(overflowBest.getPriceTicks(), ladderBest.getPriceTicks())) {
+                return overflowBest;
+            }
+            return ladderBest;
+        }
+
+        PriceLevel find(long priceTicks) {
+            if (priceTicks % tickSize == 0 && inWindow(priceTicks / tickSize)) {
+                PriceLevel level = slots[slot(priceTicks / tickSize)];
+                if (level != null) {
+                    return level;
+                }
+            }
+            return overflow.isEmpty() ? null : overflow.get(priceTicks);
+        }
+
+        PriceLevel create(long priceTicks) {
+            PriceLevel level = new PriceLevel(priceTicks);
+            if (priceTicks % tickSize != 0) {
+                overflow.put(level.key, level);
+                return level;
+            }
+
+            long index = priceTicks / tickSize;
+            if (!inWindow(index) && (ladderLevels == 0 || better(index, best))) {
+                recenter(index);
+            }
+            if (!inWindow(index)) {
+                overflow.put(level.key, level);
+                return level;
+            }
+
+            slots[slot(index)] = level;
+            if (ladderLevels++ == 0 || better(index, best)) {
+                best = index;
+            }
+            return level;
+        }
+
+        void remove(PriceLevel level) {
+            long priceTicks = level.getPriceTicks();
+            long index = priceTicks / tickSize;
+            if (priceTicks % tickSize != 0 || !inWindow(index) || slots[slot(index)] != level) {
+                overflow.remove(level.key);
+                return;
+            }
+
+            slots[slot(index)] = null;
+            if (--ladderLevels == 0) {
+                best = NONE;
+            } else if (index == best) {
+                best = nextOccupied(best);
+            } else {
+                return;
+            }
+            recenterOnOverflow();
+        }
+
+        /**
+         * Re-centres the window on the best on-grid overflow level when it beats whatever the
+         * ladder still holds, so the touch goes back to being served from the slots.
+         */
+        private void recenterOnOverflow() {
+            for (Long priceTicks : overflow.keySet()) {
+                if (ladderLevels > 0 && !better(priceTicks, best * tickSize)) {
+                    return;
+                }
+                if (priceTicks % tickSize == 0) {
+                    recenter(priceTicks / tickSize);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Slides the window so it is centred on {@code index}. A slot depends only on the
+         * index, so levels inside both windows stay put; those left behind move to the
+         * overflow map and on-grid overflow levels the new window covers move into the slots.
+         */
+        private void recenter(long index) {
+            long newBase = Math.max(0, index - slots.length / 2);
+            long from = best;
+            for (int remaining = ladderLevels; remaining > 0; remaining--) {
+                long current = from;
+                if (remaining > 1) {
+                    from = nextOccupied(from);
+                }
+                if (current < newBase || current >= newBase + slots.length) {
+                    PriceLevel level = slots[slot(current)];
+                    slots[slot(current)] = null;
+                    overflow.put(level.key, level);
+                    ladderLevels--;
+                }
+            }
+
+            base = newBase;
+            long low = base * tickSize;
+            long high = (base + slots.length) * tickSize;
+            NavigableMap<Long, PriceLevel> covered = bid
+                    ? overflow.subMap(high, false, low, true)
+                    : overflow.subMap(low, true, high, false);
+            Iterator<PriceLevel> iterator = covered.values().iterator();
+            while (iterator.hasNext()) {
+                PriceLevel level = iterator.next();
+                if (level.getPriceTicks() % tickSize == 0) {
+                    slots[slot(level.getPriceTicks() / tickSize)] = level;
+                    ladderLevels++;
+                    iterator.remove();
+                }
+            }
+
+            best = NONE;
+            if (ladderLevels > 0) {
+                best = bid ? base + slots.length : base - 1;
+                best = nextOccupied(best);
+            }
+        }
+
+        /**
+         * The better of the next ladder level and the next overflow level behind
+         * {@code priceTicks}. The ladder is scanned slot by slot towards the window's far end,
+         * as {@link #nextOccupied} does.
+         */
+        PriceLevel next(long priceTicks) {
+            PriceLevel ladderNext = null;
+            if (ladderLevels > 0) {
+                long step = bid ? -1 : 1;
+                long index = bid ? Math.floorDiv(priceTicks - 1, tickSize) : Math.floorDiv(priceTicks, tickSize) + 1;
+                if (better(index, best)) {
+                    index = best;
+                }
+                for (; inWindow(index); index += step) {
+                    if (slots[slot(index)] != null) {
+                        ladderNext = slots[slot(index)];
+                        break;
+                    }
+                }
+            }
+            if (overflow.isEmpty()) {
+                return ladderNext;
+            }
+            Long key = overflow.higherKey(priceTicks);
+            PriceLevel overflowNext = key == null ? null : overflow.get(key);
+            if (ladderNext == null || (overflowNext != null &&
+                    better(overflowNext.getPriceTicks(), ladderNext.getPriceTicks()))) {
+                return overflowNext;
+            }
+            return ladderNext;
+        }
+
+        private long nextOccupied(long from) {
+            long step = bid ? -1 : 1;
+            long index = from + step;
+            while (slots[slot(index)] == null) {
+                index += step;
+            }
+            return index;
+        }
+
+        private boolean inWindow(long index) {
+            return base != NONE && index >= base && index < base + slots.length;
+        }
+
+        private boolean better(long a, long b) {
+            return bid ? a > b : a < b;
+        }
+
+        private int slot(long index) {
+            return (int) (index & mask);
+        }
+    }
+}
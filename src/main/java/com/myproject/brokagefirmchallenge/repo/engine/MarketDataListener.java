@@ -0,0 +1,15 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.util.List;
+
+/**
+ * Receives the public market data of a shard: the fills of a batch, then the depth of every
+ * book the batch changed. Listeners are invoked on the shard thread itself, in that order,
+ * so they must only hand the data off and return.
+ */
+public interface MarketDataListener {
+
+    void onTrades(List<MatchResult> trades);
+
+    void onDepth(MarketDepth depth);
+}
@@ -0,0 +1,23 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.util.List;
+
+/**
+ * Immutable aggregated view of the top of a book, best price first on both sides. A new
+ * instance is published after every engine batch that changed the book, so readers never
+ * see a partially applied batch and never touch the book itself.
+ */
+public record MarketDepth(String assetName, List<DepthLevel> bids, List<DepthLevel> asks, long timestamp) {
+
+    public static MarketDepth empty(String assetName) {
+        return new MarketDepth(assetName, List.of(), List.of(), 0L);
+    }
+
+    public MarketDepth top(int levels) {
+        if (bids.size() <= levels && asks.size() <= levels) {
+            return this;
+        }
+        return new MarketDepth(assetName, bids.subList(0, Math.min(levels, bids.size())),
+                asks.subList(0, Math.min(levels, asks.size())), timestamp);
+    }
+}
@@ -0,0 +1,16 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+/**
+ * Result of one matching pass over a book. {@code elapsedNanos} is measured on the shard
+ * thread and excludes queueing; {@code error} is set instead when the pass failed.
+ */
+public record MatchOutcome(String assetName, int matchCount, long elapsedNanos, String error) {
+
+    public static MatchOutcome failed(String assetName, Throwable error) {
+        return new MatchOutcome(assetName, 0, 0, error.getMessage());
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.math.BigDecimal;
+
+public record MatchResult(String assetName,
+                          long buyOrderId,
+                          long buyCustomerId,
+                          long sellOrderId,
+                          long sellCustomerId,
+                          long sizeLots,
+                          long priceTicks) {
+
+    public BigDecimal size() {
+        return FixedPoint.toBigDecimal(sizeLots);
+    }
+
+    public BigDecimal price() {
+        return FixedPoint.toBigDecimal(priceTicks);
+    }
+}
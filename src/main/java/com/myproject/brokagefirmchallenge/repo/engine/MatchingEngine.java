@@ -0,0 +1,462 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ConcurrencyException;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class MatchingEngine {
+
+    public static final long AWAIT_TIMEOUT_MILLIS = 10_000;
+
+    private final List<TradeListener> tradeListeners;
+    private final List<MarketDataListener> marketDataListeners;
+    private final Executor persistenceExecutor;
+    private final OrderBookFactory orderBookFactory;
+    private final EngineMetrics engineMetrics;
+    private final ShardRouter shardRouter;
+
+    @Value("${order.matching.engine.shards:4}")
+    private int shardCount;
+
+    @Value("${order.matching.engine.ring-buffer-size:8192}")
+    private int ringBufferSize;
+
+    @Value("${order.matching.engine.max-batch-size:256}")
+    private int maxBatchSize;
+
+    @Value("${order.matching.engine.submit-timeout-millis:1000}")
+    private long submitTimeoutMillis;
+
+    @Value("${order.matching.engine.depth-levels:50}")
+    private int depthLevels;
+
+    @Value("${order.matching.engine.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${order.matching.engine.journal.directory:data/engine}")
+    private String journalDirectory;
+
+    @Value("${order.matching.engine.journal.size-mb:64}")
+    private int journalSizeMb;
+
+    @Value("${order.matching.persistence.max-attempts:3}")
+    private int persistenceMaxAttempts;
+
+    @Value("${order.matching.persistence.retry-backoff-millis:200}")
+    private long persistenceRetryBackoffMillis;
+
+    private final Set<String> assetNames = ConcurrentHashMap.newKeySet();
+    private final Queue<Delivery> deadLetters = new ConcurrentLinkedQueue<>();
+    private final Map<String, MarketDepth> marketDepth = new ConcurrentHashMap<>();
+    private final Map<String, TopOfBook> topOfBook = new ConcurrentHashMap<>();
+    private final Map<String, MatchResult> lastTrades = new ConcurrentHashMap<>();
+    private ConsistentHashRing ring;
+    private EngineShard[] shards;
+    private volatile boolean recovered;
+
+    public MatchingEngine(List<TradeListener> tradeListeners,
+                          List<MarketDataListener> marketDataListeners,
+                          @Qualifier("matchingPersistenceExecutor") Executor persistenceExecutor,
+                          OrderBookFactory orderBookFactory,
+                          EngineMetrics engineMetrics,
+                          ShardRouter shardRouter) {
+        this.tradeListeners = tradeListeners;
+        this.marketDataListeners = marketDataListeners;
+        this.persistenceExecutor = persistenceExecutor;
+        this.orderBookFactory = orderBookFactory;
+        this.engineMetrics = engineMetrics;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Starts the shards the {@link ShardRouter} assigns to this process, each with its own
+     * thread and journal, and binds them to the router. Assets are placed on the
+     * configured number of shards by consistent hashing of their names.
+     */
+    @PostConstruct
+    public void start() {
+        engineMetrics.gaugeDeadLetters(deadLetters);
+        ring = new ConsistentHashRing(shardCount);
+        shards = new EngineShard[shardCount];
+        ShardRouter.Endpoint[] endpoints = new ShardRouter.Endpoint[shardCount];
+        int localShards = 0;
+        for (int i = 0; i < shardCount; i++) {
+            if (!shardRouter.owns(i)) {
+                continue;
+            }
+            EngineShard shard = new EngineShard(i, ringBufferSize, maxBatchSize,
+                    this::dispatchTrades, this::dispatchExpired, this::dispatchTriggered, orderBookFactory::create, engineMetrics::forAsset,
+                    openJournal(i), this::publishDepth, depthLevels);
+            recoverShard(shard);
+            shard.start();
+            shards[i] = shard;
+            endpoints[i] = command -> shard.submit(command, submitTimeoutMillis);
+            localShards++;
+        }
+        shardRouter.bind(endpoints);
+        log.info("Started matching engine with {} of {} shards local", localShards, shardCount);
+
+        if (recovered) {
+            log.info("Matching engine recovered {} order books from snapshots and journals", assetNames.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.matching.engine.snapshot.interval-millis:60000}",
+            initialDelayString = "${order.matching.engine.snapshot.interval-millis:60000}")
+    public void snapshot() {
+        if (!journalEnabled) {
+            return;
+        }
+        for (EngineShard shard : shards) {
+            if (shard != null) {
+                shard.requestSnapshot();
+            }
+        }
+    }
+
+    /**
+     * Gives the parked batches another round of delivery attempts on the persistence thread,
+     * oldest first. Once a listener's batch fails again, its later batches stay parked behind
+     * it, so a listener never applies a batch before one the engine produced earlier.
+     */
+    @Scheduled(fixedDelayString = "${order.matching.persistence.dead-letter-retry-millis:30000}",
+            initialDelayString = "${order.matching.persistence.dead-letter-retry-millis:30000}")
+    public void redeliverDeadLetters() {
+        persistenceExecutor.execute(this::redeliverParked);
+    }
+
+    /**
+     * Whether the books were rebuilt from a snapshot and journal on startup, in which case
+     * they must not be reloaded from the database.
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("Stopping matching engine");
+
+        for (EngineShard shard : shards) {
+            if (shard != null) {
+                shard.stop();
+            }
+        }
+    }
+
+    public CompletableFuture<Void> addOrder(Order order) {
+        assetNames.add(order.getAssetName());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(new EngineCommand.AddOrder(order.getAssetName(), BookOrder.of(order), result));
+        return result;
+    }
+
+    public CompletableFuture<Integer> placeOrder(Order order) {
+        assetNames.add(order.getAssetName());
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        submit(new EngineCommand.PlaceOrder(order.getAssetName(), BookOrder.of(order), result));
+        return result;
+    }
+
+    /**
+     * Arms a stop order: it stays out of the book until a trade prints at or through
+     * {@code triggerPrice}, then enters it as a limit order at its own price. Canceled like any
+     * other order. Dormant stops are not journaled and must be re-armed after a restart.
+     */
+    public CompletableFuture<Void> addStopOrder(Order order, BigDecimal triggerPrice) {
+        return addStopOrder(order, triggerPrice, null);
+    }
+
+    /**
+     * Re-arms a stop after a restart. Until the asset trades again, {@code lastPrice}, the last
+     * execution persisted before the restart, stands in for the last trade, so a stop the market
+     * had already moved through is placed straight away instead of waiting for the next print.
+     */
+    public CompletableFuture<Void> addStopOrder(Order order, BigDecimal triggerPrice, BigDecimal lastPrice) {
+        assetNames.add(order.getAssetName());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(new EngineCommand.AddStop(order.getAssetName(), BookOrder.of(order),
+                FixedPoint.toTicks(triggerPrice), lastPrice != null ? FixedPoint.toTicks(lastPrice) : 0L, result));
+        return result;
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(String assetName, Long orderId) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        submit(new EngineCommand.CancelOrder(assetName, orderId, result));
+        return result;
+    }
+
+    /**
+     * Cancels an order for its owner. The engine is the authority on what is left of it: the
+     * canceled remainder is reported to the trade listeners as an expired order, after the
+     * fills that preceded it, and is also what the returned future holds.
+     *
+     * @return the canceled size, empty if the order was neither resting nor armed
+     */
+    public CompletableFuture<Optional<BigDecimal>> cancelRemainder(String assetName, Long orderId) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        submit(new EngineCommand.CancelRemainder(assetName, orderId, result));
+        return result.thenApply(lots -> lots == 0 ? Optional.empty() : Optional.of(FixedPoint.toBigDecimal(lots)));
+    }
+
+    public CompletableFuture<Boolean> reduceOrder(String assetName, Long orderId, BigDecimal reduceBy) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        submit(new EngineCommand.ReduceOrder(assetName, orderId, FixedPoint.toTicks(reduceBy), result));
+        return result;
+    }
+
+    public CompletableFuture<MatchOutcome> matchOrders(String assetName) {
+        CompletableFuture<MatchOutcome> result = new CompletableFuture<>();
+        submit(new EngineCommand.MatchOrders(assetName, result));
+        return result;
+    }
+
+    /**
+     * Rebinds the asset's book to {@code strategy}. The swap runs on the owning shard between
+     * commands, so no match ever sees a mix of the two strategies.
+     *
+     * @return the strategy the book was using before, {@code null} if the asset has no book
+     */
+    public CompletableFuture<PricingStrategy> switchStrategy(String assetName, PricingStrategy strategy) {
+        CompletableFuture<PricingStrategy> result = new CompletableFuture<>();
+        submit(new EngineCommand.SwitchStrategy(assetName, strategy, result));
+        return result;
+    }
+
+    public <T> CompletableFuture<T> inspect(String assetName, Function<OrderBook, T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(new EngineCommand.Inspect<>(assetName, query, result));
+        return result;
+    }
+
+    /**
+     * Latest published depth of the asset's book. Never blocks and never reaches the shard thread.
+     */
+    public MarketDepth getMarketDepth(String assetName) {
+        return marketDepth.getOrDefault(assetName, MarketDepth.empty(assetName));
+    }
+
+    /**
+     * Latest published best bid, best offer and last trade of the asset: a single map read of
+     * an immutable record, cheap enough for the order entry path.
+     */
+    public TopOfBook getTopOfBook(String assetName) {
+        TopOfBook top = topOfBook.get(assetName);
+        return top != null ? top : TopOfBook.empty(assetName);
+    }
+
+    public Set<String> getAssetNames() {
+        return Set.copyOf(assetNames);
+    }
+
+    /**
+     * Waits at most {@link #AWAIT_TIMEOUT_MILLIS} for a command's result, so a stalled shard
+     * fails its callers instead of holding their threads forever.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConcurrencyException("Matching engine did not respond within " + AWAIT_TIMEOUT_MILLIS + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyException("Interrupted while waiting for the matching engine", e);
+        }
+    }
+
+    private EngineJournal openJournal(int shardId) {
+        if (!journalEnabled) {
+            return null;
+        }
+        try {
+            return new EngineJournal(Path.of(journalDirectory), shardId, shardCount, journalSizeMb << 20);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open matching engine journal in " + journalDirectory, e);
+        }
+    }
+
+    private void recoverShard(EngineShard shard) {
+        try {
+            if (shard.recover()) {
+                recovered = true;
+                assetNames.addAll(shard.assetNames());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover matching engine state from " + journalDirectory, e);
+        }
+    }
+
+    private void submit(EngineCommand command) {
+        shardRouter.route(ring.shardOf(command.assetName()), command);
+    }
+
+    /**
+     * Runs on the shard owning the asset, after that batch's fills went through
+     * {@link #dispatchTrades}, so the published top of book carries the batch's last trade.
+     */
+    private void publishDepth(MarketDepth depth) {
+        marketDepth.put(depth.assetName(), depth);
+        topOfBook.put(depth.assetName(), TopOfBook.of(depth, lastTrades.get(depth.assetName())));
+        for (MarketDataListener listener : marketDataListeners) {
+            try {
+                listener.onDepth(depth);
+            } catch (Exception e) {
+                log.error("Market data listener {} failed for asset {}",
+                        listener.getClass().getSimpleName(), depth.assetName(), e);
+            }
+        }
+    }
+
+    private void dispatchExpired(List<ExpiredOrder> orders) {
+        persistenceExecutor.execute(() -> tradeListeners.forEach(listener ->
+                deliver(new Delivery(listener, orders.size() + " expired orders", () -> listener.onExpired(orders)))));
+    }
+
+    private void dispatchTriggered(List<Long> orderIds) {
+        persistenceExecutor.execute(() -> tradeListeners.forEach(listener ->
+                deliver(new Delivery(listener, orderIds.size() + " triggered stops", () -> listener.onStopsTriggered(orderIds)))));
+    }
+
+    private void dispatchTrades(List<MatchResult> trades) {
+        for (MatchResult trade : trades) {
+            lastTrades.put(trade.assetName(), trade);
+        }
+        for (MarketDataListener listener : marketDataListeners) {
+            try {
+                listener.onTrades(trades);
+            } catch (Exception e) {
+                log.error("Market data listener {} failed for {} fills",
+                        listener.getClass().getSimpleName(), trades.size(), e);
+            }
+        }
+        persistenceExecutor.execute(() -> tradeListeners.forEach(listener ->
+                deliver(new Delivery(listener, trades.size() + " fills", () -> listener.onTrades(trades)))));
+    }
+
+    /**
+     * Hands a batch to one listener on the persistence thread. A listener with a parked batch
+     * gets nothing new until that batch goes through: the later batch is parked behind it, as
+     * applying it first could, for instance, let a fill reopen an order a later cancel closed.
+     */
+    private void deliver(Delivery delivery) {
+        if (isParked(delivery.listener())) {
+            log.warn("Trade listener {} has parked batches, parking {} behind them",
+                    delivery.listener().getClass().getSimpleName(), delivery.description());
+            deadLetters.add(delivery);
+        } else if (!attempt(delivery)) {
+            log.error("Trade listener {} failed for {}, parking it for redelivery",
+                    delivery.listener().getClass().getSimpleName(), delivery.description());
+            deadLetters.add(delivery);
+        }
+    }
+
+    /**
+     * Runs on the persistence thread, which alone adds to and takes from the parked batches,
+     * so cycling each of them once through the queue keeps their order.
+     */
+    private void redeliverParked() {
+        Set<TradeListener> failing = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int parked = deadLetters.size(); parked > 0; parked--) {
+            Delivery delivery = deadLetters.poll();
+            if (failing.contains(delivery.listener())) {
+                deadLetters.add(delivery);
+                continue;
+            }
+            log.info("Redelivering {} to trade listener {}",
+                    delivery.description(), delivery.listener().getClass().getSimpleName());
+            if (!attempt(delivery)) {
+                log.error("Trade listener {} failed again for {}, keeping it and its later batches parked",
+                        delivery.listener().getClass().getSimpleName(), delivery.description());
+                failing.add(delivery.listener());
+                deadLetters.add(delivery);
+            }
+        }
+    }
+
+    /**
+     * Runs a batch, retrying with a doubling pause so that a short database outage does not
+     * lose fills the engine has already applied. Each attempt is the listener's own
+     * transaction, so a failed one leaves nothing behind.
+     *
+     * @return whether an attempt succeeded
+     */
+    private boolean attempt(Delivery delivery) {
+        long backoffMillis = persistenceRetryBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                delivery.batch().run();
+                return true;
+            } catch (Exception e) {
+                if (attempt >= persistenceMaxAttempts || !pause(backoffMillis)) {
+                    log.warn("Trade listener {} failed for {} on attempt {}",
+                            delivery.listener().getClass().getSimpleName(), delivery.description(), attempt, e);
+                    return false;
+                }
+                log.warn("Trade listener {} failed for {} on attempt {}, retrying",
+                        delivery.listener().getClass().getSimpleName(), delivery.description(), attempt, e);
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private boolean isParked(TradeListener listener) {
+        for (Delivery parked : deadLetters) {
+            if (parked.listener() == listener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A batch bound to the listener it is for, so a redelivery reaches only the listener
+     * that failed it.
+     */
+    private record Delivery(TradeListener listener, String description, Runnable batch) {
+    }
+}
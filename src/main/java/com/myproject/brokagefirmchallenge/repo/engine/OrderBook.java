@@ -0,0 +1,105 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Price-time priority book for a single asset. Implementations are owned by exactly one
+ * engine shard thread, so none of their state is synchronized.
+ */
+public interface OrderBook {
+
+    String getAssetName();
+
+    void add(BookOrder order);
+
+    boolean cancel(long orderId);
+
+    /**
+     * Cancels a resting order and returns it as it stood, with its remaining size.
+     */
+    Optional<BookOrder> remove(long orderId);
+
+    boolean reduce(long orderId, long lots);
+
+    /**
+     * @param canceled receives the orders the book's {@link SelfTradePrevention} mode canceled,
+     *                 already removed from the book
+     */
+    int match(PricingStrategy strategy, List<MatchResult> fills, List<BookOrder> canceled);
+
+    /**
+     * Matches with the strategy bound to this book, see {@link #setPricingStrategy}.
+     */
+    default int match(List<MatchResult> fills, List<BookOrder> canceled) {
+        return match(getPricingStrategy(), fills, canceled);
+    }
+
+    /**
+     * Whether the opposite side holds enough crossing size to fill {@code order} in full, as
+     * the newest order in the book. Walks the crossing orders in priority order and stops at
+     * the first level that does not cross or once enough is found. Orders of the same customer
+     * count for nothing: self-trade prevention skips or cancels them, or, canceling the newest,
+     * cancels {@code order} on reaching the first of them. Mutates nothing.
+     */
+    boolean canFill(BookOrder order, PricingStrategy strategy);
+
+    default boolean canFill(BookOrder order) {
+        return canFill(order, getPricingStrategy());
+    }
+
+    PricingStrategy getPricingStrategy();
+
+    void setPricingStrategy(PricingStrategy strategy);
+
+    SelfTradePrevention getSelfTradePrevention();
+
+    void setSelfTradePrevention(SelfTradePrevention selfTradePrevention);
+
+    Optional<BookOrder> bestBid();
+
+    Optional<BookOrder> bestAsk();
+
+    Optional<BigDecimal> remainingSize(long orderId);
+
+    /**
+     * Remaining lots of a resting order, or zero if it is not in the book. Reads the book
+     * rather than the {@link BookOrder} that was added, which a book may copy instead of keep.
+     */
+    long remainingLots(long orderId);
+
+    boolean hasLevel(OrderSide side, BigDecimal price);
+
+    int levelCount(OrderSide side);
+
+    int orderCount(OrderSide side);
+
+    /**
+     * Number of resting orders on both sides, read from the order index without visiting levels.
+     */
+    int restingOrderCount();
+
+    /**
+     * Remaining size resting on one side, kept up to date on every change rather than summed.
+     */
+    long totalLots(OrderSide side);
+
+    boolean isEmpty();
+
+    /**
+     * Aggregates up to {@code maxLevels} levels per side from the per-level totals the book
+     * already maintains, so the cost depends on the depth asked for, not on the order count.
+     */
+    MarketDepth depth(int maxLevels, long timestamp);
+
+    /**
+     * Visits resting orders of one side in priority order: best price first, then time.
+     */
+    void forEachOrder(OrderSide side, Consumer<BookOrder> consumer);
+}
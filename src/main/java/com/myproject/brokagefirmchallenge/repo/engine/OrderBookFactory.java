@@ -0,0 +1,71 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategyFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBookFactory {
+
+    private final PricingStrategyFactory pricingStrategyFactory;
+
+    @Value("${order.matching.engine.ladder.assets:}")
+    private Set<String> ladderAssets;
+
+    @Value("${order.matching.engine.ladder.tick-size:0.01}")
+    private BigDecimal ladderTickSize;
+
+    @Value("${order.matching.engine.ladder.capacity:4096}")
+    private int ladderCapacity;
+
+    @Value("${order.matching.engine.off-heap.assets:}")
+    private Set<String> offHeapAssets;
+
+    @Value("${order.matching.engine.off-heap.slab-records:65536}")
+    private int slabRecords;
+
+    @Value("${order.matching.strategy:taker}")
+    private String defaultStrategyName;
+
+    @Value("#{${order.matching.asset-strategies:{:}}}")
+    private Map<String, String> assetStrategies;
+
+    @Value("${order.matching.self-trade-prevention:SKIP}")
+    private SelfTradePrevention selfTradePrevention;
+
+    /**
+     * Creates the book for an asset, bound to the asset's configured pricing strategy and the
+     * configured self-trade prevention mode. An asset listed for the off-heap store gets a
+     * {@link SlabOrderBook} even if it is also listed for the ladder.
+     */
+    public OrderBook create(String assetName) {
+        OrderBook book;
+        if (offHeapAssets.contains(assetName)) {
+            log.info("Creating off-heap order book for asset: {}", assetName);
+            book = new SlabOrderBook(assetName, slabRecords);
+        } else if (ladderAssets.contains(assetName)) {
+            log.info("Creating ladder order book for asset: {}", assetName);
+            book = new LadderOrderBook(assetName, FixedPoint.toTicks(ladderTickSize), ladderCapacity);
+        } else {
+            log.info("Creating tree order book for asset: {}", assetName);
+            book = new TreeMapOrderBook(assetName);
+        }
+        book.setPricingStrategy(strategyFor(assetName));
+        book.setSelfTradePrevention(selfTradePrevention);
+        return book;
+    }
+
+    private PricingStrategy strategyFor(String assetName) {
+        return pricingStrategyFactory.getStrategy(assetStrategies.getOrDefault(assetName, defaultStrategyName));
+    }
+}
@@ -0,0 +1,182 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Fixed-size order records in direct {@link ByteBuffer} slabs, addressed by an int handle:
+ * the slab is the handle's high bits and the record its low bits. Records hold the same
+ * fields as a {@link BookOrder} plus the links of the price level queue, so a book built on
+ * a slab keeps nothing per order on the heap. Slabs are added as the book grows and never
+ * returned; freed records are threaded onto a free list through their {@code next} link and
+ * reused first.
+ * <p>
+ * Owned by a single book and not thread-safe.
+ */
+final class OrderSlab {
+
+    static final int NONE = -1;
+
+    static final int RECORD_BYTES = 64;
+
+    private static final int MAX_SLAB_RECORDS = 1 << 24;
+
+    private static final int ORDER_ID = 0;
+    private static final int CUSTOMER_ID = 8;
+    private static final int PRICE_TICKS = 16;
+    private static final int REMAINING_LOTS = 24;
+    private static final int SEQUENCE = 32;
+    private static final int PREV = 40;
+    private static final int NEXT = 44;
+    private static final int SIDE = 48;
+    private static final int LIVE = 49;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+
+    private final int slabShift;
+    private final int slabMask;
+    private ByteBuffer[] slabs = new ByteBuffer[0];
+    private int highWater;
+    private int freeHead = NONE;
+    private int liveCount;
+
+    /**
+     * @param slabRecords records per slab, a power of two of at most 2^24; each record takes
+     *                    {@value #RECORD_BYTES} bytes of direct memory
+     */
+    OrderSlab(int slabRecords) {
+        if (Integer.bitCount(slabRecords) != 1 || slabRecords > MAX_SLAB_RECORDS) {
+            throw new IllegalArgumentException("Slab size must be a power of two up to 2^24: " + slabRecords);
+        }
+        this.slabShift = Integer.numberOfTrailingZeros(slabRecords);
+        this.slabMask = slabRecords - 1;
+    }
+
+    int allocate() {
+        int handle = freeHead;
+        if (handle != NONE) {
+            freeHead = getInt(handle, NEXT);
+        } else {
+            handle = highWater++;
+            if (handle >>> slabShift == slabs.length) {
+                slabs = Arrays.copyOf(slabs, slabs.length + 1);
+                slabs[slabs.length - 1] = ByteBuffer.allocateDirect(RECORD_BYTES << slabShift)
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+        slab(handle).put(offset(handle) + LIVE, (byte) 1);
+        liveCount++;
+        return handle;
+    }
+
+    void free(int handle) {
+        slab(handle).put(offset(handle) + LIVE, (byte) 0);
+        putInt(handle, NEXT, freeHead);
+        freeHead = handle;
+        liveCount--;
+    }
+
+    boolean isLive(int handle) {
+        return slab(handle).get(offset(handle) + LIVE) != 0;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Direct memory reserved by the slabs allocated so far.
+     */
+    long reservedBytes() {
+        return (long) slabs.length * (RECORD_BYTES << slabShift);
+    }
+
+    long orderId(int handle) {
+        return getLong(handle, ORDER_ID);
+    }
+
+    long customerId(int handle) {
+        return getLong(handle, CUSTOMER_ID);
+    }
+
+    long priceTicks(int handle) {
+        return getLong(handle, PRICE_TICKS);
+    }
+
+    long remainingLots(int handle) {
+        return getLong(handle, REMAINING_LOTS);
+    }
+
+    long sequence(int handle) {
+        return getLong(handle, SEQUENCE);
+    }
+
+    int prev(int handle) {
+        return getInt(handle, PREV);
+    }
+
+    int next(int handle) {
+        return getInt(handle, NEXT);
+    }
+
+    OrderSide side(int handle) {
+        return SIDES[slab(handle).get(offset(handle) + SIDE)];
+    }
+
+    void set(int handle, long orderId, long customerId, OrderSide side, long priceTicks,
+             long remainingLots, long sequence) {
+        ByteBuffer slab = slab(handle);
+        int offset = offset(handle);
+        slab.putLong(offset + ORDER_ID, orderId);
+        slab.putLong(offset + CUSTOMER_ID, customerId);
+        slab.putLong(offset + PRICE_TICKS, priceTicks);
+        slab.putLong(offset + REMAINING_LOTS, remainingLots);
+        slab.putLong(offset + SEQUENCE, sequence);
+        slab.putInt(offset + PREV, NONE);
+        slab.putInt(offset + NEXT, NONE);
+        slab.put(offset + SIDE, (byte) side.ordinal());
+    }
+
+    void remainingLots(int handle, long lots) {
+        slab(handle).putLong(offset(handle) + REMAINING_LOTS, lots);
+    }
+
+    void prev(int handle, int prev) {
+        putInt(handle, PREV, prev);
+    }
+
+    void next(int handle, int next) {
+        putInt(handle, NEXT, next);
+    }
+
+    /**
+     * Heap copy of a record, for the callers outside the match loop that take a {@link BookOrder}.
+     */
+    BookOrder view(int handle) {
+        return new BookOrder(orderId(handle), customerId(handle), side(handle), priceTicks(handle),
+                remainingLots(handle), sequence(handle));
+    }
+
+    private long getLong(int handle, int field) {
+        return slab(handle).getLong(offset(handle) + field);
+    }
+
+    private int getInt(int handle, int field) {
+        return slab(handle).getInt(offset(handle) + field);
+    }
+
+    private void putInt(int handle, int field, int value) {
+        slab(handle).putInt(offset(handle) + field, value);
+    }
+
+    private ByteBuffer slab(int handle) {
+        return slabs[handle >>> slabShift];
+    }
+
+    private int offset(int handle) {
+        return (handle & slabMask) * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,66 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * FIFO queue of resting orders at one price, kept as an intrusive doubly-linked list through
+ * {@link BookOrder} so that an order can be unlinked in O(1) given only its node.
+ */
+@Getter
+public final class PriceLevel {
+
+    private final long priceTicks;
+    @Getter(AccessLevel.NONE)
+    final Long key;
+    private BookOrder head;
+    private BookOrder tail;
+    private int orderCount;
+    private long totalLots;
+
+    PriceLevel(Long key) {
+        this.key = key;
+        this.priceTicks = key;
+    }
+
+    void append(BookOrder order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        orderCount++;
+        totalLots += order.getRemainingLots();
+    }
+
+    void remove(BookOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        order.level = null;
+        order.prev = null;
+        order.next = null;
+        orderCount--;
+        totalLots -= order.getRemainingLots();
+    }
+
+    void reduce(BookOrder order, long lots) {
+        order.reduce(lots);
+        totalLots -= lots;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
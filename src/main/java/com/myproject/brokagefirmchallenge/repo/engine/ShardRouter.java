@@ -0,0 +1,40 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+/**
+ * Ownership of engine shards and delivery of commands to their owner. The engine runs a
+ * thread, books and journal only for the shards this process {@link #owns}; every command
+ * goes through {@link #route}, whether its shard is local or not. An implementation that
+ * spreads shards over several nodes therefore only has to decide ownership and carry
+ * commands and their results across the wire, without touching the engine.
+ * <p>
+ * A command's outcome always travels through its {@link EngineCommand#result()}, so callers
+ * behave the same wherever the shard runs.
+ */
+public interface ShardRouter {
+
+    /**
+     * Whether this process runs the shard. Must not change while the engine is running.
+     */
+    boolean owns(int shardId);
+
+    /**
+     * Hands over the shards this process runs, indexed by shard id, with {@code null} for the
+     * ones it does not. Called once on startup, before any command is routed.
+     */
+    void bind(Endpoint[] localShards);
+
+    /**
+     * Delivers a command to the owner of {@code shardId}. May block while the owner is
+     * saturated; throws if the command cannot be delivered.
+     */
+    void route(int shardId, EngineCommand command);
+
+    /**
+     * Entry point of one running shard.
+     */
+    @FunctionalInterface
+    interface Endpoint {
+
+        void submit(EngineCommand command);
+    }
+}
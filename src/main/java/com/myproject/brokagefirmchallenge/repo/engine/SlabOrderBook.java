@@ -0,0 +1,279 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.util.Arrays;
+
+/**
+ * Book whose resting orders live off-heap in an {@link OrderSlab}. Price levels and the id
+ * index hold int handles only, so a book with tens of millions of resting orders gives the
+ * garbage collector nothing per order to trace or copy. Matching, self-trade prevention and
+ * priority are {@link HandleOrderBook}'s; the orders this book hands out through
+ * {@link #bestBid}, {@link #forEachOrder} and self-trade cancels are heap copies.
+ * <p>
+ * Levels are few next to the orders and stay on the heap, indexed per side by a sorted
+ * {@code long[]} of prices rather than a boxed sorted map.
+ */
+public class SlabOrderBook extends HandleOrderBook<SlabOrderBook.Level> {
+
+    private final OrderSlab slab;
+    private final LongIntHashMap orders = new LongIntHashMap();
+    private final Levels bids = new Levels(true);
+    private final Levels asks = new Levels(false);
+
+    public SlabOrderBook(String assetName, int slabRecords) {
+        super(assetName);
+        this.slab = new OrderSlab(slabRecords);
+    }
+
+    @Override
+    protected int handleOf(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Copies an order into the slab behind the others at its price. The {@link BookOrder}
+     * itself is not kept.
+     */
+    @Override
+    protected void insert(BookOrder order) {
+        int handle = slab.allocate();
+        slab.set(handle, order.getOrderId(), order.getCustomerId(), order.getSide(), order.getPriceTicks(),
+                order.getRemainingLots(), order.sequence);
+        orders.put(order.getOrderId(), handle);
+
+        Levels levels = sideOf(order.getSide());
+        Level level = levels.find(order.getPriceTicks());
+        if (level == null) {
+            level = levels.create(order.getPriceTicks());
+        }
+        append(level, handle);
+    }
+
+    @Override
+    protected void shrink(int order, long lots) {
+        slab.remainingLots(order, slab.remainingLots(order) - lots);
+        levelOf(order).totalLots -= lots;
+    }
+
+    /**
+     * Unlinks an order from its level, drops the level once empty and returns the record to
+     * the slab's free list.
+     */
+    @Override
+    protected void release(int order) {
+        Levels levels = sideOf(slab.side(order));
+        Level level = levels.find(slab.priceTicks(order));
+        int prev = slab.prev(order);
+        int next = slab.next(order);
+        if (prev == NONE) {
+            level.head = next;
+        } else {
+            slab.next(prev, next);
+        }
+        if (next == NONE) {
+            level.tail = prev;
+        } else {
+            slab.prev(next, prev);
+        }
+        level.orderCount--;
+        level.totalLots -= slab.remainingLots(order);
+        if (level.orderCount == 0) {
+            levels.remove(level.priceTicks);
+        }
+        orders.remove(slab.orderId(order));
+        slab.free(order);
+    }
+
+    @Override
+    protected BookOrder view(int order) {
+        return slab.view(order);
+    }
+
+    @Override
+    protected long orderId(int order) {
+        return slab.orderId(order);
+    }
+
+    @Override
+    protected long customerId(int order) {
+        return slab.customerId(order);
+    }
+
+    @Override
+    protected OrderSide side(int order) {
+        return slab.side(order);
+    }
+
+    @Override
+    protected long priceTicks(int order) {
+        return slab.priceTicks(order);
+    }
+
+    @Override
+    protected long remainingLotsOf(int order) {
+        return slab.remainingLots(order);
+    }
+
+    @Override
+    protected long sequence(int order) {
+        return slab.sequence(order);
+    }
+
+    @Override
+    protected int next(int order) {
+        return slab.next(order);
+    }
+
+    @Override
+    protected boolean isResting(int order) {
+        return slab.isLive(order);
+    }
+
+    @Override
+    protected Level bestLevel(OrderSide side) {
+        return sideOf(side).best();
+    }
+
+    @Override
+    protected Level levelOf(int order) {
+        return sideOf(slab.side(order)).find(slab.priceTicks(order));
+    }
+
+    @Override
+    protected Level findLevel(OrderSide side, long priceTicks) {
+        return sideOf(side).find(priceTicks);
+    }
+
+    @Override
+    protected Level nextLevel(OrderSide side, Level level) {
+        return sideOf(side).next(level.priceTicks);
+    }
+
+    @Override
+    protected int head(Level level) {
+        return level.head;
+    }
+
+    @Override
+    protected long levelPriceTicks(Level level) {
+        return level.priceTicks;
+    }
+
+    @Override
+    protected long levelLots(Level level) {
+        return level.totalLots;
+    }
+
+    @Override
+    protected int levelOrderCount(Level level) {
+        return level.orderCount;
+    }
+
+    @Override
+    public int levelCount(OrderSide side) {
+        return sideOf(side).size;
+    }
+
+    @Override
+    public int restingOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * Direct memory held by this book's slabs, whether or not their records are in use.
+     */
+    public long reservedBytes() {
+        return slab.reservedBytes();
+    }
+
+    private void append(Level level, int handle) {
+        slab.prev(handle, level.tail);
+        slab.next(handle, NONE);
+        if (level.tail == NONE) {
+            level.head = handle;
+        } else {
+            slab.next(level.tail, handle);
+        }
+        level.tail = handle;
+        level.orderCount++;
+        level.totalLots += slab.remainingLots(handle);
+    }
+
+    private Levels sideOf(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    static final class Level {
+
+        private final long priceTicks;
+        private int head = NONE;
+        private int tail = NONE;
+        private int orderCount;
+        private long totalLots;
+
+        private Level(long priceTicks) {
+            this.priceTicks = priceTicks;
+        }
+    }
+
+    /**
+     * One side's levels sorted worst to best by a primitive rank, the price for bids and its
+     * negation for asks, so the touch is the last entry and the inserts and removes around it
+     * shift the fewest entries. Lookups are a binary search over the ranks.
+     */
+    private static final class Levels {
+
+        private final boolean bid;
+        private long[] ranks = new long[64];
+        private Level[] levels = new Level[64];
+        private int size;
+
+        private Levels(boolean bid) {
+            this.bid = bid;
+        }
+
+        Level best() {
+            return size == 0 ? null : levels[size - 1];
+        }
+
+        Level find(long priceTicks) {
+            int index = Arrays.binarySearch(ranks, 0, size, rank(priceTicks));
+            return index < 0 ? null : levels[index];
+        }
+
+        /**
+         * The level one step worse than {@code priceTicks}, which must be a level of this side.
+         */
+        Level next(long priceTicks) {
+            int index = Arrays.binarySearch(ranks, 0, size, rank(priceTicks));
+            return index > 0 ? levels[index - 1] : null;
+        }
+
+        Level create(long priceTicks) {
+            int index = -Arrays.binarySearch(ranks, 0, size, rank(priceTicks)) - 1;
+            if (size == ranks.length) {
+                ranks = Arrays.copyOf(ranks, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(ranks, index, ranks, index + 1, size - index);
+            System.arraycopy(levels, index, levels, index + 1, size - index);
+            Level level = new Level(priceTicks);
+            ranks[index] = rank(priceTicks);
+            levels[index] = level;
+            size++;
+            return level;
+        }
+
+        void remove(long priceTicks) {
+            int index = Arrays.binarySearch(ranks, 0, size, rank(priceTicks));
+            System.arraycopy(ranks, index + 1, ranks, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            levels[--size] = null;
+        }
+
+        private long rank(long priceTicks) {
+            return bid ? priceTicks : -priceTicks;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dormant stop orders of one asset, keyed by trigger price. A sell stop fires once the market
+ * trades at or below its trigger and a buy stop once it trades at or above, so each tick only
+ * pops the crossed end of one map: the cost is the number of stops it triggers, not the
+ * number waiting. Stops sharing a trigger fire in arrival order.
+ * <p>
+ * Owned by the shard of its asset and never touched by any other thread.
+ */
+final class StopBook {
+
+    private final TreeMap<Long, ArrayDeque<BookOrder>> sellStops = new TreeMap<>();
+    private final TreeMap<Long, ArrayDeque<BookOrder>> buyStops = new TreeMap<>();
+    private final LongObjectHashMap<Long> triggers = new LongObjectHashMap<>();
+    private long lastTicks;
+
+    /**
+     * Arms a stop, unless the last trade seen by {@link #trigger} is already through its
+     * trigger, in which case it is left to the caller to place right away.
+     *
+     * @return {@code true} if the stop is now waiting in the book
+     */
+    boolean add(BookOrder order, long triggerTicks) {
+        if (isCrossed(order.getSide(), triggerTicks)) {
+            return false;
+        }
+        if (triggers.put(order.getOrderId(), triggerTicks) != null) {
+            throw new IllegalStateException("Stop order " + order.getOrderId() + " is already armed");
+        }
+        stopsOf(order.getSide()).computeIfAbsent(triggerTicks, ignored -> new ArrayDeque<>()).addLast(order);
+        return true;
+    }
+
+    /**
+     * Takes {@code lastTicks} as the last trade price if the book has not seen a trade yet, as
+     * after a restart. Zero leaves the book as it is.
+     */
+    void seed(long lastTicks) {
+        if (this.lastTicks == 0L) {
+            this.lastTicks = lastTicks;
+        }
+    }
+
+    boolean cancel(long orderId) {
+        return remove(orderId) != null;
+    }
+
+    /**
+     * Disarms a stop.
+     *
+     * @return the stop, or {@code null} if none with that id was armed
+     */
+    BookOrder remove(long orderId) {
+        Long triggerTicks = triggers.remove(orderId);
+        if (triggerTicks == null) {
+            return null;
+        }
+        for (TreeMap<Long, ArrayDeque<BookOrder>> stops : List.of(sellStops, buyStops)) {
+            ArrayDeque<BookOrder> queue = stops.get(triggerTicks);
+            if (queue == null) {
+                continue;
+            }
+            for (Iterator<BookOrder> it = queue.iterator(); it.hasNext(); ) {
+                BookOrder order = it.next();
+                if (order.getOrderId() == orderId) {
+                    it.remove();
+                    if (queue.isEmpty()) {
+                        stops.remove(triggerTicks);
+                    }
+                    return order;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pops every stop crossed by {@code fills[from..]} into {@code triggered}: sells from the
+     * highest trigger down and buys from the lowest up, the order a moving market reaches them.
+     */
+    void trigger(List<MatchResult> fills, int from, Collection<BookOrder> triggered) {
+        if (from >= fills.size()) {
+            return;
+        }
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        for (int i = from; i < fills.size(); i++) {
+            long priceTicks = fills.get(i).priceTicks();
+            low = Math.min(low, priceTicks);
+            high = Math.max(high, priceTicks);
+        }
+        lastTicks = fills.get(fills.size() - 1).priceTicks();
+
+        while (!sellStops.isEmpty() && sellStops.lastKey() >= low) {
+            release(sellStops.pollLastEntry(), triggered);
+        }
+        while (!buyStops.isEmpty() && buyStops.firstKey() <= high) {
+            release(buyStops.pollFirstEntry(), triggered);
+        }
+    }
+
+    private boolean isCrossed(OrderSide side, long triggerTicks) {
+        if (lastTicks == 0L) {
+            return false;
+        }
+        return side == OrderSide.SELL ? lastTicks <= triggerTicks : lastTicks >= triggerTicks;
+    }
+
+    private void release(Map.Entry<Long, ArrayDeque<BookOrder>> level, Collection<BookOrder> triggered) {
+        for (BookOrder order : level.getValue()) {
+            triggers.remove(order.getOrderId());
+            triggered.add(order);
+        }
+    }
+
+    private TreeMap<Long, ArrayDeque<BookOrder>> stopsOf(OrderSide side) {
+        return side == OrderSide.SELL ? sellStops : buyStops;
+    }
+}
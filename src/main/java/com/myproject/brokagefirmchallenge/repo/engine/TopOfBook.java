@@ -0,0 +1,45 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Best bid, best offer and last trade of one asset, republished by the owning shard after
+ * every batch that changed the book. A side without liquidity, or an asset that has not
+ * traded yet, has zero lots.
+ */
+public record TopOfBook(String assetName,
+                        long bidTicks,
+                        long bidLots,
+                        long askTicks,
+                        long askLots,
+                        long lastTradeTicks,
+                        long lastTradeLots,
+                        long timestamp) {
+
+    public static TopOfBook empty(String assetName) {
+        return new TopOfBook(assetName, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    static TopOfBook of(MarketDepth depth, MatchResult lastTrade) {
+        DepthLevel bid = depth.bids().isEmpty() ? null : depth.bids().get(0);
+        DepthLevel ask = depth.asks().isEmpty() ? null : depth.asks().get(0);
+        return new TopOfBook(depth.assetName(),
+                bid == null ? 0L : bid.priceTicks(), bid == null ? 0L : bid.sizeLots(),
+                ask == null ? 0L : ask.priceTicks(), ask == null ? 0L : ask.sizeLots(),
+                lastTrade == null ? 0L : lastTrade.priceTicks(), lastTrade == null ? 0L : lastTrade.sizeLots(),
+                depth.timestamp());
+    }
+
+    public Optional<BigDecimal> bestBid() {
+        return bidLots > 0 ? Optional.of(FixedPoint.toBigDecimal(bidTicks)) : Optional.empty();
+    }
+
+    public Optional<BigDecimal> bestAsk() {
+        return askLots > 0 ? Optional.of(FixedPoint.toBigDecimal(askTicks)) : Optional.empty();
+    }
+
+    public Optional<BigDecimal> lastTrade() {
+        return lastTradeLots > 0 ? Optional.of(FixedPoint.toBigDecimal(lastTradeTicks)) : Optional.empty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.util.List;
+
+/**
+ * Receives the fills produced by the matching engine. Listeners are invoked on the
+ * persistence executor, never on a shard thread, so they are free to block on I/O.
+ * <p>
+ * A batch a listener throws on is handed to it again, so each call must apply the whole
+ * batch or nothing, typically in one transaction.
+ */
+public interface TradeListener {
+
+    void onTrades(List<MatchResult> trades);
+
+    /**
+     * Orders the engine dropped from the book on its own. Delivered after the fills of the
+     * same batch, so the remaining size reported here already accounts for them.
+     */
+    default void onExpired(List<ExpiredOrder> orders) {
+    }
+
+    /**
+     * Stop orders the engine has triggered and placed as limit orders, delivered after the
+     * fills of the same batch. A stop reported here must not be armed again on restart.
+     */
+    default void onStopsTriggered(List<Long> orderIds) {
+    }
+}
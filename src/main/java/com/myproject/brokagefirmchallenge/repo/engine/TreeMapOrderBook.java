@@ -0,0 +1,63 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Sorted-map book. Works for any price distribution at O(log n) per level lookup; the
+ * default for assets that are not configured for a {@link LadderOrderBook}.
+ */
+public class TreeMapOrderBook extends AbstractOrderBook {
+
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+
+    public TreeMapOrderBook(String assetName) {
+        super(assetName);
+    }
+
+    @Override
+    protected PriceLevel bestLevel(OrderSide side) {
+        NavigableMap<Long, PriceLevel> levels = sideOf(side);
+        return levels.isEmpty() ? null : levels.get(levels.firstKey());
+    }
+
+    @Override
+    protected PriceLevel findLevel(OrderSide side, long priceTicks) {
+        return sideOf(side).get(priceTicks);
+    }
+
+    @Override
+    protected PriceLevel createLevel(OrderSide side, long priceTicks) {
+        PriceLevel level = new PriceLevel(priceTicks);
+        sideOf(side).put(level.key, level);
+        return level;
+    }
+
+    @Override
+    protected void removeLevel(OrderSide side, PriceLevel level) {
+        sideOf(side).remove(level.key);
+    }
+
+    /**
+     * Two lookups rather than {@code higherEntry}, which would copy the entry it returns.
+     */
+    @Override
+    protected PriceLevel nextLevel(OrderSide side, PriceLevel level) {
+        NavigableMap<Long, PriceLevel> levels = sideOf(side);
+        Long key = levels.higherKey(level.key);
+        return key == null ? null : levels.get(key);
+    }
+
+    @Override
+    public int levelCount(OrderSide side) {
+        return sideOf(side).size();
+    }
+
+    private NavigableMap<Long, PriceLevel> sideOf(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+}
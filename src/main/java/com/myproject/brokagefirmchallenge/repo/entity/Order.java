@@ -3,6 +3,7 @@ package com.myproject.brokagefirmchallenge.repo.entity;
 
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -50,6 +51,11 @@ public class Order extends BaseEntity {
     @Column(name = "status", nullable = false, length = 20)
     private OrderStatus status = OrderStatus.PENDING;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "time_in_force", nullable = false, length = 3)
+    @Builder.Default
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
     @Column(name = "executed_size", nullable = false, precision = 19, scale = 4)
     private BigDecimal executedSize = BigDecimal.ZERO;
 
@@ -70,9 +76,42 @@ public class Order extends BaseEntity {
             joinColumns = @JoinColumn(name = "order_id"))
     @MapKeyColumn(name = "metadata_key")
     @Column(name = "metadata_value")
+    @Builder.Default
     private Map<String, String> metadata = new HashMap<>();
 
 
+    /**
+     * Price at which a stop order leaves the trigger book: its trigger price if one was given,
+     * otherwise its stop price. {@code null} for any other order type.
+     */
+    public BigDecimal stopTriggerPrice() {
+        if (metadata == null || !"STOP_LOSS".equals(metadata.get("orderType"))) {
+            return null;
+        }
+        String trigger = metadata.getOrDefault("triggerPrice", metadata.get("stopPrice"));
+        return trigger != null ? new BigDecimal(trigger) : null;
+    }
+
+    /**
+     * Whether this is a stop order still waiting in the trigger book. Once the engine has
+     * triggered it, it rests and trades as a plain limit order at its own price.
+     */
+    public boolean isDormantStop() {
+        return stopTriggerPrice() != null && !"true".equals(metadata.get("stopTriggered"));
+    }
+
+    /**
+     * Whether this is a market order, whose price is the collar the factory set rather than a
+     * limit its owner chose.
+     */
+    public boolean isMarketOrder() {
+        return metadata != null && "MARKET".equals(metadata.get("orderType"));
+    }
+
+    public void markStopTriggered() {
+        metadata.put("stopTriggered", "true");
+    }
+
     @PrePersist
     public void prePersist() {
         if (this.remainingSize == null) {
@@ -0,0 +1,34 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum CandleInterval {
+    ONE_SECOND("1s", 1_000L),
+    ONE_MINUTE("1m", 60_000L),
+    FIVE_MINUTES("5m", 300_000L),
+    ONE_HOUR("1h", 3_600_000L),
+    ONE_DAY("1d", 86_400_000L);
+
+    private final String code;
+    private final long millis;
+
+    /**
+     * Start of the bar containing {@code timestamp}; bars are aligned to the epoch, in UTC.
+     */
+    public long openTime(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, millis);
+    }
+
+    public static CandleInterval fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        throw new ValidationException("Unsupported candle interval: " + code);
+    }
+}
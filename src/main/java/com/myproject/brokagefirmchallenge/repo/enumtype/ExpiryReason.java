@@ -0,0 +1,17 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExpiryReason {
+    UNFILLED_REMAINDER("UNFILLED_REMAINDER", "Unfilled remainder of immediate order canceled"),
+    FILL_OR_KILL("FILL_OR_KILL", "Fill-or-kill order could not be filled in full"),
+    SELF_TRADE("SELF_TRADE", "Canceled to prevent a trade with an order of the same customer"),
+    USER_CANCELED("USER_CANCELED", "Canceled by user"),
+    REJECTED("REJECTED", "Rejected by the matching engine");
+
+    private final String code;
+    private final String description;
+}
@@ -0,0 +1,15 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum FlowEventType {
+    CREATE("CREATE", "Order created"),
+    CANCEL("CANCEL", "Order canceled by its owner"),
+    MATCH("MATCH", "Matching pass triggered for an asset");
+
+    private final String code;
+    private final String description;
+}
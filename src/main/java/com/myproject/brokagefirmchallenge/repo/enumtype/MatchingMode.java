@@ -0,0 +1,18 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum MatchingMode {
+    CONTINUOUS("CONTINUOUS", "Orders are matched as soon as they reach the book"),
+    BATCH("BATCH", "Orders rest in the book until an admin triggers matching");
+
+    private final String code;
+    private final String description;
+
+    public boolean isContinuous() {
+        return this == CONTINUOUS;
+    }
+}
@@ -0,0 +1,15 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum SelfTradePrevention {
+    CANCEL_NEWEST("CANCEL_NEWEST", "The more recent of two crossing orders of a customer is canceled"),
+    CANCEL_OLDEST("CANCEL_OLDEST", "The older of two crossing orders of a customer is canceled"),
+    SKIP("SKIP", "The newer order trades with the next resting order of another customer");
+
+    private final String code;
+    private final String description;
+}
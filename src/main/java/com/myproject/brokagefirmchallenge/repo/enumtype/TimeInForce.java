@@ -0,0 +1,19 @@
+package com.myproject.brokagefirmchallenge.repo.enumtype;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum TimeInForce {
+    GTC("GTC", "Rests in the book until filled or canceled"),
+    IOC("IOC", "Fills what it can on arrival, the remainder is canceled"),
+    FOK("FOK", "Fills completely on arrival or is canceled without trading");
+
+    private final String code;
+    private final String description;
+
+    public boolean isImmediate() {
+        return this != GTC;
+    }
+}
@@ -3,6 +3,7 @@ package com.myproject.brokagefirmchallenge.repo.factory;
 
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import com.myproject.brokagefirmchallenge.repo.exceptions.InvalidOrderException;
 import com.myproject.brokagefirmchallenge.repo.request.CreateOrderRequest;
 
@@ -21,6 +22,7 @@ public abstract class AbstractOrderFactory implements OrderFactory {
                 .size(request.getSize())
                 .price(request.getPrice())
                 .status(OrderStatus.PENDING)
+                .timeInForce(request.getTimeInForce() != null ? request.getTimeInForce() : TimeInForce.GTC)
                 .executedSize(BigDecimal.ZERO)
                 .remainingSize(request.getSize())
                 .totalAmount(calculateTotalAmount(request))
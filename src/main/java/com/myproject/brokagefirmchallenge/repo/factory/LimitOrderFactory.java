@@ -20,7 +20,8 @@ public class LimitOrderFactory extends AbstractOrderFactory {
     @Override
     public boolean supports(CreateOrderRequest request) {
         return request.getPrice() != null &&
-                request.getPrice().compareTo(BigDecimal.ZERO) > 0;
+                request.getPrice().compareTo(BigDecimal.ZERO) > 0 &&
+                (request.getOrderType() == null || request.getOrderType().equals("LIMIT"));
     }
 
     @Override
@@ -1,24 +1,36 @@
 package com.myproject.brokagefirmchallenge.repo.factory;
 
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchingEngine;
+import com.myproject.brokagefirmchallenge.repo.engine.TopOfBook;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import com.myproject.brokagefirmchallenge.repo.exceptions.InvalidOrderException;
 import com.myproject.brokagefirmchallenge.repo.request.CreateOrderRequest;
-import com.myproject.brokagefirmchallenge.repo.service.MarketDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+/**
+ * A market order walks the opposite side at once, up to a collar of 1% through the reference
+ * price, and never rests: whatever the collar leaves unfilled is canceled and its blocked
+ * balance released. The collar also bounds the TRY a buy has to block; it is never a trade
+ * price, since the engine fills market orders at the resting order's price whatever the asset's
+ * pricing strategy.
+ */
 @Component
 @RequiredArgsConstructor
 public class MarketOrderFactory extends AbstractOrderFactory {
 
-    private final MarketDataService marketDataService;
+    private final MatchingEngine matchingEngine;
 
     @Override
     public boolean supports(CreateOrderRequest request) {
-        return request.getPrice() == null ||
+        return "MARKET".equals(request.getOrderType()) ||
+                request.getPrice() == null ||
                 request.getPrice().compareTo(BigDecimal.ZERO) == 0;
     }
 
@@ -30,19 +42,30 @@ public class MarketOrderFactory extends AbstractOrderFactory {
         if (request.getSize().compareTo(maxMarketOrderSize) > 0) {
             throw new InvalidOrderException("Market order size cannot exceed " + maxMarketOrderSize);
         }
+
+        if (request.getTimeInForce() == TimeInForce.GTC) {
+            throw new InvalidOrderException("Market orders cannot rest in the book");
+        }
     }
 
     @Override
     protected void enrichOrder(Order order, CreateOrderRequest request) {
-        BigDecimal currentPrice = marketDataService.getCurrentPrice(request.getAssetName());
+        TopOfBook topOfBook = matchingEngine.getTopOfBook(request.getAssetName());
+        BigDecimal currentPrice = (request.getSide() == OrderSide.BUY ? topOfBook.bestAsk() : topOfBook.bestBid())
+                .or(topOfBook::lastTrade)
+                .orElseThrow(() -> new InvalidOrderException(
+                        "No market price available for " + request.getAssetName()));
 
-        BigDecimal slippage = request.getSide() == OrderSide.BUY
+        BigDecimal collar = request.getSide() == OrderSide.BUY
                 ? BigDecimal.valueOf(1.01)
                 : BigDecimal.valueOf(0.99);
 
-        BigDecimal marketPrice = currentPrice.multiply(slippage);
+        BigDecimal limitPrice = currentPrice.multiply(collar)
+                .setScale(FixedPoint.SCALE, request.getSide() == OrderSide.BUY ? RoundingMode.UP : RoundingMode.DOWN);
 
-        order.setPrice(marketPrice);
-        order.setTotalAmount(order.getSize().multiply(marketPrice));
+        order.setPrice(limitPrice);
+        order.setTotalAmount(order.getSize().multiply(limitPrice));
+        order.setTimeInForce(request.getTimeInForce() == TimeInForce.FOK ? TimeInForce.FOK : TimeInForce.IOC);
+        order.getMetadata().put("orderType", "MARKET");
     }
 }
@@ -1,11 +1,12 @@
 package com.myproject.brokagefirmchallenge.repo.factory;
 
+import com.myproject.brokagefirmchallenge.repo.engine.MatchingEngine;
+import com.myproject.brokagefirmchallenge.repo.engine.TopOfBook;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.exceptions.InvalidOrderException;
 import com.myproject.brokagefirmchallenge.repo.request.CreateOrderRequest;
 import com.myproject.brokagefirmchallenge.repo.service.AssetService;
-import com.myproject.brokagefirmchallenge.repo.service.MarketDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -16,7 +17,7 @@ import java.math.BigDecimal;
 public class StopLossOrderFactory extends AbstractOrderFactory {
 
     private final AssetService assetService;
-    private final MarketDataService marketDataService;
+    private final MatchingEngine matchingEngine;
 
     @Override
     public boolean supports(CreateOrderRequest request) {
@@ -41,7 +42,11 @@ public class StopLossOrderFactory extends AbstractOrderFactory {
             throw new InvalidOrderException("Insufficient asset balance for stop loss order");
         }
 
-        BigDecimal currentPrice = marketDataService.getCurrentPrice(request.getAssetName());
+        TopOfBook topOfBook = matchingEngine.getTopOfBook(request.getAssetName());
+        BigDecimal currentPrice = topOfBook.lastTrade()
+                .or(topOfBook::bestBid)
+                .orElseThrow(() -> new InvalidOrderException(
+                        "No market price available for " + request.getAssetName()));
         if (request.getPrice().compareTo(currentPrice) >= 0) {
             throw new InvalidOrderException("Stop loss price must be below current market price");
         }
@@ -0,0 +1,86 @@
+package com.myproject.brokagefirmchallenge.repo.listener;
+
+import com.myproject.brokagefirmchallenge.repo.engine.ExpiredOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.observer.OrderCreatedEvent;
+import com.myproject.brokagefirmchallenge.repo.service.OrderExecutionService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderMatchingEventListener {
+
+    private final OrderMatchingService orderMatchingService;
+    private final OrderExecutionService orderExecutionService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleOrderCreated(OrderCreatedEvent event) {
+        log.debug("Routing committed order {} to the matching engine", event.getOrderId());
+
+        try {
+            if (event.getTriggerPrice() != null) {
+                orderMatchingService.submitStopOrder(toBookOrder(event), event.getTriggerPrice())
+                        .whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                log.error("Matching engine failed on stop order: {}", event.getOrderId(), error);
+                            }
+                        });
+                return;
+            }
+            orderMatchingService.submitOrder(toBookOrder(event))
+                    .whenComplete((matchCount, error) -> {
+                        if (error != null) {
+                            log.error("Matching engine failed on order: {}", event.getOrderId(), error);
+                        } else if (matchCount > 0) {
+                            log.info("Order {} matched on arrival. Matches: {}", event.getOrderId(), matchCount);
+                        }
+                    });
+        } catch (Exception e) {
+            log.error("Failed to submit order {} to the matching engine, canceling it", event.getOrderId(), e);
+            reject(event);
+        }
+    }
+
+    /**
+     * Compensates for an order the engine never received: its row is canceled and the balance
+     * it blocked released. An order the engine received and then failed on is expired by the
+     * engine itself, after any fill it got, so it is not compensated here.
+     */
+    private void reject(OrderCreatedEvent event) {
+        try {
+            orderExecutionService.rejectOrder(new ExpiredOrder(event.getAssetName(), event.getOrderId(),
+                    event.getCustomerId(), event.getSide(), ExpiryReason.REJECTED,
+                    FixedPoint.toTicks(event.getPrice()), FixedPoint.toTicks(event.getSize())));
+        } catch (Exception e) {
+            log.error("Failed to cancel order {} the matching engine never received; it stays PENDING with its balance blocked",
+                    event.getOrderId(), e);
+        }
+    }
+
+    private Order toBookOrder(OrderCreatedEvent event) {
+        Order order = Order.builder()
+                .customerId(event.getCustomerId())
+                .assetName(event.getAssetName())
+                .orderSide(event.getSide())
+                .size(event.getSize())
+                .price(event.getPrice())
+                .timeInForce(event.getTimeInForce())
+                .status(OrderStatus.PENDING)
+                .executedSize(BigDecimal.ZERO)
+                .remainingSize(event.getSize())
+                .build();
+        order.setId(event.getOrderId());
+        return order;
+    }
+}
@@ -1,19 +1,26 @@
 package com.myproject.brokagefirmchallenge.repo.manager;
 
+import com.myproject.brokagefirmchallenge.repo.engine.MatchOutcome;
+import com.myproject.brokagefirmchallenge.repo.replay.FlowRecorder;
 import com.myproject.brokagefirmchallenge.repo.request.MatchOrdersRequest;
+import com.myproject.brokagefirmchallenge.repo.request.SwitchPricingStrategyRequest;
 import com.myproject.brokagefirmchallenge.repo.response.ApiResponse;
 import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
+import com.myproject.brokagefirmchallenge.repo.vo.AssetMatchReportVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AdminManager {
 
     private final OrderMatchingService orderMatchingService;
+    private final FlowRecorder flowRecorder;
 
     @Transactional
     public ApiResponse<String> matchOrders(MatchOrdersRequest request) {
@@ -21,6 +28,7 @@ public class AdminManager {
 
         try {
             orderMatchingService.matchOrders(request.getAssetName());
+            flowRecorder.recordMatch(request.getAssetName());
 
             return ApiResponse.success(
                     "Order matching completed for asset: " + request.getAssetName(),
@@ -35,17 +43,19 @@ public class AdminManager {
         }
     }
 
-    @Transactional
-    public ApiResponse<String> matchAllOrders() {
+    public ApiResponse<List<AssetMatchReportVO>> matchAllOrders() {
         log.info("Admin triggered order matching for all assets");
 
         try {
-            orderMatchingService.matchAllPendingOrders();
+            List<AssetMatchReportVO> report = orderMatchingService.matchAllPendingOrders().stream()
+                    .map(this::toReport)
+                    .toList();
+            report.forEach(asset -> flowRecorder.recordMatch(asset.getAssetName()));
 
-            return ApiResponse.success(
-                    "Order matching completed for all assets",
-                    "Order matching completed successfully"
-            );
+            long failed = report.stream().filter(asset -> !asset.isSuccessful()).count();
+            return ApiResponse.success(report, failed == 0
+                    ? "Order matching completed successfully"
+                    : "Order matching completed with failures for " + failed + " assets");
         } catch (Exception e) {
             log.error("Error during order matching", e);
             return ApiResponse.error(
@@ -54,4 +64,23 @@ public class AdminManager {
             );
         }
     }
+
+    public ApiResponse<String> switchPricingStrategy(String assetName, SwitchPricingStrategyRequest request) {
+        log.info("Admin switching pricing strategy for asset: {} to {}", assetName, request.getStrategyName());
+
+        String previous = orderMatchingService.switchPricingStrategy(assetName, request.getStrategyName());
+
+        return ApiResponse.success(request.getStrategyName(),
+                "Pricing strategy for " + assetName + " switched from " + previous);
+    }
+
+    private AssetMatchReportVO toReport(MatchOutcome outcome) {
+        return AssetMatchReportVO.builder()
+                .assetName(outcome.assetName())
+                .matchCount(outcome.matchCount())
+                .durationMillis(outcome.elapsedNanos() / 1_000_000.0)
+                .successful(outcome.isSuccessful())
+                .errorMessage(outcome.error())
+                .build();
+    }
 }
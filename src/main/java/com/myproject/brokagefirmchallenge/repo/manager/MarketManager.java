@@ -0,0 +1,97 @@
+package com.myproject.brokagefirmchallenge.repo.manager;
+
+import com.myproject.brokagefirmchallenge.repo.candle.Candle;
+import com.myproject.brokagefirmchallenge.repo.engine.DepthLevel;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+import com.myproject.brokagefirmchallenge.repo.response.ApiResponse;
+import com.myproject.brokagefirmchallenge.repo.service.CandleService;
+import com.myproject.brokagefirmchallenge.repo.service.MarketDataService;
+import com.myproject.brokagefirmchallenge.repo.service.MarketStreamService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
+import com.myproject.brokagefirmchallenge.repo.vo.CandleVO;
+import com.myproject.brokagefirmchallenge.repo.vo.DepthLevelVO;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketDepthVO;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketStatisticsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MarketManager {
+
+    private final OrderMatchingService orderMatchingService;
+    private final MarketStreamService marketStreamService;
+    private final MarketDataService marketDataService;
+    private final CandleService candleService;
+
+    public ApiResponse<MarketDepthVO> getDepth(String assetName, int levels) {
+        log.debug("Getting {} depth levels for asset: {}", levels, assetName);
+
+        MarketDepth depth = orderMatchingService.getMarketDepth(assetName, levels);
+
+        return ApiResponse.success(MarketDepthVO.builder()
+                .assetName(depth.assetName())
+                .bids(toLevels(depth.bids()))
+                .asks(toLevels(depth.asks()))
+                .lastUpdateDate(depth.timestamp() == 0 ? null
+                        : LocalDateTime.ofInstant(Instant.ofEpochMilli(depth.timestamp()), ZoneId.systemDefault()))
+                .build());
+    }
+
+    public ApiResponse<MarketStatisticsVO> getStatistics(String assetName) {
+        log.debug("Getting market statistics for asset: {}", assetName);
+
+        return ApiResponse.success(marketDataService.getStatistics(assetName));
+    }
+
+    public ApiResponse<List<CandleVO>> getCandles(String assetName, String interval,
+                                                  LocalDateTime from, LocalDateTime to, int limit) {
+        log.debug("Getting up to {} {} candles for asset: {}", limit, interval, assetName);
+
+        List<Candle> candles = candleService.getCandles(assetName, CandleInterval.fromCode(interval),
+                from == null ? 0L : toEpochMillis(from),
+                to == null ? Long.MAX_VALUE : toEpochMillis(to),
+                limit);
+
+        return ApiResponse.success(candles.stream()
+                .map(candle -> CandleVO.builder()
+                        .openTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(candle.openTime()), ZoneId.systemDefault()))
+                        .open(candle.open())
+                        .high(candle.high())
+                        .low(candle.low())
+                        .close(candle.close())
+                        .volume(candle.volume())
+                        .tradeCount(candle.tradeCount())
+                        .build())
+                .toList());
+    }
+
+    public SseEmitter stream(String assetName) {
+        log.debug("Subscribing to market data stream for asset: {}", assetName);
+
+        return marketStreamService.subscribe(assetName);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private List<DepthLevelVO> toLevels(List<DepthLevel> levels) {
+        return levels.stream()
+                .map(level -> DepthLevelVO.builder()
+                        .price(level.price())
+                        .size(level.size())
+                        .orderCount(level.orderCount())
+                        .build())
+                .toList();
+    }
+}
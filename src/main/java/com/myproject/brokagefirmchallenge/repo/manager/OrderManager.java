@@ -4,6 +4,7 @@ import com.myproject.brokagefirmchallenge.repo.converter.OrderMapper;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.factory.OrderFactory;
 import com.myproject.brokagefirmchallenge.repo.factory.OrderFactoryProvider;
+import com.myproject.brokagefirmchallenge.repo.replay.FlowRecorder;
 import com.myproject.brokagefirmchallenge.repo.request.CreateOrderRequest;
 import com.myproject.brokagefirmchallenge.repo.request.ListOrdersRequest;
 import com.myproject.brokagefirmchallenge.repo.response.ApiResponse;
@@ -33,6 +34,7 @@ public class OrderManager {
     private final SecurityContextManager securityContextManager;
     private final OrderValidator orderValidator;
     private final OrderFactoryProvider orderFactoryProvider;
+    private final FlowRecorder flowRecorder;
 
 
     @Transactional
@@ -47,6 +49,7 @@ public class OrderManager {
         OrderFactory factory = orderFactoryProvider.getFactory(request);
         Order order = factory.createOrder(request);
         Order createdOrder = orderService.createOrder(order);
+        flowRecorder.recordCreate(createdOrder);
         OrderVO orderVO = orderMapper.toVO(createdOrder);
 
         log.info("Order created successfully with ID: {}", createdOrder.getId());
@@ -98,6 +101,7 @@ public class OrderManager {
         orderValidator.validateOrderCancellation(order, customerId);
 
         Order canceledOrder = orderService.cancelOrder(orderId, customerId);
+        flowRecorder.recordCancel(orderId, customerId);
         OrderVO orderVO = orderMapper.toVO(canceledOrder);
 
         log.info("Order {} canceled successfully", orderId);
@@ -1,6 +1,7 @@
 package com.myproject.brokagefirmchallenge.repo.observer;
 
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import lombok.Getter;
 
 import java.math.BigDecimal;
@@ -11,13 +12,21 @@ public class OrderCreatedEvent extends OrderEvent {
     private final OrderSide side;
     private final BigDecimal size;
     private final BigDecimal price;
+    private final TimeInForce timeInForce;
+    /**
+     * Set for stop orders only, which wait in the trigger book instead of entering the book.
+     */
+    private final BigDecimal triggerPrice;
 
-    public OrderCreatedEvent(Object source, Long orderId, Long customerId,
-                             String assetName, OrderSide side, BigDecimal size, BigDecimal price) {
+    public OrderCreatedEvent(Object source, Long orderId, Long customerId, String assetName,
+                             OrderSide side, BigDecimal size, BigDecimal price, TimeInForce timeInForce,
+                             BigDecimal triggerPrice) {
         super(source, orderId, customerId, assetName);
         this.side = side;
         this.size = size;
         this.price = price;
+        this.timeInForce = timeInForce;
+        this.triggerPrice = triggerPrice;
     }
 
     @Override
@@ -20,4 +20,6 @@ public abstract class OrderEvent extends ApplicationEvent {
         this.assetName = assetName;
         this.occurredAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+
+    public abstract String getEventType();
+}
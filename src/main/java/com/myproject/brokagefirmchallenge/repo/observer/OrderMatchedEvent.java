@@ -21,4 +21,9 @@ public class OrderMatchedEvent extends OrderEvent {
         this.executionPrice = executionPrice;
         this.fullyMatched = fullyMatched;
     }
+
+    @Override
+    public String getEventType() {
+        return "ORDER_MATCHED";
+    }
 }
@@ -4,11 +4,14 @@ package com.myproject.brokagefirmchallenge.repo.publisher;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.observer.OrderCanceledEvent;
 import com.myproject.brokagefirmchallenge.repo.observer.OrderCreatedEvent;
+import com.myproject.brokagefirmchallenge.repo.observer.OrderMatchedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -24,7 +27,9 @@ public class EventPublisher {
                 order.getAssetName(),
                 order.getOrderSide(),
                 order.getSize(),
-                order.getPrice()
+                order.getPrice(),
+                order.getTimeInForce(),
+                order.stopTriggerPrice()
         );
 
         log.debug("Publishing order created event: {}", event.getOrderId());
@@ -44,4 +49,21 @@ public class EventPublisher {
         log.debug("Publishing order canceled event: {}", event.getOrderId());
         applicationEventPublisher.publishEvent(event);
     }
+
+    public void publishOrderMatched(Order order, Long matchingOrderId, BigDecimal executedSize,
+                                    BigDecimal executionPrice, boolean fullyMatched) {
+        OrderMatchedEvent event = new OrderMatchedEvent(
+                this,
+                order.getId(),
+                order.getCustomerId(),
+                order.getAssetName(),
+                matchingOrderId,
+                executedSize,
+                executionPrice,
+                fullyMatched
+        );
+
+        log.debug("Publishing order matched event: {}", event.getOrderId());
+        applicationEventPublisher.publishEvent(event);
+    }
 }
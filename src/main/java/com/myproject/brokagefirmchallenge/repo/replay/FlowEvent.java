@@ -0,0 +1,78 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.FlowEventType;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One captured call into the order flow. {@code offsetNanos} is the time since the capture
+ * started. Fields that do not apply to the event type are zero, {@code null} or empty: a
+ * cancel carries only the order and its owner, a match only the asset.
+ */
+public record FlowEvent(FlowEventType type,
+                        long offsetNanos,
+                        long orderId,
+                        long customerId,
+                        String assetName,
+                        OrderSide side,
+                        long priceTicks,
+                        long sizeLots,
+                        TimeInForce timeInForce,
+                        Map<String, String> metadata) {
+
+    public FlowEvent {
+        metadata = metadata == null ? Map.of() : Map.copyOf(metadata);
+    }
+
+    public static FlowEvent created(long offsetNanos, Order order) {
+        return new FlowEvent(FlowEventType.CREATE, offsetNanos, order.getId(), order.getCustomerId(),
+                order.getAssetName(), order.getOrderSide(),
+                FixedPoint.toTicks(order.getPrice()), FixedPoint.toTicks(order.getSize()),
+                order.getTimeInForce() != null ? order.getTimeInForce() : TimeInForce.GTC,
+                order.getMetadata());
+    }
+
+    public static FlowEvent canceled(long offsetNanos, long orderId, long customerId) {
+        return new FlowEvent(FlowEventType.CANCEL, offsetNanos, orderId, customerId, null, null, 0L, 0L, null, null);
+    }
+
+    public static FlowEvent matched(long offsetNanos, String assetName) {
+        return new FlowEvent(FlowEventType.MATCH, offsetNanos, 0L, 0L, assetName, null, 0L, 0L, null, null);
+    }
+
+    FlowEvent withOffset(long offsetNanos) {
+        return new FlowEvent(type, offsetNanos, orderId, customerId, assetName, side,
+                priceTicks, sizeLots, timeInForce, metadata);
+    }
+
+    public BigDecimal price() {
+        return FixedPoint.toBigDecimal(priceTicks);
+    }
+
+    public BigDecimal size() {
+        return FixedPoint.toBigDecimal(sizeLots);
+    }
+
+    /**
+     * A new, unsaved order equivalent to the one captured, as an order factory would have built it.
+     */
+    public Order toOrder() {
+        return Order.builder()
+                .customerId(customerId)
+                .assetName(assetName)
+                .orderSide(side)
+                .size(size())
+                .price(price())
+                .timeInForce(timeInForce)
+                .status(OrderStatus.PENDING)
+                .metadata(new HashMap<>(metadata))
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Captures the calls the order managers accept, creates, cancels and match triggers, into a
+ * {@link FlowCaptureFile} for {@link FlowReplayer}. A call made inside a transaction is only
+ * written once that transaction commits, so the capture holds no flow that was rolled back.
+ * Each application run starts a new file in the capture directory. Capturing never fails a
+ * request: the first write error is logged and turns capture off for the rest of the run.
+ */
+@Component
+@Slf4j
+public class FlowRecorder {
+
+    @Value("${order.replay.capture.enabled:false}")
+    private volatile boolean enabled;
+
+    @Value("${order.replay.capture.directory:data/replay}")
+    private String directory;
+
+    private FlowCaptureFile file;
+    private long startNanos;
+
+    public void recordCreate(Order order) {
+        if (enabled) {
+            appendAfterCommit(FlowEvent.created(0L, order));
+        }
+    }
+
+    public void recordCancel(Long orderId, Long customerId) {
+        if (enabled) {
+            appendAfterCommit(FlowEvent.canceled(0L, orderId, customerId));
+        }
+    }
+
+    public void recordMatch(String assetName) {
+        if (enabled) {
+            appendAfterCommit(FlowEvent.matched(0L, assetName));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.replay.capture.flush-interval-millis:1000}")
+    public synchronized void flush() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.flush();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Failed to close flow capture", e);
+        }
+        file = null;
+    }
+
+    private void appendAfterCommit(FlowEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(event);
+            }
+        });
+    }
+
+    /**
+     * Stamps the event with its offset under the lock, so offsets increase in file order.
+     */
+    private synchronized void append(FlowEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (file == null) {
+                Path path = Path.of(directory, "flow-" + System.currentTimeMillis() + ".bin");
+                file = new FlowCaptureFile(path);
+                startNanos = System.nanoTime();
+                log.info("Capturing order flow to {}", path);
+            }
+            file.append(event.withOffset(System.nanoTime() - startNanos));
+        } catch (IOException | RuntimeException e) {
+            disable(e);
+        }
+    }
+
+    private void disable(Exception e) {
+        log.error("Flow capture failed and is disabled until restart", e);
+        enabled = false;
+        close();
+    }
+}
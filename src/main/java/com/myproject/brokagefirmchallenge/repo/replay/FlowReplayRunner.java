@@ -0,0 +1,75 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Runs a replay on startup when {@code order.replay.file} is set, e.g. in a pre-deploy job:
+ * {@code --order.replay.file=flow.bin --order.replay.speed=10}. The report is logged and,
+ * if {@code order.replay.report-file} is set, written there as JSON. Expected checksums from
+ * a known-good build turn a divergence into a failed run.
+ */
+@Component
+@ConditionalOnProperty(name = "order.replay.file")
+@RequiredArgsConstructor
+@Slf4j
+public class FlowReplayRunner implements ApplicationRunner {
+
+    private final FlowReplayer flowReplayer;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${order.replay.file}")
+    private String file;
+
+    @Value("${order.replay.speed:max}")
+    private String speed;
+
+    @Value("${order.replay.report-file:}")
+    private String reportFile;
+
+    @Value("${order.replay.expected.book-checksum:}")
+    private String expectedBookChecksum;
+
+    @Value("${order.replay.expected.balance-checksum:}")
+    private String expectedBalanceChecksum;
+
+    @Value("${order.replay.exit-on-completion:true}")
+    private boolean exitOnCompletion;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ReplayReport report = flowReplayer.replay(Path.of(file), FlowReplayer.parseSpeed(speed));
+        log.info("Replay finished: {}", objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        if (!reportFile.isBlank()) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(Path.of(reportFile).toFile(), report);
+        }
+
+        boolean matches = matches("book", expectedBookChecksum, report.bookChecksum())
+                & matches("balance", expectedBalanceChecksum, report.balanceChecksum());
+        if (exitOnCompletion) {
+            System.exit(SpringApplication.exit(context, () -> matches ? 0 : 1));
+        }
+        if (!matches) {
+            throw new IllegalStateException("Replay of " + file + " diverged from the expected checksums");
+        }
+    }
+
+    private static boolean matches(String name, String expected, String actual) {
+        if (expected.isBlank() || expected.equalsIgnoreCase(actual)) {
+            return true;
+        }
+        log.error("Replay {} checksum {} does not match the expected {}", name, actual, expected);
+        return false;
+    }
+}
@@ -0,0 +1,253 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.myproject.brokagefirmchallenge.repo.engine.BookOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchingEngine;
+import com.myproject.brokagefirmchallenge.repo.engine.OrderBook;
+import com.myproject.brokagefirmchallenge.repo.entity.Asset;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.FlowEventType;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.exceptions.OrderNotFoundException;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import com.myproject.brokagefirmchallenge.repo.service.AssetService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Replays a {@link FlowCaptureFile} through {@link OrderService} and
+ * {@link OrderMatchingService}, the same entry points the order managers use, from a single
+ * thread in capture order. Meant for a dedicated instance on an empty database: every
+ * captured customer is first credited with what its orders block, so each create is accepted
+ * on balance as it was in production.
+ * <p>
+ * Orders reach the engine asynchronously, as they do in production. At any speed a cancel
+ * can therefore race a fill; such a cancel is counted as rejected, not retried.
+ */
+@Component
+@Slf4j
+public class FlowReplayer {
+
+    private static final String TRY_ASSET = "TRY";
+    private static final long SPIN_THRESHOLD_NANOS = 100_000L;
+
+    private final OrderService orderService;
+    private final OrderMatchingService orderMatchingService;
+    private final AssetService assetService;
+    private final MatchingEngine matchingEngine;
+    private final Executor persistenceExecutor;
+
+    public FlowReplayer(OrderService orderService,
+                        OrderMatchingService orderMatchingService,
+                        AssetService assetService,
+                        MatchingEngine matchingEngine,
+                        @Qualifier("matchingPersistenceExecutor") Executor persistenceExecutor) {
+        this.orderService = orderService;
+        this.orderMatchingService = orderMatchingService;
+        this.assetService = assetService;
+        this.matchingEngine = matchingEngine;
+        this.persistenceExecutor = persistenceExecutor;
+    }
+
+    /**
+     * Parses a replay speed: {@code max} replays as fast as the services accept events,
+     * a positive number scales the captured pacing, e.g. {@code 1} for real time.
+     *
+     * @return the speed factor, {@code 0} for unpaced
+     */
+    public static double parseSpeed(String speed) {
+        if ("max".equalsIgnoreCase(speed)) {
+            return 0;
+        }
+        double factor = Double.parseDouble(speed);
+        if (!(factor > 0)) {
+            throw new ValidationException("Replay speed must be positive or 'max': " + speed);
+        }
+        return factor;
+    }
+
+    public ReplayReport replay(Path file, double speed) throws IOException {
+        List<FlowEvent> events = FlowCaptureFile.readAll(file);
+        log.info("Replaying {} events from {} at {}", events.size(), file, speedLabel(speed));
+        fund(events);
+
+        Map<Long, Long> replayedIds = new HashMap<>();
+        FlowEventType[] types = FlowEventType.values();
+        long[][] latencies = new long[types.length][events.size()];
+        int[] counts = new int[types.length];
+        int rejected = 0;
+
+        long start = System.nanoTime();
+        for (FlowEvent event : events) {
+            long due = speed > 0 ? start + (long) (event.offsetNanos() / speed) : System.nanoTime();
+            waitUntil(due);
+            try {
+                apply(event, replayedIds);
+            } catch (RuntimeException e) {
+                rejected++;
+                log.debug("Replayed {} of order {} was rejected: {}", event.type(), event.orderId(), e.getMessage());
+            }
+            int type = event.type().ordinal();
+            latencies[type][counts[type]++] = System.nanoTime() - due;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        settle();
+
+        Map<FlowEventType, ReplayReport.LatencySummary> summaries = new EnumMap<>(FlowEventType.class);
+        for (FlowEventType type : types) {
+            summaries.put(type, ReplayReport.LatencySummary.of(latencies[type.ordinal()], counts[type.ordinal()]));
+        }
+        double eventsPerSecond = elapsedNanos == 0 ? 0 : events.size() * 1e9 / elapsedNanos;
+        return new ReplayReport(file.toString(), speedLabel(speed), events.size(), rejected,
+                elapsedNanos, eventsPerSecond, summaries,
+                Long.toHexString(bookChecksum(events, replayedIds)), Long.toHexString(balanceChecksum(events)));
+    }
+
+    private void apply(FlowEvent event, Map<Long, Long> replayedIds) {
+        switch (event.type()) {
+            case CREATE -> {
+                Order created = orderService.createOrder(event.toOrder());
+                replayedIds.put(event.orderId(), created.getId());
+            }
+            case CANCEL -> {
+                Long orderId = replayedIds.get(event.orderId());
+                if (orderId == null) {
+                    throw new OrderNotFoundException("Captured order " + event.orderId() + " was not replayed");
+                }
+                orderService.cancelOrder(orderId, event.customerId());
+            }
+            case MATCH -> orderMatchingService.matchOrders(event.assetName());
+        }
+    }
+
+    /**
+     * Credits each customer with the sum of what its captured orders block, before the clock
+     * starts, so funding is not part of what is measured.
+     */
+    private void fund(List<FlowEvent> events) {
+        Map<Long, Map<String, BigDecimal>> required = new TreeMap<>();
+        for (FlowEvent event : events) {
+            if (event.type() != FlowEventType.CREATE) {
+                continue;
+            }
+            boolean buying = event.side() == OrderSide.BUY;
+            required.computeIfAbsent(event.customerId(), ignored -> new TreeMap<>())
+                    .merge(buying ? TRY_ASSET : event.assetName(),
+                            buying ? event.size().multiply(event.price()) : event.size(), BigDecimal::add);
+        }
+        required.forEach((customerId, assets) -> assets.forEach((assetName, amount) ->
+                assetService.createOrUpdateAsset(customerId, assetName, amount)));
+    }
+
+    /**
+     * Waits until every command submitted so far has been applied by its shard and every fill
+     * and expiry it produced has been persisted: a round trip through each shard, then one
+     * through the single persistence thread behind them.
+     */
+    private void settle() {
+        for (String assetName : matchingEngine.getAssetNames()) {
+            MatchingEngine.await(matchingEngine.inspect(assetName, OrderBook::isEmpty));
+        }
+        CompletableFuture.runAsync(() -> { }, persistenceExecutor).join();
+    }
+
+    private long bookChecksum(List<FlowEvent> events, Map<Long, Long> replayedIds) {
+        Map<Long, Long> capturedIds = new HashMap<>();
+        replayedIds.forEach((captured, replayed) -> capturedIds.put(replayed, captured));
+
+        CRC32C checksum = new CRC32C();
+        for (String assetName : assetNames(events)) {
+            long bookChecksum = MatchingEngine.await(matchingEngine.inspect(assetName, book -> {
+                CRC32C orders = new CRC32C();
+                ByteBuffer record = ByteBuffer.allocate(3 * Long.BYTES + 1);
+                for (OrderSide side : OrderSide.values()) {
+                    book.forEachOrder(side, order -> update(orders, record, capturedIds, order));
+                }
+                return orders.getValue();
+            }));
+            checksum.update(assetName.getBytes(StandardCharsets.UTF_8));
+            checksum.update(ByteBuffer.allocate(Long.BYTES).putLong(0, bookChecksum));
+        }
+        return checksum.getValue();
+    }
+
+    private static void update(CRC32C checksum, ByteBuffer record, Map<Long, Long> capturedIds, BookOrder order) {
+        record.clear();
+        record.putLong(capturedIds.getOrDefault(order.getOrderId(), -order.getOrderId()))
+                .put((byte) order.getSide().ordinal())
+                .putLong(order.getPriceTicks())
+                .putLong(order.getRemainingLots())
+                .flip();
+        checksum.update(record);
+    }
+
+    private long balanceChecksum(List<FlowEvent> events) {
+        TreeSet<Long> customerIds = new TreeSet<>();
+        for (FlowEvent event : events) {
+            if (event.type() != FlowEventType.MATCH) {
+                customerIds.add(event.customerId());
+            }
+        }
+        TreeSet<String> assetNames = assetNames(events);
+        assetNames.add(TRY_ASSET);
+
+        CRC32C checksum = new CRC32C();
+        for (Long customerId : customerIds) {
+            for (String assetName : assetNames) {
+                Asset asset = assetService.findByCustomerIdAndAssetName(customerId, assetName).orElse(null);
+                String balance = asset == null ? "-" : plain(asset.getSize()) + "/" + plain(asset.getUsableSize());
+                checksum.update((customerId + ":" + assetName + "=" + balance + ";").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Balances carry the scale of whatever produced them, so equal amounts are normalized first.
+     */
+    private static String plain(BigDecimal amount) {
+        return amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static TreeSet<String> assetNames(List<FlowEvent> events) {
+        TreeSet<String> assetNames = new TreeSet<>();
+        for (FlowEvent event : events) {
+            if (event.assetName() != null) {
+                assetNames.add(event.assetName());
+            }
+        }
+        return assetNames;
+    }
+
+    private static void waitUntil(long dueNanos) {
+        for (long remaining; (remaining = dueNanos - System.nanoTime()) > 0; ) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static String speedLabel(double speed) {
+        return speed > 0 ? speed + "x" : "max";
+    }
+}
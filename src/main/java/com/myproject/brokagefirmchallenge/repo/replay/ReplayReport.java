@@ -0,0 +1,41 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.FlowEventType;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Outcome of one replay. Latencies run from the moment each event was due, so a replay that
+ * falls behind its schedule shows the backlog instead of hiding it. The checksums fingerprint
+ * the resting orders, keyed by their captured ids, and the balances of every captured
+ * customer: two runs of the same capture on the same build must agree.
+ */
+public record ReplayReport(String captureFile,
+                           String speed,
+                           int events,
+                           int rejected,
+                           long elapsedNanos,
+                           double eventsPerSecond,
+                           Map<FlowEventType, LatencySummary> latencies,
+                           String bookChecksum,
+                           String balanceChecksum) {
+
+    public record LatencySummary(int count, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+
+        static LatencySummary of(long[] samples, int count) {
+            if (count == 0) {
+                return new LatencySummary(0, 0L, 0L, 0L, 0L);
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new LatencySummary(count, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted[count - 1]);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.myproject.brokagefirmchallenge.repo.repository;
+
+import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
+
+import java.util.List;
+
+public interface AuditLogBatchRepository {
+
+    /**
+     * Inserts the audit rows with JDBC batching in the caller's transaction, so they commit
+     * or roll back together with the changes they describe.
+     */
+    void batchInsert(List<AuditLog> auditLogs);
+}
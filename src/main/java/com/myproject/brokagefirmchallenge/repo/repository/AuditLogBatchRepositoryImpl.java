@@ -0,0 +1,53 @@
+package com.myproject.brokagefirmchallenge.repo.repository;
+
+import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AuditLogBatchRepositoryImpl implements AuditLogBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO audit_log (entity_name, entity_id, action, user_id, username, action_date,
+                old_value, new_value, ip_address, user_agent, request_id, created_date, updated_date, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.matching.persistence.jdbc-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void batchInsert(List<AuditLog> auditLogs) {
+        if (auditLogs.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, auditLogs, batchSize, (ps, auditLog) -> {
+            Timestamp actionDate = auditLog.getActionDate() == null
+                    ? now : Timestamp.valueOf(auditLog.getActionDate());
+
+            ps.setString(1, auditLog.getEntityName());
+            ps.setLong(2, auditLog.getEntityId());
+            ps.setString(3, auditLog.getAction().name());
+            ps.setLong(4, auditLog.getUserId());
+            ps.setString(5, auditLog.getUsername());
+            ps.setTimestamp(6, actionDate);
+            ps.setString(7, auditLog.getOldValue());
+            ps.setString(8, auditLog.getNewValue());
+            ps.setString(9, auditLog.getIpAddress());
+            ps.setString(10, auditLog.getUserAgent());
+            ps.setString(11, auditLog.getRequestId());
+            ps.setTimestamp(12, now);
+            ps.setTimestamp(13, now);
+        });
+    }
+}
@@ -4,5 +4,5 @@ import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface AuditLogRepository extends BaseRepository<AuditLog, Long> {
+public interface AuditLogRepository extends BaseRepository<AuditLog, Long>, AuditLogBatchRepository {
 }
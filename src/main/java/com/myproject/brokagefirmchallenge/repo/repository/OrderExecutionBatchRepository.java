@@ -0,0 +1,14 @@
+package com.myproject.brokagefirmchallenge.repo.repository;
+
+import com.myproject.brokagefirmchallenge.repo.entity.OrderExecution;
+
+import java.util.List;
+
+public interface OrderExecutionBatchRepository {
+
+    /**
+     * Inserts the executions with JDBC batching, bypassing the persistence context.
+     * Identity inserts cannot be batched by Hibernate, so fills are written here instead.
+     */
+    void batchInsert(List<OrderExecution> executions);
+}
@@ -0,0 +1,57 @@
+package com.myproject.brokagefirmchallenge.repo.repository;
+
+import com.myproject.brokagefirmchallenge.repo.entity.OrderExecution;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OrderExecutionBatchRepositoryImpl implements OrderExecutionBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO order_execution (order_id, matching_order_id, execution_price, execution_size,
+                execution_date, buy_order_id, sell_order_id, buy_customer_id, sell_customer_id,
+                commission_amount, execution_value, created_date, updated_date, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.matching.persistence.jdbc-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void batchInsert(List<OrderExecution> executions) {
+        if (executions.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, executions, batchSize, (ps, execution) -> {
+            Timestamp executionDate = execution.getExecutionDate() == null
+                    ? now : Timestamp.valueOf(execution.getExecutionDate());
+            BigDecimal commission = execution.getCommissionAmount() == null
+                    ? BigDecimal.ZERO : execution.getCommissionAmount();
+
+            ps.setLong(1, execution.getOrderId());
+            ps.setObject(2, execution.getMatchingOrderId());
+            ps.setBigDecimal(3, execution.getExecutionPrice());
+            ps.setBigDecimal(4, execution.getExecutionSize());
+            ps.setTimestamp(5, executionDate);
+            ps.setLong(6, execution.getBuyOrderId());
+            ps.setLong(7, execution.getSellOrderId());
+            ps.setLong(8, execution.getBuyCustomerId());
+            ps.setLong(9, execution.getSellCustomerId());
+            ps.setBigDecimal(10, commission);
+            ps.setBigDecimal(11, execution.getExecutionValue());
+            ps.setTimestamp(12, now);
+            ps.setTimestamp(13, now);
+        });
+    }
+}
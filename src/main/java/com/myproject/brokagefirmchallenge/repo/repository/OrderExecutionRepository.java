@@ -0,0 +1,22 @@
+package com.myproject.brokagefirmchallenge.repo.repository;
+
+import com.myproject.brokagefirmchallenge.repo.entity.OrderExecution;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface OrderExecutionRepository extends JpaRepository<OrderExecution, Long>, OrderExecutionBatchRepository {
+
+    /**
+     * Execution prices of the asset, latest first.
+     */
+    @Query("SELECT e.executionPrice FROM OrderExecution e, Order o " +
+            "WHERE o.id = e.orderId AND o.assetName = :assetName ORDER BY e.id DESC")
+    List<BigDecimal> findExecutionPricesByAssetName(@Param("assetName") String assetName, Limit limit);
+}
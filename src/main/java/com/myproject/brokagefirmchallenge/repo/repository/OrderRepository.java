@@ -1,19 +1,24 @@
 package com.myproject.brokagefirmchallenge.repo.repository;
 
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
-import jakarta.persistence.LockModeType;
-import org.springframework.data.jpa.repository.Lock;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface OrderRepository extends BaseRepository<Order, Long> {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT o FROM Order o WHERE o.id = :id")
-    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    @EntityGraph(attributePaths = "metadata")
+    List<Order> findByStatusIn(Collection<OrderStatus> statuses);
+
+    @EntityGraph(attributePaths = "metadata")
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.metadata m " +
+            "WHERE o.status IN :statuses AND KEY(m) = 'orderType' AND VALUE(m) = 'STOP_LOSS'")
+    List<Order> findStopOrdersByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
 
 }
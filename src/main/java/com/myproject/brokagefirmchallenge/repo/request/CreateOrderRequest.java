@@ -1,6 +1,7 @@
 package com.myproject.brokagefirmchallenge.repo.request;
 
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -34,6 +35,7 @@ public class CreateOrderRequest extends BaseRequest {
     private BigDecimal price;
 
     private String orderType;
+    private TimeInForce timeInForce;
     private BigDecimal triggerPrice;
     private Map<String, String> metadata;
 
@@ -0,0 +1,15 @@
+package com.myproject.brokagefirmchallenge.repo.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwitchPricingStrategyRequest {
+
+    @NotBlank(message = "Strategy name is required")
+    private String strategyName;
+}
@@ -1,8 +1,10 @@
 package com.myproject.brokagefirmchallenge.repo.service;
 
+import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
 import com.myproject.brokagefirmchallenge.repo.enumtype.AuditAction;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface AuditService {
 
@@ -17,6 +19,18 @@ public interface AuditService {
 
     void auditOrderAction(Long orderId, AuditAction action, String details);
 
+    /**
+     * Builds an order audit row without saving it, for callers that write a batch of them
+     * with {@link #auditOrderActions(List)}.
+     */
+    AuditLog orderActionLog(Long orderId, AuditAction action, String details);
+
+    /**
+     * Writes the audit rows in one JDBC batch inside the caller's transaction, so a rolled back
+     * batch leaves no audit rows behind.
+     */
+    void auditOrderActions(List<AuditLog> auditLogs);
+
     void auditBalanceChange(Long customerId, String assetName,
                             BigDecimal oldBalance, BigDecimal newBalance, String reason);
 }
@@ -0,0 +1,20 @@
+package com.myproject.brokagefirmchallenge.repo.service;
+
+import com.myproject.brokagefirmchallenge.repo.candle.Candle;
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+
+import java.util.List;
+
+public interface CandleService {
+
+    /**
+     * Up to {@code limit} of the most recent bars opened within {@code [from, to]} (epoch
+     * millis), oldest first, including the bar still being built.
+     */
+    List<Candle> getCandles(String assetName, CandleInterval interval, long from, long to, int limit);
+
+    /**
+     * Closes bars whose interval has ended and appends every closed bar to its file.
+     */
+    void flush();
+}
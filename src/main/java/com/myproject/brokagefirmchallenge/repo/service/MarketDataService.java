@@ -1,53 +1,134 @@
 package com.myproject.brokagefirmchallenge.repo.service;
 
 
-import org.springframework.cache.annotation.Cacheable;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDataListener;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketStatisticsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Last price, VWAP, session high/low and volume per asset, fed by the fills of the matching
+ * engine. Each asset is only ever written by the shard that owns it; the stripe lock keeps
+ * readers from seeing a half-applied fill.
+ */
 @Service
-public class MarketDataService {
+@Slf4j
+public class MarketDataService implements MarketDataListener {
 
-    private final Map<String, BigDecimal> marketPrices = new ConcurrentHashMap<>();
-    private final Random random = new Random();
+    private static final int STRIPES = 16;
+
+    private final Map<String, TradeStatistics> statistics = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
 
     public MarketDataService() {
-        initializeMarketPrices();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void onTrades(List<MatchResult> trades) {
+        for (MatchResult trade : trades) {
+            TradeStatistics stats = statistics.computeIfAbsent(trade.assetName(), ignored -> new TradeStatistics());
+            synchronized (stripeFor(trade.assetName())) {
+                stats.record(trade.priceTicks(), trade.sizeLots());
+            }
+        }
     }
 
-    private void initializeMarketPrices() {
-        marketPrices.put("AAPL", new BigDecimal("150.00"));
-        marketPrices.put("GOOGL", new BigDecimal("2800.00"));
-        marketPrices.put("MSFT", new BigDecimal("300.00"));
-        marketPrices.put("AMZN", new BigDecimal("3200.00"));
-        marketPrices.put("TSLA", new BigDecimal("800.00"));
-        marketPrices.put("BTC", new BigDecimal("45000.00"));
-        marketPrices.put("ETH", new BigDecimal("3000.00"));
+    @Override
+    public void onDepth(MarketDepth depth) {
     }
 
-    @Cacheable(value = "marketDataCache", key = "#assetName")
+    /**
+     * Price of the asset's last trade, or {@code null} if it has not traded yet.
+     */
     public BigDecimal getCurrentPrice(String assetName) {
-        BigDecimal basePrice = marketPrices.get(assetName);
+        TradeStatistics stats = statistics.get(assetName);
+        long lastTicks = stats == null ? 0L : stats.lastTicks;
+        return lastTicks == 0L ? null : FixedPoint.toBigDecimal(lastTicks);
+    }
 
-        if (basePrice == null) {
-            basePrice = generateRandomPrice();
-            marketPrices.put(assetName, basePrice);
+    public MarketStatisticsVO getStatistics(String assetName) {
+        TradeStatistics stats = statistics.get(assetName);
+        if (stats == null) {
+            return MarketStatisticsVO.builder().assetName(assetName).volume(BigDecimal.ZERO).tradeCount(0L).build();
         }
+        synchronized (stripeFor(assetName)) {
+            boolean traded = stats.tradeCount > 0;
+            return MarketStatisticsVO.builder()
+                    .assetName(assetName)
+                    .lastPrice(stats.lastTicks == 0L ? null : FixedPoint.toBigDecimal(stats.lastTicks))
+                    .vwap(traded ? FixedPoint.toBigDecimal(Math.round(stats.notional / stats.volumeLots)) : null)
+                    .high(traded ? FixedPoint.toBigDecimal(stats.highTicks) : null)
+                    .low(traded ? FixedPoint.toBigDecimal(stats.lowTicks) : null)
+                    .volume(FixedPoint.toBigDecimal(stats.volumeLots))
+                    .tradeCount(stats.tradeCount)
+                    .build();
+        }
+    }
 
-        double volatility = 0.02;
-        double change = (random.nextDouble() - 0.5) * 2 * volatility;
+    /**
+     * Starts a new session: high, low, VWAP and volume restart from the next trade, while the
+     * last price carries over.
+     */
+    @Scheduled(cron = "${market.data.session-reset-cron:0 0 0 * * *}")
+    public void resetSession() {
+        log.info("Resetting market data session statistics for {} assets", statistics.size());
 
-        BigDecimal currentPrice = basePrice.multiply(BigDecimal.valueOf(1 + change));
-        return currentPrice.setScale(2, RoundingMode.HALF_UP);
+        statistics.forEach((assetName, stats) -> {
+            synchronized (stripeFor(assetName)) {
+                stats.reset();
+            }
+        });
     }
 
-    private BigDecimal generateRandomPrice() {
-        double price = 10 + (random.nextDouble() * 990);
-        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP);
+    private Object stripeFor(String assetName) {
+        return stripes[Math.floorMod(assetName.hashCode(), STRIPES)];
+    }
+
+    /**
+     * Notional is accumulated as {@code double} of ticks times lots, which would overflow a
+     * {@code long} after a few large fills; it is only used to derive the VWAP.
+     */
+    private static final class TradeStatistics {
+
+        private volatile long lastTicks;
+        private long highTicks;
+        private long lowTicks;
+        private long volumeLots;
+        private double notional;
+        private long tradeCount;
+
+        void record(long priceTicks, long sizeLots) {
+            if (tradeCount == 0) {
+                highTicks = priceTicks;
+                lowTicks = priceTicks;
+            } else {
+                highTicks = Math.max(highTicks, priceTicks);
+                lowTicks = Math.min(lowTicks, priceTicks);
+            }
+            volumeLots += sizeLots;
+            notional += (double) priceTicks * sizeLots;
+            tradeCount++;
+            lastTicks = priceTicks;
+        }
+
+        void reset() {
+            highTicks = 0L;
+            lowTicks = 0L;
+            volumeLots = 0L;
+            notional = 0.0;
+            tradeCount = 0L;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.myproject.brokagefirmchallenge.repo.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface MarketStreamService {
+
+    /**
+     * Opens a stream of top of book, depth changes and trades for the asset. The first event
+     * is a snapshot; a subscriber that falls behind is resynchronized with a fresh snapshot
+     * instead of being sent the backlog.
+     */
+    SseEmitter subscribe(String assetName);
+
+    int subscriberCount(String assetName);
+}
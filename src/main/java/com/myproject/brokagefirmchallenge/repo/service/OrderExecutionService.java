@@ -0,0 +1,25 @@
+package com.myproject.brokagefirmchallenge.repo.service;
+
+import com.myproject.brokagefirmchallenge.repo.engine.ExpiredOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+
+import java.util.List;
+
+public interface OrderExecutionService {
+
+    void persistMatches(List<MatchResult> matches);
+
+    void expireOrders(List<ExpiredOrder> expiredOrders);
+
+    /**
+     * Records that the engine has triggered these stop orders, so they are entered as limit
+     * orders rather than armed again when the books are rebuilt from the database.
+     */
+    void markStopsTriggered(List<Long> orderIds);
+
+    /**
+     * Cancels an order that never reached the matching engine and releases what it blocked,
+     * in a transaction of its own so it can run after the order's creation has committed.
+     */
+    void rejectOrder(ExpiredOrder order);
+}
@@ -1,14 +1,19 @@
 package com.myproject.brokagefirmchallenge.repo.service;
 
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchOutcome;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface OrderMatchingService {
 
     void matchOrders(String assetName);
 
-    void matchAllPendingOrders();
+    List<MatchOutcome> matchAllPendingOrders();
 
     boolean canMatch(Order buyOrder, Order sellOrder);
 
@@ -17,4 +22,33 @@ public interface OrderMatchingService {
     BigDecimal calculateMatchPrice(Order buyOrder, Order sellOrder);
 
     void addOrderToBook(Order order);
+
+    CompletableFuture<Integer> submitOrder(Order order);
+
+    /**
+     * Arms a stop order in the asset's trigger book. It enters the book only once the market
+     * trades through {@code triggerPrice}.
+     */
+    CompletableFuture<Void> submitStopOrder(Order order, BigDecimal triggerPrice);
+
+    /**
+     * Cancels an order for its owner through the matching engine and waits for it. The
+     * order's row and blocked balance are updated later, in the engine's persistence stage.
+     *
+     * @return the size the engine canceled, empty if the order was no longer in the book
+     */
+    Optional<BigDecimal> cancelOrder(Order order);
+
+    /**
+     * Rebinds an asset's book to another pricing strategy.
+     *
+     * @return the name of the strategy the book was using before
+     */
+    String switchPricingStrategy(String assetName, String strategyName);
+
+    /**
+     * Latest published depth of the asset's book, limited to {@code levels} per side. Reads an
+     * immutable snapshot and never waits on the matching engine.
+     */
+    MarketDepth getMarketDepth(String assetName, int levels);
 }
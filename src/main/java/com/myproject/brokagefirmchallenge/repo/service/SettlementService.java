@@ -0,0 +1,18 @@
+package com.myproject.brokagefirmchallenge.repo.service;
+
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SettlementService {
+
+    /**
+     * Moves TRY and asset balances for a batch of fills. Fills are netted per customer and asset
+     * first, so every affected asset row is locked and updated once per batch.
+     *
+     * @param orders the matched orders by id, used for the buyers' limit prices
+     */
+    void settle(List<MatchResult> matches, Map<Long, Order> orders);
+}
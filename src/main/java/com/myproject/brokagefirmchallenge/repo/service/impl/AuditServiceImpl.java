@@ -18,6 +18,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -107,6 +108,19 @@ public class AuditServiceImpl implements AuditService {
         }
     }
 
+    @Override
+    public AuditLog orderActionLog(Long orderId, AuditAction action, String details) {
+        AuditLog auditLog = createBaseAuditLog("Order", orderId, action);
+        auditLog.setNewValue(details);
+        return auditLog;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void auditOrderActions(List<AuditLog> auditLogs) {
+        auditLogRepository.batchInsert(auditLogs);
+    }
+
     @Override
     @Async
     @Transactional(propagation = Propagation.REQUIRES_NEW)
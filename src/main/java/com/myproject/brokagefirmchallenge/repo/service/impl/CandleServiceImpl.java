@@ -0,0 +1,205 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.candle.Candle;
+import com.myproject.brokagefirmchallenge.repo.candle.CandleFile;
+import com.myproject.brokagefirmchallenge.repo.candle.CandleSeries;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDataListener;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import com.myproject.brokagefirmchallenge.repo.service.CandleService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregates engine fills into bars of every {@link CandleInterval} as they happen. Recent
+ * bars are served from each series' ring; older ones from the per-asset, per-interval file
+ * the flush appends closed bars to. Bars still open at shutdown are written as well and
+ * picked up again by the first trade of the asset after a restart within the same interval.
+ */
+@Service
+@Slf4j
+public class CandleServiceImpl implements CandleService, MarketDataListener {
+
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+    private static final Pattern ASSET_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*");
+
+    private final Map<String, CandleSeries[]> series = new ConcurrentHashMap<>();
+    private final Map<String, CandleFile[]> files = new ConcurrentHashMap<>();
+
+    @Value("${market.candles.ring-size:1440}")
+    private int ringSize;
+
+    @Value("${market.candles.persistence.enabled:true}")
+    private boolean persistenceEnabled;
+
+    @Value("${market.candles.persistence.directory:data/candles}")
+    private String directory;
+
+    @Override
+    public void onTrades(List<MatchResult> trades) {
+        long now = System.currentTimeMillis();
+        for (MatchResult trade : trades) {
+            CandleSeries[] assetSeries = series.computeIfAbsent(trade.assetName(), this::newSeries);
+            for (CandleSeries bars : assetSeries) {
+                bars.record(now, trade.priceTicks(), trade.sizeLots());
+            }
+        }
+    }
+
+    @Override
+    public void onDepth(MarketDepth depth) {
+    }
+
+    @Override
+    public List<Candle> getCandles(String assetName, CandleInterval interval, long from, long to, int limit) {
+        CandleSeries[] assetSeries = series.get(assetName);
+        CandleSeries bars = assetSeries == null ? null : assetSeries[interval.ordinal()];
+        List<Candle> recent = bars == null ? List.of() : bars.range(from, to, limit);
+
+        long oldestInMemory = bars == null ? Long.MAX_VALUE : bars.oldestOpenTime();
+        if (!persistenceEnabled || recent.size() >= limit || from >= oldestInMemory) {
+            return recent;
+        }
+
+        try {
+            CandleFile file = fileFor(assetName, interval, false);
+            if (file == null) {
+                return recent;
+            }
+            List<Candle> candles = new ArrayList<>(file.read(from, Math.min(to, oldestInMemory - 1), limit - recent.size()));
+            candles.addAll(recent);
+            return candles;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + interval.getCode() + " candles of " + assetName, e);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${market.candles.flush-interval-millis:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        series.forEach((assetName, assetSeries) -> {
+            for (CandleInterval interval : INTERVALS) {
+                List<Candle> closed = assetSeries[interval.ordinal()].drainClosed(now);
+                if (closed.isEmpty() || !persistenceEnabled) {
+                    continue;
+                }
+                try {
+                    fileFor(assetName, interval, true).append(closed);
+                } catch (IOException | RuntimeException e) {
+                    assetSeries[interval.ordinal()].requeue(closed);
+                    log.error("Failed to append {} {} candles of {}, retrying on the next flush",
+                            closed.size(), interval.getCode(), assetName, e);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        if (persistenceEnabled) {
+            series.forEach(this::appendOpenBars);
+        }
+        files.values().forEach(assetFiles -> {
+            for (CandleFile file : assetFiles) {
+                closeQuietly(file);
+            }
+        });
+    }
+
+    private void appendOpenBars(String assetName, CandleSeries[] assetSeries) {
+        for (CandleInterval interval : INTERVALS) {
+            Candle open = assetSeries[interval.ordinal()].openBar();
+            if (open == null) {
+                continue;
+            }
+            try {
+                fileFor(assetName, interval, true).append(List.of(open));
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to append the open {} candle of {}", interval.getCode(), assetName, e);
+            }
+        }
+    }
+
+    /**
+     * Series of a newly traded asset, each resuming the bar a previous run left open in its
+     * file if that bar's interval is still running.
+     */
+    private CandleSeries[] newSeries(String assetName) {
+        long now = System.currentTimeMillis();
+        CandleSeries[] assetSeries = new CandleSeries[INTERVALS.length];
+        for (CandleInterval interval : INTERVALS) {
+            CandleSeries bars = new CandleSeries(interval, ringSize);
+            assetSeries[interval.ordinal()] = bars;
+            if (!persistenceEnabled) {
+                continue;
+            }
+            try {
+                CandleFile file = fileFor(assetName, interval, false);
+                Candle last = file == null ? null : file.last();
+                if (last != null && last.openTime() == interval.openTime(now)) {
+                    bars.resume(last);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to read the last {} candle of {}", interval.getCode(), assetName, e);
+            }
+        }
+        return assetSeries;
+    }
+
+    /**
+     * @param create whether to create the file if it does not exist yet; readers pass
+     *               {@code false} so a request for an unknown asset never touches the disk
+     */
+    private CandleFile fileFor(String assetName, CandleInterval interval, boolean create) throws IOException {
+        if (!ASSET_NAME.matcher(assetName).matches()) {
+            throw new ValidationException("Invalid asset name: " + assetName);
+        }
+        Path path = Path.of(directory, assetName, interval.getCode() + ".bin");
+        CandleFile[] assetFiles = files.get(assetName);
+        if (assetFiles == null) {
+            if (!create && !Files.exists(path)) {
+                return null;
+            }
+            assetFiles = files.computeIfAbsent(assetName, ignored -> new CandleFile[INTERVALS.length]);
+        }
+        synchronized (assetFiles) {
+            CandleFile file = assetFiles[interval.ordinal()];
+            if (file == null) {
+                if (!create && !Files.exists(path)) {
+                    return null;
+                }
+                file = new CandleFile(path);
+                assetFiles[interval.ordinal()] = file;
+            }
+            return file;
+        }
+    }
+
+    private void closeQuietly(CandleFile file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Failed to close candle file", e);
+        }
+    }
+}
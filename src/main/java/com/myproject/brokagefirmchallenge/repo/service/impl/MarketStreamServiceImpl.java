@@ -0,0 +1,331 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myproject.brokagefirmchallenge.repo.engine.DepthLevel;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDataListener;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.service.MarketStreamService;
+import com.myproject.brokagefirmchallenge.repo.vo.DepthLevelVO;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketUpdateVO;
+import com.myproject.brokagefirmchallenge.repo.vo.TradeVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans the engine's market data out to SSE subscribers. Each asset has one feed that turns
+ * the latest published depth and the pending trades into a single serialized update, shared
+ * by every subscriber of that asset. Each subscriber owns a bounded send buffer; when it
+ * overflows the backlog is dropped and the subscriber is resynchronized with a snapshot.
+ */
+@Service
+@Slf4j
+public class MarketStreamServiceImpl implements MarketStreamService, MarketDataListener {
+
+    private static final String EVENT_NAME = "market";
+
+    private final ObjectMapper objectMapper;
+    private final Executor streamExecutor;
+    private final Map<String, AssetFeed> feeds = new ConcurrentHashMap<>();
+
+    @Value("${market.stream.send-buffer-size:64}")
+    private int sendBufferSize;
+
+    @Value("${market.stream.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    public MarketStreamServiceImpl(ObjectMapper objectMapper,
+                                   @Qualifier("marketStreamExecutor") Executor streamExecutor) {
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+    }
+
+    @Override
+    public SseEmitter subscribe(String assetName) {
+        log.debug("Opening market data stream for asset: {}", assetName);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(feeds.computeIfAbsent(assetName, AssetFeed::new), emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+
+        subscription.feed.subscribers.add(subscription);
+        subscription.scheduleFlush();
+        return emitter;
+    }
+
+    @Override
+    public int subscriberCount(String assetName) {
+        AssetFeed feed = feeds.get(assetName);
+        return feed == null ? 0 : feed.subscribers.size();
+    }
+
+    @Override
+    public void onTrades(List<MatchResult> trades) {
+        for (MatchResult trade : trades) {
+            AssetFeed feed = feeds.get(trade.assetName());
+            if (feed != null && !feed.subscribers.isEmpty()) {
+                feed.pendingTrades.add(trade);
+            }
+        }
+    }
+
+    @Override
+    public void onDepth(MarketDepth depth) {
+        AssetFeed feed = feeds.computeIfAbsent(depth.assetName(), AssetFeed::new);
+        feed.latestDepth.set(depth);
+        feed.scheduleDrain();
+    }
+
+    private boolean execute(Runnable task, AtomicBoolean scheduled) {
+        try {
+            streamExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            log.warn("Market data stream executor is saturated, update deferred");
+            return false;
+        }
+    }
+
+    private String serialize(MarketUpdateVO update) {
+        try {
+            return objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize market update for " + update.getAssetName(), e);
+        }
+    }
+
+    private static List<DepthLevelVO> toLevels(List<DepthLevel> levels) {
+        return levels.stream().map(MarketStreamServiceImpl::toLevel).toList();
+    }
+
+    private static DepthLevelVO toLevel(DepthLevel level) {
+        return DepthLevelVO.builder()
+                .price(level.price())
+                .size(level.size())
+                .orderCount(level.orderCount())
+                .build();
+    }
+
+    private static DepthLevelVO best(List<DepthLevel> levels) {
+        return levels.isEmpty() ? null : toLevel(levels.get(0));
+    }
+
+    /**
+     * Levels that differ between two published depths; a level that disappeared is reported
+     * with a size and order count of zero.
+     */
+    private static List<DepthLevelVO> changedLevels(List<DepthLevel> previous, List<DepthLevel> current) {
+        Map<Long, DepthLevel> removed = new HashMap<>(previous.size() * 2);
+        previous.forEach(level -> removed.put(level.priceTicks(), level));
+
+        List<DepthLevelVO> changes = new ArrayList<>();
+        for (DepthLevel level : current) {
+            if (!level.equals(removed.remove(level.priceTicks()))) {
+                changes.add(toLevel(level));
+            }
+        }
+        for (DepthLevel level : removed.values()) {
+            changes.add(DepthLevelVO.builder().price(level.price()).size(BigDecimal.ZERO).orderCount(0).build());
+        }
+        return changes;
+    }
+
+    private static LocalDateTime toDate(long timestamp) {
+        return timestamp == 0 ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+
+    private record StreamMessage(long sequence, String payload) {
+    }
+
+    private final class AssetFeed {
+
+        private final String assetName;
+        private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+        private final Queue<MatchResult> pendingTrades = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<MarketDepth> latestDepth;
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private MarketDepth publishedDepth;
+        private long sequence;
+        private StreamMessage snapshot;
+
+        AssetFeed(String assetName) {
+            this.assetName = assetName;
+            this.latestDepth = new AtomicReference<>(MarketDepth.empty(assetName));
+            this.publishedDepth = latestDepth.get();
+        }
+
+        void scheduleDrain() {
+            if (!subscribers.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+                execute(this::drain, drainScheduled);
+            }
+        }
+
+        private void drain() {
+            drainScheduled.set(false);
+            try {
+                publish();
+            } catch (Exception e) {
+                log.error("Failed to publish market update for asset {}", assetName, e);
+            }
+        }
+
+        /**
+         * Serializes what changed since the last sequence once and hands the same message to
+         * every subscriber, in sequence order.
+         */
+        synchronized void publish() {
+            MarketDepth depth = latestDepth.get();
+            List<TradeVO> trades = new ArrayList<>();
+            for (MatchResult trade; (trade = pendingTrades.poll()) != null; ) {
+                trades.add(TradeVO.builder().price(trade.price()).size(trade.size()).build());
+            }
+            if (depth == publishedDepth && trades.isEmpty()) {
+                return;
+            }
+
+            MarketUpdateVO update = MarketUpdateVO.builder()
+                    .assetName(assetName)
+                    .sequence(++sequence)
+                    .snapshot(false)
+                    .bestBid(best(depth.bids()))
+                    .bestAsk(best(depth.asks()))
+                    .bids(changedLevels(publishedDepth.bids(), depth.bids()))
+                    .asks(changedLevels(publishedDepth.asks(), depth.asks()))
+                    .trades(trades.isEmpty() ? null : trades)
+                    .lastUpdateDate(toDate(depth.timestamp()))
+                    .build();
+            publishedDepth = depth;
+            snapshot = null;
+
+            StreamMessage message = new StreamMessage(sequence, serialize(update));
+            subscribers.forEach(subscriber -> subscriber.offer(message));
+        }
+
+        /**
+         * Full depth as of the latest sequence, serialized at most once per sequence however
+         * many subscribers need resynchronizing.
+         */
+        synchronized StreamMessage snapshot() {
+            publish();
+            if (snapshot == null) {
+                snapshot = new StreamMessage(sequence, serialize(MarketUpdateVO.builder()
+                        .assetName(assetName)
+                        .sequence(sequence)
+                        .snapshot(true)
+                        .bestBid(best(publishedDepth.bids()))
+                        .bestAsk(best(publishedDepth.asks()))
+                        .bids(toLevels(publishedDepth.bids()))
+                        .asks(toLevels(publishedDepth.asks()))
+                        .lastUpdateDate(toDate(publishedDepth.timestamp()))
+                        .build()));
+            }
+            return snapshot;
+        }
+    }
+
+    private final class Subscription {
+
+        private final AssetFeed feed;
+        private final SseEmitter emitter;
+        private final Deque<StreamMessage> pending = new ArrayDeque<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private boolean resync = true;
+        private long overflows;
+        private volatile boolean closed;
+
+        Subscription(AssetFeed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(StreamMessage message) {
+            if (closed) {
+                return;
+            }
+            if (pending.size() >= sendBufferSize) {
+                pending.clear();
+                resync = true;
+                overflows++;
+            }
+            pending.add(message);
+            scheduleFlush();
+        }
+
+        void scheduleFlush() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                execute(this::flush, flushScheduled);
+            }
+        }
+
+        void close() {
+            closed = true;
+            feed.subscribers.remove(this);
+        }
+
+        private void flush() {
+            try {
+                for (StreamMessage message; (message = next()) != null; ) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(message.sequence()))
+                            .name(EVENT_NAME)
+                            .data(message.payload()));
+                }
+            } catch (Exception e) {
+                log.debug("Closing market data stream for asset {}: {}", feed.assetName, e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * Next message to send, or {@code null} once the buffer is drained. A subscriber that
+         * overflowed gets a snapshot and only the updates sequenced after it.
+         */
+        private StreamMessage next() {
+            while (!closed) {
+                long overflowsBefore;
+                synchronized (this) {
+                    if (!resync) {
+                        StreamMessage message = pending.poll();
+                        if (message == null) {
+                            flushScheduled.set(false);
+                        }
+                        return message;
+                    }
+                    overflowsBefore = overflows;
+                }
+
+                StreamMessage snapshot = feed.snapshot();
+                synchronized (this) {
+                    if (overflows == overflowsBefore) {
+                        pending.removeIf(message -> message.sequence() <= snapshot.sequence());
+                        resync = false;
+                        return snapshot;
+                    }
+                }
+            }
+            flushScheduled.set(false);
+            return null;
+        }
+    }
+}
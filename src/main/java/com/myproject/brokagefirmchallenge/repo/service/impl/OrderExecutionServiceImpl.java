@@ -0,0 +1,209 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.engine.ExpiredOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.engine.TradeListener;
+import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.entity.OrderExecution;
+import com.myproject.brokagefirmchallenge.repo.enumtype.AuditAction;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.publisher.EventPublisher;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderExecutionRepository;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
+import com.myproject.brokagefirmchallenge.repo.service.AssetService;
+import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderExecutionService;
+import com.myproject.brokagefirmchallenge.repo.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderExecutionServiceImpl implements OrderExecutionService, TradeListener {
+
+    private static final String TRY_ASSET = "TRY";
+
+    private final OrderRepository orderRepository;
+    private final OrderExecutionRepository orderExecutionRepository;
+    private final SettlementService settlementService;
+    private final AuditService auditService;
+    private final EventPublisher eventPublisher;
+    private final AssetService assetService;
+
+    @Override
+    public void onTrades(List<MatchResult> trades) {
+        persistMatches(trades);
+    }
+
+    @Override
+    public void onExpired(List<ExpiredOrder> orders) {
+        expireOrders(orders);
+    }
+
+    @Override
+    public void onStopsTriggered(List<Long> orderIds) {
+        markStopsTriggered(orderIds);
+    }
+
+    /**
+     * Persists one engine batch in a single transaction: one select for the touched orders,
+     * one JDBC batch each for the execution and audit rows, one Hibernate batch for the order
+     * updates and the netted balance settlement.
+     */
+    @Override
+    public void persistMatches(List<MatchResult> matches) {
+        log.debug("Persisting {} matches", matches.size());
+
+        Map<Long, Order> orders = loadOrders(matches);
+        List<OrderExecution> executions = new ArrayList<>(matches.size() * 2);
+        List<AuditLog> auditLogs = new ArrayList<>(matches.size() * 2);
+        LocalDateTime executionDate = LocalDateTime.now();
+
+        for (MatchResult match : matches) {
+            applyFill(orders.get(match.buyOrderId()), match, executionDate, executions, auditLogs);
+            applyFill(orders.get(match.sellOrderId()), match, executionDate, executions, auditLogs);
+        }
+
+        orderExecutionRepository.batchInsert(executions);
+        auditService.auditOrderActions(auditLogs);
+        orderRepository.saveAll(orders.values());
+        settlementService.settle(matches, orders);
+    }
+
+    /**
+     * Cancels orders the engine dropped, including those their owners canceled, and releases
+     * the balance they still had blocked: TRY at the order's limit price for a buy, the asset
+     * for a sell.
+     */
+    @Override
+    public void expireOrders(List<ExpiredOrder> expiredOrders) {
+        log.debug("Expiring {} orders dropped by the matching engine", expiredOrders.size());
+
+        Map<Long, Order> orders = loadOrders(expiredOrders.stream().map(ExpiredOrder::orderId).toList());
+        List<AuditLog> auditLogs = new ArrayList<>(expiredOrders.size());
+
+        for (ExpiredOrder expired : expiredOrders) {
+            Order order = orders.get(expired.orderId());
+            if (order == null) {
+                log.warn("Expired order {} not found for asset: {}", expired.orderId(), expired.assetName());
+                continue;
+            }
+
+            if (order.getOrderSide() == OrderSide.BUY) {
+                assetService.releaseAsset(order.getCustomerId(), TRY_ASSET,
+                        expired.remainingSize().multiply(order.getPrice()));
+            } else {
+                assetService.releaseAsset(order.getCustomerId(), order.getAssetName(), expired.remainingSize());
+            }
+
+            String reason = expired.reason().getDescription();
+            order.setStatus(OrderStatus.CANCELED);
+            order.setCancelReason(reason);
+
+            auditLogs.add(auditService.orderActionLog(order.getId(), AuditAction.ORDER_CANCELED, reason));
+            eventPublisher.publishOrderCanceled(order, reason);
+        }
+
+        orderRepository.saveAll(orders.values());
+        auditService.auditOrderActions(auditLogs);
+    }
+
+    @Override
+    public void markStopsTriggered(List<Long> orderIds) {
+        log.debug("Marking {} stop orders as triggered", orderIds.size());
+
+        Collection<Order> orders = loadOrders(orderIds).values();
+        orders.forEach(Order::markStopTriggered);
+        orderRepository.saveAll(orders);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rejectOrder(ExpiredOrder order) {
+        expireOrders(List.of(order));
+    }
+
+    private Map<Long, Order> loadOrders(List<MatchResult> matches) {
+        return loadOrders(matches.stream()
+                .flatMap(match -> Stream.of(match.buyOrderId(), match.sellOrderId()))
+                .distinct()
+                .toList());
+    }
+
+    private Map<Long, Order> loadOrders(Collection<Long> orderIds) {
+        return orderRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+    }
+
+    private void applyFill(Order order, MatchResult match, LocalDateTime executionDate,
+                           List<OrderExecution> executions, List<AuditLog> auditLogs) {
+        if (order == null) {
+            log.warn("Matched order not found while persisting fill for asset: {}", match.assetName());
+            return;
+        }
+
+        BigDecimal previousExecuted = order.getExecutedSize() == null ? BigDecimal.ZERO : order.getExecutedSize();
+        BigDecimal executedSize = previousExecuted.add(match.size());
+
+        order.setAverageExecutionPrice(averagePrice(order, previousExecuted, executedSize, match));
+        order.setExecutedSize(executedSize);
+        order.setRemainingSize(order.getSize().subtract(executedSize));
+
+        boolean fullyMatched = order.getRemainingSize().signum() <= 0;
+        order.setStatus(fullyMatched ? OrderStatus.MATCHED : OrderStatus.PARTIALLY_MATCHED);
+
+        auditLogs.add(auditService.orderActionLog(order.getId(),
+                fullyMatched ? AuditAction.ORDER_MATCHED : AuditAction.ORDER_PARTIALLY_MATCHED,
+                String.format("Order matched - %s %s @ %s", match.size(), match.assetName(), match.price())));
+
+        Long counterpartyId = order.getId().equals(match.buyOrderId()) ? match.sellOrderId() : match.buyOrderId();
+        executions.add(toExecution(order.getId(), counterpartyId, match, executionDate));
+        eventPublisher.publishOrderMatched(order, counterpartyId, match.size(), match.price(), fullyMatched);
+    }
+
+    private OrderExecution toExecution(Long orderId, Long counterpartyId, MatchResult match,
+                                       LocalDateTime executionDate) {
+        return OrderExecution.builder()
+                .orderId(orderId)
+                .matchingOrderId(counterpartyId)
+                .executionPrice(match.price())
+                .executionSize(match.size())
+                .executionDate(executionDate)
+                .buyOrderId(match.buyOrderId())
+                .sellOrderId(match.sellOrderId())
+                .buyCustomerId(match.buyCustomerId())
+                .sellCustomerId(match.sellCustomerId())
+                .commissionAmount(BigDecimal.ZERO)
+                .executionValue(match.price().multiply(match.size()).setScale(4, RoundingMode.HALF_UP))
+                .build();
+    }
+
+    private BigDecimal averagePrice(Order order, BigDecimal previousExecuted,
+                                    BigDecimal executedSize, MatchResult match) {
+        if (order.getAverageExecutionPrice() == null || previousExecuted.signum() == 0) {
+            return match.price();
+        }
+
+        return order.getAverageExecutionPrice().multiply(previousExecuted)
+                .add(match.price().multiply(match.size()))
+                .divide(executedSize, 4, RoundingMode.HALF_UP);
+    }
+}
@@ -1,7 +1,15 @@
 package com.myproject.brokagefirmchallenge.repo.service.impl;
 
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchOutcome;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchingEngine;
+import com.myproject.brokagefirmchallenge.repo.engine.OrderBook;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
-import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.MatchingMode;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ConcurrencyException;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderExecutionRepository;
 import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
 import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
 import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
@@ -10,150 +18,236 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class OrderMatchingServiceImpl implements OrderMatchingService {
 
     private final OrderRepository orderRepository;
+    private final OrderExecutionRepository orderExecutionRepository;
     private final PricingStrategyFactory pricingStrategyFactory;
+    private final MatchingEngine matchingEngine;
 
-    @Value("${order.matching.strategy:taker}")
-    private String defaultStrategyName;
+    private static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_MATCHED);
 
-    private final Map<String, NavigableMap<BigDecimal, Queue<Order>>> buyOrderBooks = new ConcurrentHashMap<>();
-    private final Map<String, NavigableMap<BigDecimal, Queue<Order>>> sellOrderBooks = new ConcurrentHashMap<>();
-
-    private record MatchResult(Order buyOrder, Order sellOrder, BigDecimal size, BigDecimal price) {}
+    @Value("${order.matching.mode:CONTINUOUS}")
+    private MatchingMode matchingMode;
 
     @PostConstruct
     public void initializeOrderBooks() {
-        log.info("Initializing order books");
-        orderRepository.findAll().stream()
-                .filter(order -> order.getStatus().isActive())
-                .forEach(this::addOrderToBook);
+        if (matchingEngine.isRecovered()) {
+            log.info("Order books restored from engine snapshot and journal");
+            armStopOrders(orderRepository.findStopOrdersByStatusIn(ACTIVE_STATUSES).stream()
+                    .filter(Order::isDormantStop)
+                    .toList());
+            submitUnjournaledOrders();
+        } else {
+            log.info("Initializing order books from active orders");
+            List<Order> stopOrders = new ArrayList<>();
+            List<Order> immediateOrders = new ArrayList<>();
+            orderRepository.findByStatusIn(ACTIVE_STATUSES).forEach(order -> {
+                if (order.isDormantStop()) {
+                    stopOrders.add(order);
+                } else if (order.getTimeInForce().isImmediate()) {
+                    immediateOrders.add(order);
+                } else {
+                    addOrderToBook(order);
+                }
+            });
+            armStopOrders(stopOrders);
+            // Immediate orders that never reached the engine before shutdown get their one
+            // chance against the restored book; whatever they cannot fill expires as usual
+            immediateOrders.forEach(order -> MatchingEngine.await(matchingEngine.placeOrder(order)));
+        }
+
+        if (matchingMode.isContinuous()) {
+            matchAllPendingOrders();
+        }
+    }
+
+    /**
+     * Brings in the orders whose rows committed but whose submission never reached the journal
+     * before a crash. Only pending limit orders qualify: anything partially matched or
+     * triggered from a stop went through the engine, and its absence from the restored book
+     * means it was filled or canceled there. Missing GTC orders rest again and missing
+     * immediate orders get their one chance against the book, as on a cold start.
+     */
+    private void submitUnjournaledOrders() {
+        Map<String, List<Order>> pendingByAsset = orderRepository.findByStatusIn(EnumSet.of(OrderStatus.PENDING)).stream()
+                .filter(order -> order.stopTriggerPrice() == null)
+                .collect(Collectors.groupingBy(Order::getAssetName));
+
+        List<Order> immediateOrders = new ArrayList<>();
+        pendingByAsset.forEach((assetName, orders) -> {
+            Set<Long> resting = MatchingEngine.await(matchingEngine.inspect(assetName, book -> orders.stream()
+                    .map(Order::getId)
+                    .filter(orderId -> book.remainingLots(orderId) > 0)
+                    .collect(Collectors.toSet())));
+            for (Order order : orders) {
+                if (resting.contains(order.getId())) {
+                    continue;
+                }
+                log.warn("Order {} is pending but missing from the restored {} book, submitting it again",
+                        order.getId(), assetName);
+                if (order.getTimeInForce().isImmediate()) {
+                    immediateOrders.add(order);
+                } else {
+                    addOrderToBook(order);
+                }
+            }
+        });
+        immediateOrders.forEach(order -> MatchingEngine.await(matchingEngine.placeOrder(order)));
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void matchOrders(String assetName) {
         log.info("Starting order matching for asset: {}", assetName);
 
-        var buyBook = getBuyOrderBookForAsset(assetName);
-        var sellBook = getSellOrderBookForAsset(assetName);
-
-        int matchCount = 0;
-        MatchResult match;
-        while ((match = tryMatchTopOrders(buyBook, sellBook)) != null) {
-            processMatch(match);
-            matchCount++;
-        }
+        MatchOutcome outcome = MatchingEngine.await(matchingEngine.matchOrders(assetName));
 
-        log.info("Order matching completed for asset: {}. Matches: {}", assetName, matchCount);
+        log.info("Order matching completed for asset: {}. Matches: {}", assetName, outcome.matchCount());
     }
 
+    @Override
+    public List<MatchOutcome> matchAllPendingOrders() {
+        List<CompletableFuture<MatchOutcome>> outcomes = matchingEngine.getAssetNames().stream()
+                .sorted()
+                .map(this::submitMatch)
+                .toList();
+
+        List<MatchOutcome> report = outcomes.stream().map(CompletableFuture::join).toList();
+        log.info("Order matching completed for {} assets. Matches: {}",
+                report.size(), report.stream().mapToInt(MatchOutcome::matchCount).sum());
+        return report;
+    }
 
-    private MatchResult tryMatchTopOrders(NavigableMap<BigDecimal, Queue<Order>> buyBook,
-                                          NavigableMap<BigDecimal, Queue<Order>> sellBook) {
-        return Optional.ofNullable(buyBook.firstEntry())
-                .flatMap(buyEntry -> Optional.ofNullable(sellBook.firstEntry())
-                        .flatMap(sellEntry -> createMatchResult(buyEntry, sellEntry)))
-                .orElse(null);
+    /**
+     * Bounds each asset's pass by {@link MatchingEngine#AWAIT_TIMEOUT_MILLIS}, so a stalled shard
+     * is reported as a failed outcome for its assets instead of blocking the whole run.
+     */
+    private CompletableFuture<MatchOutcome> submitMatch(String assetName) {
+        try {
+            return matchingEngine.matchOrders(assetName)
+                    .orTimeout(MatchingEngine.AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .exceptionally(error -> failedMatch(assetName, error));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failedMatch(assetName, e));
+        }
     }
 
-    private Optional<MatchResult> createMatchResult(Map.Entry<BigDecimal, Queue<Order>> buyEntry,
-                                                    Map.Entry<BigDecimal, Queue<Order>> sellEntry) {
-        return Optional.ofNullable(buyEntry.getValue().peek())
-                .flatMap(buyOrder -> Optional.ofNullable(sellEntry.getValue().peek())
-                        .filter(sellOrder -> canMatch(buyOrder, sellOrder))
-                        .map(sellOrder -> new MatchResult(
-                                buyOrder,
-                                sellOrder,
-                                calculateMatchSize(buyOrder, sellOrder),
-                                calculateMatchPrice(buyOrder, sellOrder)
-                        )));
+    private MatchOutcome failedMatch(String assetName, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            cause = new ConcurrencyException(
+                    "Matching engine did not respond within " + MatchingEngine.AWAIT_TIMEOUT_MILLIS + " ms", cause);
+        }
+        log.error("Error matching orders for asset: {}", assetName, cause);
+        return MatchOutcome.failed(assetName, cause);
     }
 
-    private void processMatch(MatchResult match) {
-        updateOrderInBook(match.buyOrder, buyOrderBooks);
-        updateOrderInBook(match.sellOrder, sellOrderBooks);
+    @Override
+    public boolean canMatch(Order buyOrder, Order sellOrder) {
+        return strategyFor(buyOrder.getAssetName()).canMatch(buyOrder, sellOrder);
+    }
 
+    @Override
+    public BigDecimal calculateMatchSize(Order buyOrder, Order sellOrder) {
+        return buyOrder.getRemainingSize().min(sellOrder.getRemainingSize());
     }
 
-    private void updateOrderInBook(Order order, Map<String, NavigableMap<BigDecimal, Queue<Order>>> orderBooks) {
-        orderBooks.get(order.getAssetName())
-                .computeIfPresent(order.getPrice(), (price, queue) -> {
-                    if (order.getRemainingSize().compareTo(BigDecimal.ZERO) == 0) {
-                        queue.poll();
-                    }
-                    return queue.isEmpty() ? null : queue;
-                });
+    @Override
+    public BigDecimal calculateMatchPrice(Order buyOrder, Order sellOrder) {
+        return strategyFor(buyOrder.getAssetName()).calculateExecutionPrice(buyOrder, sellOrder);
     }
 
     @Override
-    public void matchAllPendingOrders() {
-        Stream.concat(buyOrderBooks.keySet().stream(), sellOrderBooks.keySet().stream())
-                .distinct()
-                .forEach(asset -> {
-                    try {
-                        matchOrders(asset);
-                    } catch (Exception e) {
-                        log.error("Error matching orders for asset: {}", asset, e);
-                    }
-                });
+    public void addOrderToBook(Order order) {
+        log.debug("Adding order {} to order book", order.getId());
+
+        MatchingEngine.await(matchingEngine.addOrder(order));
     }
 
     @Override
-    public boolean canMatch(Order buyOrder, Order sellOrder) {
-        return getStrategy().canMatch(buyOrder, sellOrder);
+    public CompletableFuture<Integer> submitOrder(Order order) {
+        log.debug("Submitting order {} to order book in {} mode", order.getId(), matchingMode);
+
+        if (!matchingMode.isContinuous() && !order.getTimeInForce().isImmediate()) {
+            return matchingEngine.addOrder(order).thenApply(ignored -> 0);
+        }
+
+        return matchingEngine.placeOrder(order);
     }
 
     @Override
-    public BigDecimal calculateMatchSize(Order buyOrder, Order sellOrder) {
-        return buyOrder.getRemainingSize().min(sellOrder.getRemainingSize());
+    public CompletableFuture<Void> submitStopOrder(Order order, BigDecimal triggerPrice) {
+        log.debug("Arming stop order {} at trigger price {}", order.getId(), triggerPrice);
+
+        return matchingEngine.addStopOrder(order, triggerPrice);
     }
 
     @Override
-    public BigDecimal calculateMatchPrice(Order buyOrder, Order sellOrder) {
-        return getStrategy().calculateExecutionPrice(buyOrder, sellOrder);
+    public Optional<BigDecimal> cancelOrder(Order order) {
+        log.debug("Canceling order {} in the matching engine", order.getId());
+
+        return MatchingEngine.await(matchingEngine.cancelRemainder(order.getAssetName(), order.getId()));
     }
 
     @Override
-    public void addOrderToBook(Order order) {
-        log.debug("Adding order {} to order book", order.getId());
+    public String switchPricingStrategy(String assetName, String strategyName) {
+        PricingStrategy strategy = pricingStrategyFactory.getRequiredStrategy(strategyName);
 
-        getOrderBook(order).computeIfAbsent(order.getPrice(), k -> new LinkedList<>())
-                .offer(order);
+        PricingStrategy previous = MatchingEngine.await(matchingEngine.switchStrategy(assetName, strategy));
+        if (previous == null) {
+            throw new ValidationException("No order book for asset: " + assetName);
+        }
+
+        String previousName = pricingStrategyFactory.getStrategyName(previous);
+        log.info("Pricing strategy for asset {} switched from {} to {}", assetName, previousName, strategyName);
+        return previousName;
     }
 
-    private NavigableMap<BigDecimal, Queue<Order>> getOrderBook(Order order) {
-        return order.getOrderSide() == OrderSide.BUY
-                ? getBuyOrderBookForAsset(order.getAssetName())
-                : getSellOrderBookForAsset(order.getAssetName());
+    @Override
+    public MarketDepth getMarketDepth(String assetName, int levels) {
+        return matchingEngine.getMarketDepth(assetName).top(levels);
     }
 
-    private NavigableMap<BigDecimal, Queue<Order>> getBuyOrderBookForAsset(String assetName) {
-        return buyOrderBooks.computeIfAbsent(assetName,
-                k -> new ConcurrentSkipListMap<>(Collections.reverseOrder()));
+    /**
+     * Dormant stops are not part of the engine snapshot, so they are re-armed from the database
+     * on every start. Those triggered before the restart are marked as such once persisted; the
+     * engine also skips any that are already resting in a recovered book, in case the marker
+     * had not been written yet. Each asset's last persisted execution price stands in for the
+     * last trade, so a stop the market already moved through fires on arming.
+     */
+    private void armStopOrders(List<Order> stopOrders) {
+        Map<String, Optional<BigDecimal>> lastPrices = new HashMap<>();
+        for (Order order : stopOrders) {
+            BigDecimal lastPrice = lastPrices.computeIfAbsent(order.getAssetName(), this::lastExecutionPrice).orElse(null);
+            MatchingEngine.await(matchingEngine.addStopOrder(order, order.stopTriggerPrice(), lastPrice));
+        }
     }
 
-    private NavigableMap<BigDecimal, Queue<Order>> getSellOrderBookForAsset(String assetName) {
-        return sellOrderBooks.computeIfAbsent(assetName,
-                k -> new ConcurrentSkipListMap<>());
+    private Optional<BigDecimal> lastExecutionPrice(String assetName) {
+        return orderExecutionRepository.findExecutionPricesByAssetName(assetName, Limit.of(1)).stream().findFirst();
     }
 
-    private PricingStrategy getStrategy() {
-        return pricingStrategyFactory.getStrategy(defaultStrategyName);
+    private PricingStrategy strategyFor(String assetName) {
+        return MatchingEngine.await(matchingEngine.inspect(assetName, OrderBook::getPricingStrategy));
     }
-}
\ No newline at end of file
+}
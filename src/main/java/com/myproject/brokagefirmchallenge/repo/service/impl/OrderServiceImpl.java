@@ -1,7 +1,9 @@
 package com.myproject.brokagefirmchallenge.repo.service.impl;
 
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 import com.myproject.brokagefirmchallenge.repo.enumtype.AuditAction;
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
 import com.myproject.brokagefirmchallenge.repo.exceptions.*;
@@ -9,6 +11,7 @@ import com.myproject.brokagefirmchallenge.repo.publisher.EventPublisher;
 import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
 import com.myproject.brokagefirmchallenge.repo.service.AssetService;
 import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
 import com.myproject.brokagefirmchallenge.repo.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +23,7 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.Optional;
 
 @Service
@@ -32,6 +36,7 @@ public class OrderServiceImpl implements OrderService {
     private final AssetService assetService;
     private final AuditService auditService;
     private final EventPublisher eventPublisher;
+    private final OrderMatchingService orderMatchingService;
 
     private static final String TRY_ASSET = "TRY";
     private static final BigDecimal MIN_ORDER_SIZE = new BigDecimal("0.0001");
@@ -78,34 +83,58 @@ public class OrderServiceImpl implements OrderService {
     }
 
 
+    /**
+     * Cancels the order in the matching engine, which alone knows how much of it is left. The
+     * row, the released balance, the audit entry and the event follow in the engine's
+     * persistence stage, after any fill that reached the order first, so nothing here locks
+     * the order or the customer's assets.
+     *
+     * @return a detached view of the order as canceled, with the size the engine canceled as
+     * its remaining size
+     */
     @Override
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
     public Order cancelOrder(Long orderId, Long customerId) {
         log.info("Canceling order ID: {} for customer: {}", orderId, customerId);
 
-        Order order = getOrderForUpdateOrThrow(orderId);
+        Order order = getOrderOrThrow(orderId);
 
         validateOrderCancelAuthorization(order, customerId);
         validateOrderIsCancelable(order);
 
-        releaseOrderAssets(order);
-
-        order.setStatus(OrderStatus.CANCELED);
-        order.setCancelReason("Canceled by user");
-        Order canceledOrder = orderRepository.save(order);
-
-        auditOrderCancellation(orderId);
-        eventPublisher.publishOrderCanceled(canceledOrder, "Canceled by user");
-        log.info("Order canceled successfully: {}", orderId);
+        BigDecimal canceledSize = orderMatchingService.cancelOrder(order)
+                .orElseThrow(() -> new InvalidOrderStateException(
+                        "Order is no longer resting in the order book: " + orderId));
+        log.info("Order canceled successfully: {}, remaining size: {}", orderId, canceledSize);
 
-        return canceledOrder;
+        return toCanceledOrder(order, canceledSize);
     }
 
-    private Order getOrderForUpdateOrThrow(Long orderId) {
-        return orderRepository.findByIdForUpdate(orderId)
+    private Order getOrderOrThrow(Long orderId) {
+        return orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
     }
 
+    private Order toCanceledOrder(Order order, BigDecimal canceledSize) {
+        return Order.builder()
+                .id(order.getId())
+                .createdDate(order.getCreatedDate())
+                .updatedDate(order.getUpdatedDate())
+                .customerId(order.getCustomerId())
+                .assetName(order.getAssetName())
+                .orderSide(order.getOrderSide())
+                .size(order.getSize())
+                .price(order.getPrice())
+                .status(OrderStatus.CANCELED)
+                .timeInForce(order.getTimeInForce())
+                .executedSize(order.getSize().subtract(canceledSize))
+                .remainingSize(canceledSize)
+                .totalAmount(order.getTotalAmount())
+                .averageExecutionPrice(order.getAverageExecutionPrice())
+                .cancelReason(ExpiryReason.USER_CANCELED.getDescription())
+                .metadata(new HashMap<>(order.getMetadata()))
+                .build();
+    }
+
     private void validateOrderCancelAuthorization(Order order, Long customerId) {
         if (!order.getCustomerId().equals(customerId)) {
             throw new UnauthorizedAccessException("Order does not belong to customer: " + customerId);
@@ -118,20 +147,6 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
-    private void releaseOrderAssets(Order order) {
-        BigDecimal amountToRelease = order.getRemainingSize();
-        if (order.getOrderSide() == OrderSide.BUY) {
-            BigDecimal tryToRelease = calculateOrderValue(amountToRelease, order.getPrice());
-            assetService.releaseAsset(order.getCustomerId(), TRY_ASSET, tryToRelease);
-        } else {
-            assetService.releaseAsset(order.getCustomerId(), order.getAssetName(), amountToRelease);
-        }
-    }
-
-    private void auditOrderCancellation(Long orderId) {
-        auditService.auditOrderAction(orderId, AuditAction.ORDER_CANCELED, "Order canceled by user");
-    }
-
 
     @Override
     @Transactional(readOnly = true)
@@ -170,11 +185,15 @@ public class OrderServiceImpl implements OrderService {
     private void validateOrderSize(BigDecimal size) {
         if (size.compareTo(MIN_ORDER_SIZE) < 0)
             throw new InvalidOrderException("Order size must be at least " + MIN_ORDER_SIZE);
+        if (!FixedPoint.isRepresentable(size))
+            throw new InvalidOrderException("Order size must have at most " + FixedPoint.SCALE + " decimal places");
     }
 
     private void validateOrderPrice(BigDecimal price) {
         if (price.compareTo(MIN_ORDER_PRICE) < 0)
             throw new InvalidOrderException("Order price must be at least " + MIN_ORDER_PRICE);
+        if (!FixedPoint.isRepresentable(price))
+            throw new InvalidOrderException("Order price must have at most " + FixedPoint.SCALE + " decimal places");
     }
 
     private void validateAssetName(String assetName) {
@@ -0,0 +1,110 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.entity.Asset;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.repository.AssetRepository;
+import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import com.myproject.brokagefirmchallenge.repo.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class SettlementServiceImpl implements SettlementService {
+
+    private static final String TRY_ASSET = "TRY";
+
+    /** Lock order for asset rows; every settlement acquires rows in this order. */
+    private static final Comparator<BalanceKey> LOCK_ORDER = Comparator
+            .comparingLong(BalanceKey::customerId)
+            .thenComparing(BalanceKey::assetName);
+
+    private final AssetRepository assetRepository;
+    private final AuditService auditService;
+
+    @Override
+    public void settle(List<MatchResult> matches, Map<Long, Order> orders) {
+        Map<BalanceKey, BalanceDelta> deltas = net(matches, orders);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        log.debug("Settling {} fills as {} balance updates", matches.size(), deltas.size());
+
+        List<Asset> updated = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> updated.add(apply(key, delta)));
+        assetRepository.saveAll(updated);
+    }
+
+    private Map<BalanceKey, BalanceDelta> net(List<MatchResult> matches, Map<Long, Order> orders) {
+        Map<BalanceKey, BalanceDelta> deltas = new TreeMap<>(LOCK_ORDER);
+
+        for (MatchResult match : matches) {
+            Order buyOrder = orders.get(match.buyOrderId());
+            if (buyOrder == null || !orders.containsKey(match.sellOrderId())) {
+                log.warn("Skipping settlement of fill {} / {} for asset {}: order not found",
+                        match.buyOrderId(), match.sellOrderId(), match.assetName());
+                continue;
+            }
+
+            BigDecimal size = match.size();
+            BigDecimal value = size.multiply(match.price());
+            // The buyer blocked TRY at its limit price; any price improvement is released
+            BigDecimal priceImprovement = size.multiply(buyOrder.getPrice().subtract(match.price()));
+
+            deltas.computeIfAbsent(new BalanceKey(match.buyCustomerId(), TRY_ASSET), key -> new BalanceDelta())
+                    .add(value.negate(), priceImprovement);
+            deltas.computeIfAbsent(new BalanceKey(match.buyCustomerId(), match.assetName()), key -> new BalanceDelta())
+                    .add(size, size);
+            deltas.computeIfAbsent(new BalanceKey(match.sellCustomerId(), match.assetName()), key -> new BalanceDelta())
+                    .add(size.negate(), BigDecimal.ZERO);
+            deltas.computeIfAbsent(new BalanceKey(match.sellCustomerId(), TRY_ASSET), key -> new BalanceDelta())
+                    .add(value, value);
+        }
+
+        return deltas;
+    }
+
+    private Asset apply(BalanceKey key, BalanceDelta delta) {
+        Asset asset = assetRepository.findByCustomerIdAndAssetNameForUpdate(key.customerId(), key.assetName())
+                .orElseGet(() -> Asset.builder()
+                        .customerId(key.customerId())
+                        .assetName(key.assetName())
+                        .size(BigDecimal.ZERO)
+                        .usableSize(BigDecimal.ZERO)
+                        .averageCost(BigDecimal.ZERO)
+                        .build());
+
+        BigDecimal oldSize = asset.getSize();
+        asset.setSize(oldSize.add(delta.size));
+        asset.setUsableSize(asset.getUsableSize().add(delta.usableSize));
+
+        auditService.auditBalanceChange(key.customerId(), key.assetName(), oldSize, asset.getSize(),
+                "Trade settlement");
+        return asset;
+    }
+
+    private record BalanceKey(long customerId, String assetName) {}
+
+    private static final class BalanceDelta {
+        private BigDecimal size = BigDecimal.ZERO;
+        private BigDecimal usableSize = BigDecimal.ZERO;
+
+        void add(BigDecimal sizeChange, BigDecimal usableSizeChange) {
+            size = size.add(sizeChange);
+            usableSize = usableSize.add(usableSizeChange);
+        }
+    }
+}
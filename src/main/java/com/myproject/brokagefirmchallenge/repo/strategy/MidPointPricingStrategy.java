@@ -1,6 +1,6 @@
 package com.myproject.brokagefirmchallenge.repo.strategy;
 
-import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -10,18 +10,15 @@ import java.math.RoundingMode;
 public class MidPointPricingStrategy implements PricingStrategy {
 
     @Override
-    public BigDecimal calculateExecutionPrice(Order buyOrder, Order sellOrder) {
-        return buyOrder.getPrice()
-                .add(sellOrder.getPrice())
-                .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
-    }
-
-    @Override
-    public boolean canMatch(Order buyOrder, Order sellOrder) {
-        return buyOrder.getPrice().compareTo(sellOrder.getPrice()) >= 0 &&
-                buyOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
-                sellOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
-                buyOrder.getAssetName().equals(sellOrder.getAssetName()) &&
-                !buyOrder.getCustomerId().equals(sellOrder.getCustomerId());
+    public long calculateExecutionPrice(long makerPriceTicks, long makerRemainingLots,
+                                        long takerPriceTicks, long takerRemainingLots) {
+        try {
+            long sum = Math.addExact(makerPriceTicks, takerPriceTicks);
+            return FixedPoint.divideHalfUp(sum, 2 * FixedPoint.CENT_TICKS) * FixedPoint.CENT_TICKS;
+        } catch (ArithmeticException e) {
+            return FixedPoint.roundToCents(FixedPoint.toBigDecimal(makerPriceTicks)
+                    .add(FixedPoint.toBigDecimal(takerPriceTicks))
+                    .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP));
+        }
     }
 }
@@ -1,12 +1,44 @@
 package com.myproject.brokagefirmchallenge.repo.strategy;
 
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
 
 import java.math.BigDecimal;
 
+/**
+ * Prices and sizes are fixed-point ticks and lots (see {@link FixedPoint}). The order-based
+ * overloads convert at the boundary and exist for callers outside the engine.
+ * <p>
+ * A fill is priced from its maker, the order that was resting first, and its taker, whichever
+ * side each is on: a market sell that crosses a resting bid must not trade at its own collar.
+ */
 public interface PricingStrategy {
 
-    BigDecimal calculateExecutionPrice(Order buyOrder, Order sellOrder);
+    long calculateExecutionPrice(long makerPriceTicks, long makerRemainingLots,
+                                 long takerPriceTicks, long takerRemainingLots);
 
-    boolean canMatch(Order buyOrder, Order sellOrder);
+    default boolean canMatch(long buyPriceTicks, long sellPriceTicks) {
+        return buyPriceTicks >= sellPriceTicks;
+    }
+
+    /**
+     * Outside the engine there is no arrival sequence, so the order with the lower id, the one
+     * placed first, is taken as the maker.
+     */
+    default BigDecimal calculateExecutionPrice(Order buyOrder, Order sellOrder) {
+        boolean buyMakes = buyOrder.getId() < sellOrder.getId();
+        Order maker = buyMakes ? buyOrder : sellOrder;
+        Order taker = buyMakes ? sellOrder : buyOrder;
+        return FixedPoint.toBigDecimal(calculateExecutionPrice(
+                FixedPoint.toTicks(maker.getPrice()), FixedPoint.toTicks(maker.getRemainingSize()),
+                FixedPoint.toTicks(taker.getPrice()), FixedPoint.toTicks(taker.getRemainingSize())));
+    }
+
+    default boolean canMatch(Order buyOrder, Order sellOrder) {
+        return buyOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
+                sellOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
+                buyOrder.getAssetName().equals(sellOrder.getAssetName()) &&
+                !buyOrder.getCustomerId().equals(sellOrder.getCustomerId()) &&
+                canMatch(FixedPoint.toTicks(buyOrder.getPrice()), FixedPoint.toTicks(sellOrder.getPrice()));
+    }
 }
@@ -1,5 +1,6 @@
 package com.myproject.brokagefirmchallenge.repo.strategy;
 
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -9,10 +10,12 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class PricingStrategyFactory {
 
+    private static final String BEAN_SUFFIX = "PricingStrategy";
+
     private final Map<String, PricingStrategy> strategies;
 
     public PricingStrategy getStrategy(String strategyName) {
-        PricingStrategy strategy = strategies.get(strategyName + "PricingStrategy");
+        PricingStrategy strategy = strategies.get(strategyName + BEAN_SUFFIX);
 
         if (strategy == null) {
             return strategies.get("takerPricingStrategy");
@@ -20,4 +23,22 @@ public class PricingStrategyFactory {
 
         return strategy;
     }
+
+    public PricingStrategy getRequiredStrategy(String strategyName) {
+        PricingStrategy strategy = strategies.get(strategyName + BEAN_SUFFIX);
+
+        if (strategy == null) {
+            throw new ValidationException("Unknown pricing strategy: " + strategyName);
+        }
+
+        return strategy;
+    }
+
+    public String getStrategyName(PricingStrategy strategy) {
+        return strategies.entrySet().stream()
+                .filter(entry -> entry.getValue() == strategy)
+                .map(entry -> entry.getKey().substring(0, entry.getKey().length() - BEAN_SUFFIX.length()))
+                .findFirst()
+                .orElse(null);
+    }
 }
@@ -1,6 +1,6 @@
 package com.myproject.brokagefirmchallenge.repo.strategy;
 
-import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -10,24 +10,26 @@ import java.math.RoundingMode;
 public class WeightedAveragePricingStrategy implements PricingStrategy {
 
     @Override
-    public BigDecimal calculateExecutionPrice(Order buyOrder, Order sellOrder) {
-        BigDecimal buyWeight = buyOrder.getRemainingSize();
-        BigDecimal sellWeight = sellOrder.getRemainingSize();
-        BigDecimal totalWeight = buyWeight.add(sellWeight);
-
-        BigDecimal weightedBuyPrice = buyOrder.getPrice().multiply(buyWeight);
-        BigDecimal weightedSellPrice = sellOrder.getPrice().multiply(sellWeight);
-
-        return weightedBuyPrice.add(weightedSellPrice)
-                .divide(totalWeight, 2, RoundingMode.HALF_UP);
+    public long calculateExecutionPrice(long makerPriceTicks, long makerRemainingLots,
+                                        long takerPriceTicks, long takerRemainingLots) {
+        try {
+            long weightedSum = Math.addExact(
+                    Math.multiplyExact(makerPriceTicks, makerRemainingLots),
+                    Math.multiplyExact(takerPriceTicks, takerRemainingLots));
+            long divisor = Math.multiplyExact(Math.addExact(makerRemainingLots, takerRemainingLots), FixedPoint.CENT_TICKS);
+            return FixedPoint.divideHalfUp(weightedSum, divisor) * FixedPoint.CENT_TICKS;
+        } catch (ArithmeticException e) {
+            return slowPath(makerPriceTicks, makerRemainingLots, takerPriceTicks, takerRemainingLots);
+        }
     }
 
-    @Override
-    public boolean canMatch(Order buyOrder, Order sellOrder) {
-        return buyOrder.getPrice().compareTo(sellOrder.getPrice()) >= 0 &&
-                buyOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
-                sellOrder.getRemainingSize().compareTo(BigDecimal.ZERO) > 0 &&
-                buyOrder.getAssetName().equals(sellOrder.getAssetName()) &&
-                !buyOrder.getCustomerId().equals(sellOrder.getCustomerId());
+    private long slowPath(long makerPriceTicks, long makerRemainingLots,
+                          long takerPriceTicks, long takerRemainingLots) {
+        BigDecimal makerWeight = FixedPoint.toBigDecimal(makerRemainingLots);
+        BigDecimal takerWeight = FixedPoint.toBigDecimal(takerRemainingLots);
+
+        return FixedPoint.roundToCents(FixedPoint.toBigDecimal(makerPriceTicks).multiply(makerWeight)
+                .add(FixedPoint.toBigDecimal(takerPriceTicks).multiply(takerWeight))
+                .divide(makerWeight.add(takerWeight), 2, RoundingMode.HALF_UP));
     }
 }
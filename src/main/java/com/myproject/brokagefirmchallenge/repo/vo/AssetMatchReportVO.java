@@ -0,0 +1,17 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Builder
+public class AssetMatchReportVO extends BaseResponse {
+
+    private String assetName;
+    private Integer matchCount;
+    private Double durationMillis;
+    private boolean successful;
+    private String errorMessage;
+}
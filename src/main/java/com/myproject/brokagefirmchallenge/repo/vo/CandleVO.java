@@ -0,0 +1,22 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CandleVO implements Serializable {
+
+    private LocalDateTime openTime;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal volume;
+    private Long tradeCount;
+}
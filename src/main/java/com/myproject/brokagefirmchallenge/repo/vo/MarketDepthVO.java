@@ -0,0 +1,19 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Builder
+public class MarketDepthVO extends BaseResponse {
+
+    private String assetName;
+    private List<DepthLevelVO> bids;
+    private List<DepthLevelVO> asks;
+    private LocalDateTime lastUpdateDate;
+}
@@ -0,0 +1,21 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Builder
+public class MarketStatisticsVO extends BaseResponse {
+
+    private String assetName;
+    private BigDecimal lastPrice;
+    private BigDecimal vwap;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal volume;
+    private Long tradeCount;
+}
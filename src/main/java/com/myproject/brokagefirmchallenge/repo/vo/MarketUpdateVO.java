@@ -0,0 +1,31 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One message of the market data stream. A snapshot carries the full published depth; an
+ * update carries only the levels that changed since the previous sequence, removed levels
+ * having a size of zero, plus the trades printed in between.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MarketUpdateVO implements Serializable {
+
+    private String assetName;
+    private Long sequence;
+    private Boolean snapshot;
+    private DepthLevelVO bestBid;
+    private DepthLevelVO bestAsk;
+    private List<DepthLevelVO> bids;
+    private List<DepthLevelVO> asks;
+    private List<TradeVO> trades;
+    private LocalDateTime lastUpdateDate;
+}
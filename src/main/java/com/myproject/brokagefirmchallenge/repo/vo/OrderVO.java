@@ -2,6 +2,7 @@ package com.myproject.brokagefirmchallenge.repo.vo;
 
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -22,6 +23,7 @@ public class OrderVO extends BaseResponse {
     private BigDecimal price;
     private BigDecimal totalAmount;
     private OrderStatus status;
+    private TimeInForce timeInForce;
     private LocalDateTime createDate;
     private LocalDateTime updateDate;
     private BigDecimal executedSize;
@@ -0,0 +1,16 @@
+package com.myproject.brokagefirmchallenge.repo.vo;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TradeVO implements Serializable {
+
+    private BigDecimal price;
+    private BigDecimal size;
+}
@@ -0,0 +1,72 @@
+package com.myproject.brokagefirmchallenge.repo.candle;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CandleSeriesTest {
+
+    @Test
+    @DisplayName("should_record_tradeInNextInterval_closeBarAndHandItToFlush")
+    void should_record_tradeInNextInterval_closeBarAndHandItToFlush() {
+        // given
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_SECOND, 4);
+        series.record(1_000L, 100L, 1L);
+        series.record(1_500L, 120L, 2L);
+        // when
+        series.record(2_100L, 90L, 1L);
+        List<Candle> closed = series.drainClosed(2_200L);
+        // then
+        assertThat(closed).containsExactly(new Candle(1_000L, 100L, 120L, 100L, 120L, 3L, 2L));
+        assertThat(series.drainClosed(2_300L)).isEmpty();
+        assertThat(series.drainClosed(3_000L)).extracting(Candle::openTime).containsExactly(2_000L);
+    }
+
+    @Test
+    @DisplayName("should_range_fullRing_keepMostRecentBarsOldestFirst")
+    void should_range_fullRing_keepMostRecentBarsOldestFirst() {
+        // given
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_SECOND, 3);
+        for (long second = 1; second <= 6; second++) {
+            series.record(second * 1_000L, second, 1L);
+        }
+        // when
+        List<Candle> candles = series.range(0L, Long.MAX_VALUE, 10);
+        // then
+        assertThat(candles).extracting(Candle::openTime).containsExactly(3_000L, 4_000L, 5_000L, 6_000L);
+        assertThat(series.oldestOpenTime()).isEqualTo(3_000L);
+        assertThat(series.range(0L, 5_000L, 2)).extracting(Candle::openTime).containsExactly(4_000L, 5_000L);
+    }
+
+    @Test
+    @DisplayName("should_requeue_failedBars_drainThemAgainAheadOfNewerOnes")
+    void should_requeue_failedBars_drainThemAgainAheadOfNewerOnes() {
+        // given
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_SECOND, 4);
+        series.record(1_000L, 100L, 1L);
+        List<Candle> failed = series.drainClosed(2_000L);
+        series.record(2_100L, 90L, 1L);
+        // when
+        series.requeue(failed);
+        // then
+        assertThat(series.drainClosed(3_000L)).extracting(Candle::openTime).containsExactly(1_000L, 2_000L);
+    }
+
+    @Test
+    @DisplayName("should_resume_persistedOpenBar_extendItInsteadOfOpeningAnother")
+    void should_resume_persistedOpenBar_extendItInsteadOfOpeningAnother() {
+        // given
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_SECOND, 4);
+        series.resume(new Candle(1_000L, 100L, 120L, 100L, 120L, 3L, 2L));
+        // when
+        series.record(1_800L, 90L, 1L);
+        // then
+        assertThat(series.openBar()).isEqualTo(new Candle(1_000L, 100L, 120L, 90L, 90L, 4L, 3L));
+        assertThat(series.drainClosed(2_000L)).extracting(Candle::openTime).containsExactly(1_000L);
+        assertThat(series.openBar()).isNull();
+    }
+}
@@ -0,0 +1,108 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.TakerPricingStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LadderOrderBookTest {
+
+    private static final long TICK = FixedPoint.toTicks(new BigDecimal("0.01"));
+    private static final long LOT = FixedPoint.toTicks(BigDecimal.ONE);
+
+    private final PricingStrategy strategy = new TakerPricingStrategy();
+
+    @ParameterizedTest
+    @EnumSource(SelfTradePrevention.class)
+    @DisplayName("should_match_likeTheTreeBook_acrossLadderAndOverflowLevels")
+    void should_match_likeTheTreeBook_acrossLadderAndOverflowLevels(SelfTradePrevention selfTradePrevention) {
+        // given
+        OrderBook tree = new TreeMapOrderBook("BTC");
+        OrderBook ladder = new LadderOrderBook("BTC", TICK, 16);
+        tree.setSelfTradePrevention(selfTradePrevention);
+        ladder.setSelfTradePrevention(selfTradePrevention);
+        Random random = new Random(7);
+        List<Long> orderIds = new ArrayList<>();
+        List<MatchResult> treeFills = new ArrayList<>();
+        List<MatchResult> ladderFills = new ArrayList<>();
+        List<BookOrder> treeCanceled = new ArrayList<>();
+        List<BookOrder> ladderCanceled = new ArrayList<>();
+
+        // when
+        for (long orderId = 1; orderId <= 5_000; orderId++) {
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            long customerId = 1 + random.nextInt(3);
+            // Wider than the 16-slot window and partly off the tick grid, so overflow levels take part
+            long priceTicks = 10_000 * TICK + (random.nextInt(41) - 20) * TICK + (random.nextInt(8) == 0 ? TICK / 2 : 0);
+            long lots = (1 + random.nextInt(5)) * LOT;
+            BookOrder probe = new BookOrder(-orderId, customerId, side, priceTicks, lots);
+            assertThat(ladder.canFill(probe, strategy)).isEqualTo(tree.canFill(probe, strategy));
+            if (random.nextInt(10) < 7) {
+                tree.add(new BookOrder(orderId, customerId, side, priceTicks, lots));
+                ladder.add(new BookOrder(orderId, customerId, side, priceTicks, lots));
+                orderIds.add(orderId);
+            } else if (!orderIds.isEmpty()) {
+                long target = orderIds.remove(random.nextInt(orderIds.size()));
+                assertThat(ladder.cancel(target)).isEqualTo(tree.cancel(target));
+            }
+            if (random.nextInt(3) == 0) {
+                assertThat(ladder.match(strategy, ladderFills, ladderCanceled))
+                        .isEqualTo(tree.match(strategy, treeFills, treeCanceled));
+            }
+        }
+
+        // then
+        assertThat(ladderFills).isEqualTo(treeFills);
+        assertThat(ladderCanceled).extracting(BookOrder::getOrderId)
+                .isEqualTo(treeCanceled.stream().map(BookOrder::getOrderId).toList());
+        for (OrderSide side : OrderSide.values()) {
+            assertThat(restingOrders(ladder, side)).isEqualTo(restingOrders(tree, side));
+            assertThat(ladder.levelCount(side)).isEqualTo(tree.levelCount(side));
+        }
+        assertThat(ladder.depth(50, 0L)).isEqualTo(tree.depth(50, 0L));
+    }
+
+    @Test
+    @DisplayName("should_serveTheTouchFromTheLadder_whenPricesDriftPastTheWindow")
+    void should_serveTheTouchFromTheLadder_whenPricesDriftPastTheWindow() {
+        // given
+        LadderOrderBook ladder = new LadderOrderBook("BTC", TICK, 16);
+        long start = 10_000 * TICK;
+        int resting = 8;
+
+        // when / then
+        // Both sides walk up 200 ticks, far past the 16-slot window, keeping the last 8 levels
+        for (int step = 0; step < 200; step++) {
+            long bidTicks = start + step * TICK;
+            ladder.add(new BookOrder(2L * step + 1, 1L, OrderSide.BUY, bidTicks, LOT));
+            ladder.add(new BookOrder(2L * step + 2, 2L, OrderSide.SELL, bidTicks + 10 * TICK, LOT));
+            if (step >= resting) {
+                ladder.cancel(2L * (step - resting) + 1);
+                ladder.cancel(2L * (step - resting) + 2);
+            }
+
+            long oldestTicks = start + Math.max(0, step - resting + 1) * TICK;
+            assertThat(ladder.bestBid()).get().extracting(BookOrder::getPriceTicks).isEqualTo(bidTicks);
+            assertThat(ladder.bestAsk()).get().extracting(BookOrder::getPriceTicks).isEqualTo(oldestTicks + 10 * TICK);
+            assertThat(ladder.isBestOnLadder(OrderSide.BUY)).isTrue();
+            assertThat(ladder.isBestOnLadder(OrderSide.SELL)).isTrue();
+        }
+    }
+
+    private static List<Long> restingOrders(OrderBook book, OrderSide side) {
+        List<Long> orderIds = new ArrayList<>();
+        book.forEachOrder(side, order -> orderIds.add(order.getOrderId()));
+        return orderIds;
+    }
+}
@@ -0,0 +1,75 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Router for tests that stands in for a multi-node deployment: each engine instance is one
+ * node owning every {@code nodeCount}-th shard, and commands for another node's shards cross
+ * a shared {@link Network}, delivered on its own thread as a transport would.
+ */
+class LoopbackShardRouter implements ShardRouter {
+
+    private final Network network;
+    private final int node;
+
+    LoopbackShardRouter(Network network, int node) {
+        this.network = network;
+        this.node = node;
+    }
+
+    @Override
+    public boolean owns(int shardId) {
+        return network.ownerOf(shardId) == node;
+    }
+
+    @Override
+    public void bind(Endpoint[] localShards) {
+        network.nodes.put(node, localShards.clone());
+    }
+
+    @Override
+    public void route(int shardId, EngineCommand command) {
+        if (owns(shardId)) {
+            network.nodes.get(node)[shardId].submit(command);
+        } else {
+            network.deliver(shardId, command);
+        }
+    }
+
+    static final class Network implements AutoCloseable {
+
+        private final int nodeCount;
+        private final Map<Integer, Endpoint[]> nodes = new ConcurrentHashMap<>();
+        private final ExecutorService wire = Executors.newSingleThreadExecutor();
+
+        Network(int nodeCount) {
+            this.nodeCount = nodeCount;
+        }
+
+        int ownerOf(int shardId) {
+            return shardId % nodeCount;
+        }
+
+        private void deliver(int shardId, EngineCommand command) {
+            wire.execute(() -> {
+                try {
+                    Endpoint[] owner = nodes.get(ownerOf(shardId));
+                    if (owner == null) {
+                        throw new IllegalStateException("No node owns shard " + shardId);
+                    }
+                    owner[shardId].submit(command);
+                } catch (RuntimeException e) {
+                    command.result().completeExceptionally(e);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            wire.shutdownNow();
+        }
+    }
+}
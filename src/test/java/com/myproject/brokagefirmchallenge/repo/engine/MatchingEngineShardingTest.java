@@ -0,0 +1,139 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategyFactory;
+import com.myproject.brokagefirmchallenge.repo.strategy.TakerPricingStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineShardingTest {
+
+    private static final int SHARDS = 4;
+
+    private final List<MatchingEngine> engines = new ArrayList<>();
+    private LoopbackShardRouter.Network network;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (MatchingEngine engine : engines) {
+            engine.stop();
+        }
+        if (network != null) {
+            network.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should spread assets evenly and move only a fraction of them when a shard is added")
+    void should_spread_assets_evenly_and_move_few_when_shard_added() {
+        // given
+        List<String> assetNames = IntStream.range(0, 2000).mapToObj(i -> "ASSET" + i).toList();
+        ConsistentHashRing four = new ConsistentHashRing(4);
+        ConsistentHashRing five = new ConsistentHashRing(5);
+
+        // when
+        int[] perShard = new int[4];
+        int moved = 0;
+        for (String assetName : assetNames) {
+            perShard[four.shardOf(assetName)]++;
+            if (four.shardOf(assetName) != five.shardOf(assetName)) {
+                moved++;
+            }
+        }
+
+        // then
+        for (int count : perShard) {
+            assertTrue(count > 350 && count < 650, "Uneven shard load: " + count);
+        }
+        assertTrue(moved < 600, "Too many assets moved: " + moved);
+        assertEquals(four.shardOf("BTC"), new ConsistentHashRing(4).shardOf("BTC"));
+    }
+
+    @Test
+    @DisplayName("Should match every asset on the node owning its shard when commands cross the loopback")
+    void should_match_each_asset_on_owning_node_through_loopback() {
+        // given
+        network = new LoopbackShardRouter.Network(2);
+        List<MatchResult> firstNodeFills = new CopyOnWriteArrayList<>();
+        List<MatchResult> secondNodeFills = new CopyOnWriteArrayList<>();
+        MatchingEngine firstNode = startEngine(new LoopbackShardRouter(network, 0), firstNodeFills);
+        MatchingEngine secondNode = startEngine(new LoopbackShardRouter(network, 1), secondNodeFills);
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS);
+        List<String> assetNames = IntStream.range(0, 16).mapToObj(i -> "ASSET" + i).toList();
+
+        // when
+        long orderId = 1;
+        for (String assetName : assetNames) {
+            MatchingEngine.await(firstNode.addOrder(order(orderId++, assetName, OrderSide.SELL)));
+            assertEquals(1, MatchingEngine.await(firstNode.placeOrder(order(orderId++, assetName, OrderSide.BUY))));
+        }
+
+        // then
+        assertEquals(assetNames.size(), firstNodeFills.size() + secondNodeFills.size());
+        for (MatchResult fill : firstNodeFills) {
+            assertEquals(0, network.ownerOf(ring.shardOf(fill.assetName())));
+        }
+        for (MatchResult fill : secondNodeFills) {
+            assertEquals(1, network.ownerOf(ring.shardOf(fill.assetName())));
+        }
+        assertFalse(secondNodeFills.isEmpty());
+        assertTrue(MatchingEngine.await(secondNode.inspect(assetNames.get(0), OrderBook::isEmpty)));
+    }
+
+    private MatchingEngine startEngine(ShardRouter router, List<MatchResult> fills) {
+        OrderBookFactory orderBookFactory = new OrderBookFactory(
+                new PricingStrategyFactory(Map.of("takerPricingStrategy", new TakerPricingStrategy())));
+        ReflectionTestUtils.setField(orderBookFactory, "defaultStrategyName", "taker");
+        ReflectionTestUtils.setField(orderBookFactory, "assetStrategies", Map.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderTickSize", new BigDecimal("0.01"));
+        ReflectionTestUtils.setField(orderBookFactory, "ladderCapacity", 64);
+        ReflectionTestUtils.setField(orderBookFactory, "offHeapAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "slabRecords", 1024);
+        ReflectionTestUtils.setField(orderBookFactory, "selfTradePrevention", SelfTradePrevention.SKIP);
+
+        EngineMetrics engineMetrics = new EngineMetrics(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engineMetrics, "maxTaggedAssets", 100);
+
+        TradeListener listener = fills::addAll;
+        MatchingEngine engine = new MatchingEngine(List.of(listener), List.of(), Runnable::run,
+                orderBookFactory, engineMetrics, router);
+        ReflectionTestUtils.setField(engine, "shardCount", SHARDS);
+        ReflectionTestUtils.setField(engine, "ringBufferSize", 1024);
+        ReflectionTestUtils.setField(engine, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(engine, "depthLevels", 10);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private static Order order(long id, String assetName, OrderSide side) {
+        Order order = new Order();
+        order.setId(id);
+        order.setAssetName(assetName);
+        order.setPrice(new BigDecimal("100"));
+        order.setSize(BigDecimal.ONE);
+        order.setRemainingSize(BigDecimal.ONE);
+        order.setOrderSide(side);
+        order.setCustomerId(side == OrderSide.BUY ? 1L : 2L);
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+}
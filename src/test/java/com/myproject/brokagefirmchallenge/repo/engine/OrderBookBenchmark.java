@@ -0,0 +1,121 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.strategy.MidPointPricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategyFactory;
+import com.myproject.brokagefirmchallenge.repo.strategy.TakerPricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.WeightedAveragePricingStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree and ladder books on a dense book: one order per tick on each side
+ * of the touch, at several depths and under each pricing strategy. Run with
+ * {@code mvn -Pbenchmark test -Djmh.includes=OrderBookBenchmark}, which also reports
+ * bytes allocated per operation through the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final long MID_TICKS = 45_000_00_00L;
+    private static final long TICK = 100L;
+    private static final long LOT = 10_000L;
+    private static final int RANDOM_PRICES = 4096;
+
+    @Param({"TREE", "LADDER", "SLAB"})
+    private String bookType;
+
+    @Param({"100", "1000", "10000"})
+    private int depth;
+
+    @Param({"taker", "midPoint", "weightedAverage"})
+    private String strategyName;
+
+    private final List<MatchResult> fills = new ArrayList<>();
+    private final List<BookOrder> canceled = new ArrayList<>();
+    private PricingStrategy strategy;
+    private OrderBook book;
+    private long[] randomPrices;
+    private long nextOrderId;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        strategy = pricingStrategies().getRequiredStrategy(strategyName);
+        book = switch (bookType) {
+            case "LADDER" -> new LadderOrderBook("BTC", TICK, Integer.highestOneBit(depth * 4));
+            case "SLAB" -> new SlabOrderBook("BTC", 1 << 16);
+            default -> new TreeMapOrderBook("BTC");
+        };
+        for (int i = 1; i <= depth; i++) {
+            book.add(new BookOrder(nextOrderId++, 1, OrderSide.BUY, MID_TICKS - i * TICK, LOT));
+            book.add(new BookOrder(nextOrderId++, 2, OrderSide.SELL, MID_TICKS + i * TICK, LOT));
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        randomPrices = new long[RANDOM_PRICES];
+        for (int i = 0; i < RANDOM_PRICES; i++) {
+            randomPrices[i] = MID_TICKS - (1 + random.nextInt(depth)) * TICK;
+        }
+    }
+
+    @Benchmark
+    public void bestPrices(Blackhole blackhole) {
+        blackhole.consume(book.bestBid());
+        blackhole.consume(book.bestAsk());
+    }
+
+    @Benchmark
+    public boolean addAndCancelInsideBook() {
+        long price = randomPrices[cursor++ & (RANDOM_PRICES - 1)];
+        long orderId = nextOrderId++;
+        book.add(new BookOrder(orderId, 1, OrderSide.BUY, price, LOT));
+        return book.cancel(orderId);
+    }
+
+    @Benchmark
+    public int matchAtTouchAndReplenish() {
+        fills.clear();
+        BookOrder bestBid = book.bestBid().orElseThrow();
+        long price = bestBid.getPriceTicks();
+        book.add(new BookOrder(nextOrderId++, 2, OrderSide.SELL, price, LOT));
+        int matches = book.match(strategy, fills, canceled);
+        book.add(new BookOrder(nextOrderId++, 1, OrderSide.BUY, price, LOT));
+        return matches;
+    }
+
+    /**
+     * An aggressive sell taking the top three bids, each at its own level, after which the
+     * levels are put back so the depth stays constant.
+     */
+    @Benchmark
+    public int sweepThreeLevelsAndReplenish() {
+        fills.clear();
+        long price = book.bestBid().orElseThrow().getPriceTicks();
+        book.add(new BookOrder(nextOrderId++, 2, OrderSide.SELL, price - 2 * TICK, 3 * LOT));
+        int matches = book.match(strategy, fills, canceled);
+        for (int i = 2; i >= 0; i--) {
+            book.add(new BookOrder(nextOrderId++, 1, OrderSide.BUY, price - i * TICK, LOT));
+        }
+        return matches;
+    }
+
+    static PricingStrategyFactory pricingStrategies() {
+        return new PricingStrategyFactory(Map.of(
+                "takerPricingStrategy", new TakerPricingStrategy(),
+                "midPointPricingStrategy", new MidPointPricingStrategy(),
+                "weightedAveragePricingStrategy", new WeightedAveragePricingStrategy()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives one asset through the engine the way the order services do: resting limit orders,
+ * cancels of live ones and marketable IOC orders, in the proportions of the chosen mix, each
+ * awaited like a request thread would. Measures the round trip through the ring buffer and
+ * the shard thread as well as the book. Run with
+ * {@code mvn -Pbenchmark test -Djmh.includes=OrderFlowBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderFlowBenchmark {
+
+    private static final String ASSET_NAME = "BTC";
+    private static final BigDecimal MID_PRICE = new BigDecimal("45000.00");
+    private static final BigDecimal TICK = new BigDecimal("0.01");
+    private static final int SCRIPT_SIZE = 1 << 16;
+    private static final byte ADD = 0;
+    private static final byte CANCEL = 1;
+    private static final byte TAKE = 2;
+
+    /**
+     * Percentages of adds and cancels; the rest are marketable orders. Makers dominate real
+     * flow, with most resting orders canceled rather than filled.
+     */
+    public enum Mix {
+        MAKER_HEAVY(60, 35),
+        BALANCED(50, 30),
+        TAKER_HEAVY(30, 20);
+
+        private final int addPercent;
+        private final int cancelPercent;
+
+        Mix(int addPercent, int cancelPercent) {
+            this.addPercent = addPercent;
+            this.cancelPercent = cancelPercent;
+        }
+    }
+
+    @Param({"MAKER_HEAVY", "BALANCED", "TAKER_HEAVY"})
+    private Mix mix;
+
+    @Param({"100", "1000"})
+    private int depth;
+
+    @Param({"taker", "midPoint", "weightedAverage"})
+    private String strategyName;
+
+    private MatchingEngine engine;
+    private byte[] actions;
+    private int[] offsets;
+    private long[] live;
+    private int liveCount;
+    private long nextOrderId = 1;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderBookFactory orderBookFactory = new OrderBookFactory(OrderBookBenchmark.pricingStrategies());
+        ReflectionTestUtils.setField(orderBookFactory, "defaultStrategyName", strategyName);
+        ReflectionTestUtils.setField(orderBookFactory, "assetStrategies", Map.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderTickSize", TICK);
+        ReflectionTestUtils.setField(orderBookFactory, "ladderCapacity", 4096);
+        ReflectionTestUtils.setField(orderBookFactory, "offHeapAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "slabRecords", 1024);
+        ReflectionTestUtils.setField(orderBookFactory, "selfTradePrevention", SelfTradePrevention.SKIP);
+
+        TradeListener discard = trades -> {
+        };
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(metrics, "maxTaggedAssets", 1);
+        engine = new MatchingEngine(List.of(discard), List.of(), Runnable::run, orderBookFactory, metrics,
+                new InProcessShardRouter());
+        ReflectionTestUtils.setField(engine, "shardCount", 1);
+        ReflectionTestUtils.setField(engine, "ringBufferSize", 8192);
+        ReflectionTestUtils.setField(engine, "maxBatchSize", 256);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(engine, "depthLevels", 50);
+        engine.start();
+
+        live = new long[depth * 8];
+        for (int i = 1; i <= depth; i++) {
+            rest(OrderSide.BUY, -i);
+            rest(OrderSide.SELL, i);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        actions = new byte[SCRIPT_SIZE];
+        offsets = new int[SCRIPT_SIZE];
+        for (int i = 0; i < SCRIPT_SIZE; i++) {
+            int roll = random.nextInt(100);
+            actions[i] = roll < mix.addPercent ? ADD : roll < mix.addPercent + mix.cancelPercent ? CANCEL : TAKE;
+            offsets[i] = (random.nextBoolean() ? 1 : -1) * (1 + random.nextInt(depth));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Benchmark
+    public Object next() {
+        int step = cursor++ & (SCRIPT_SIZE - 1);
+        int offset = offsets[step];
+        return switch (actions[step]) {
+            case ADD -> rest(offset < 0 ? OrderSide.BUY : OrderSide.SELL, offset);
+            case CANCEL -> cancel(Math.abs(offset));
+            default -> take(offset < 0 ? OrderSide.SELL : OrderSide.BUY);
+        };
+    }
+
+    private Void rest(OrderSide side, int offset) {
+        Order order = order(side, MID_PRICE.add(TICK.multiply(BigDecimal.valueOf(offset))), TimeInForce.GTC);
+        if (liveCount == live.length) {
+            cancel(0);
+        }
+        live[liveCount++] = order.getId();
+        return MatchingEngine.await(engine.addOrder(order));
+    }
+
+    /**
+     * Cancels a pseudo-random order added earlier. It may have been filled meanwhile, in which
+     * case the cancel misses, as it would for a client racing a fill.
+     */
+    private Boolean cancel(int pick) {
+        if (liveCount == 0) {
+            return Boolean.FALSE;
+        }
+        int index = pick % liveCount;
+        long orderId = live[index];
+        live[index] = live[--liveCount];
+        return MatchingEngine.await(engine.cancelOrder(ASSET_NAME, orderId));
+    }
+
+    /**
+     * A marketable IOC order of up to three lots, limited a few ticks through the middle so it
+     * takes the touch and expires whatever the book cannot fill.
+     */
+    private Integer take(OrderSide side) {
+        BigDecimal collar = TICK.multiply(BigDecimal.valueOf(side == OrderSide.BUY ? 5 : -5));
+        return MatchingEngine.await(engine.placeOrder(order(side, MID_PRICE.add(collar), TimeInForce.IOC)));
+    }
+
+    private Order order(OrderSide side, BigDecimal price, TimeInForce timeInForce) {
+        long orderId = nextOrderId++;
+        BigDecimal size = BigDecimal.valueOf(1 + orderId % 3);
+        Order order = new Order();
+        order.setId(orderId);
+        order.setAssetName(ASSET_NAME);
+        order.setPrice(price);
+        order.setSize(size);
+        order.setRemainingSize(size);
+        order.setOrderSide(side);
+        order.setCustomerId(orderId % 16);
+        order.setTimeInForce(timeInForce);
+        return order;
+    }
+}
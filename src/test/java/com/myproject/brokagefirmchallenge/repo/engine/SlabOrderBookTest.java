@@ -0,0 +1,111 @@
+package com.myproject.brokagefirmchallenge.repo.engine;
+
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.TakerPricingStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SlabOrderBookTest {
+
+    private static final long TICK = FixedPoint.toTicks(BigDecimal.ONE);
+    private static final long LOT = FixedPoint.toTicks(BigDecimal.ONE);
+
+    private final PricingStrategy strategy = new TakerPricingStrategy();
+
+    @ParameterizedTest
+    @EnumSource(SelfTradePrevention.class)
+    @DisplayName("should_match_likeTheHeapBook_forRandomFlow")
+    void should_match_likeTheHeapBook_forRandomFlow(SelfTradePrevention selfTradePrevention) {
+        // given
+        OrderBook heap = new TreeMapOrderBook("BTC");
+        OrderBook slab = new SlabOrderBook("BTC", 16);
+        heap.setSelfTradePrevention(selfTradePrevention);
+        slab.setSelfTradePrevention(selfTradePrevention);
+        Random random = new Random(42);
+        List<Long> orderIds = new ArrayList<>();
+        List<MatchResult> heapFills = new ArrayList<>();
+        List<MatchResult> slabFills = new ArrayList<>();
+        List<BookOrder> heapCanceled = new ArrayList<>();
+        List<BookOrder> slabCanceled = new ArrayList<>();
+
+        // when
+        for (long orderId = 1; orderId <= 5_000; orderId++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                long customerId = 1 + random.nextInt(3);
+                long priceTicks = (100 + random.nextInt(11) - 5) * TICK;
+                long lots = (1 + random.nextInt(5)) * LOT;
+                heap.add(new BookOrder(orderId, customerId, side, priceTicks, lots));
+                slab.add(new BookOrder(orderId, customerId, side, priceTicks, lots));
+                orderIds.add(orderId);
+            } else if (action < 8 && !orderIds.isEmpty()) {
+                long target = orderIds.remove(random.nextInt(orderIds.size()));
+                assertThat(slab.cancel(target)).isEqualTo(heap.cancel(target));
+            } else if (!orderIds.isEmpty()) {
+                long target = orderIds.get(random.nextInt(orderIds.size()));
+                long lots = LOT / 2;
+                assertThat(slab.reduce(target, lots)).isEqualTo(heap.reduce(target, lots));
+            }
+            if (random.nextInt(4) == 0) {
+                assertThat(slab.match(strategy, slabFills, slabCanceled))
+                        .isEqualTo(heap.match(strategy, heapFills, heapCanceled));
+            }
+        }
+
+        // then
+        assertThat(slabFills).isEqualTo(heapFills);
+        assertThat(slabCanceled).extracting(BookOrder::getOrderId, BookOrder::getRemainingLots)
+                .isEqualTo(heapCanceled.stream().map(order -> tuple(order.getOrderId(), order.getRemainingLots())).toList());
+        for (OrderSide side : OrderSide.values()) {
+            assertThat(restingOrders(slab, side)).isEqualTo(restingOrders(heap, side));
+            assertThat(slab.totalLots(side)).isEqualTo(heap.totalLots(side));
+            assertThat(slab.levelCount(side)).isEqualTo(heap.levelCount(side));
+        }
+        assertThat(slab.depth(10, 0L)).isEqualTo(heap.depth(10, 0L));
+        assertThat(slab.restingOrderCount()).isEqualTo(heap.restingOrderCount());
+    }
+
+    @Test
+    @DisplayName("should_reuseFreedRecords_beforeReservingAnotherSlab")
+    void should_reuseFreedRecords_beforeReservingAnotherSlab() {
+        // given
+        SlabOrderBook book = new SlabOrderBook("BTC", 4);
+        for (long orderId = 1; orderId <= 4; orderId++) {
+            book.add(new BookOrder(orderId, 1, OrderSide.BUY, 100 * TICK, LOT));
+        }
+        long reserved = book.reservedBytes();
+
+        // when
+        book.cancel(2);
+        book.reduce(3, LOT);
+        book.add(new BookOrder(5, 1, OrderSide.BUY, 100 * TICK, LOT));
+        book.add(new BookOrder(6, 1, OrderSide.BUY, 101 * TICK, LOT));
+        long reservedAfterReuse = book.reservedBytes();
+        book.add(new BookOrder(7, 1, OrderSide.BUY, 99 * TICK, LOT));
+
+        // then
+        assertThat(reservedAfterReuse).isEqualTo(reserved).isEqualTo(4L * OrderSlab.RECORD_BYTES);
+        assertThat(book.reservedBytes()).isEqualTo(8L * OrderSlab.RECORD_BYTES);
+        assertThat(restingOrders(book, OrderSide.BUY)).containsExactly(6L, 1L, 4L, 5L, 7L);
+        assertThat(book.remainingLots(3)).isZero();
+        assertThat(book.totalLots(OrderSide.BUY)).isEqualTo(5 * LOT);
+    }
+
+    private static List<Long> restingOrders(OrderBook book, OrderSide side) {
+        List<Long> orderIds = new ArrayList<>();
+        book.forEachOrder(side, order -> orderIds.add(order.getOrderId()));
+        return orderIds;
+    }
+}
@@ -0,0 +1,91 @@
+package com.myproject.brokagefirmchallenge.repo.replay;
+
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.FlowEventType;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FlowCaptureFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("should_readAll_capturedEvents_inOrderWithEveryField")
+    void should_readAll_capturedEvents_inOrderWithEveryField() throws IOException {
+        // given
+        Path path = directory.resolve("flow.bin");
+        FlowEvent created = FlowEvent.created(10L, order());
+        try (FlowCaptureFile file = new FlowCaptureFile(path)) {
+            file.append(created);
+            file.append(FlowEvent.canceled(20L, 7L, 3L));
+            file.append(FlowEvent.matched(30L, "BTC"));
+        }
+        // when
+        List<FlowEvent> events = FlowCaptureFile.readAll(path);
+        // then
+        assertThat(events).extracting(FlowEvent::type)
+                .containsExactly(FlowEventType.CREATE, FlowEventType.CANCEL, FlowEventType.MATCH);
+        assertThat(events.get(0)).isEqualTo(created);
+        assertThat(events.get(0).toOrder().stopTriggerPrice()).isEqualByComparingTo("49000");
+        assertThat(events.get(1)).isEqualTo(FlowEvent.canceled(20L, 7L, 3L));
+        assertThat(events.get(2).assetName()).isEqualTo("BTC");
+    }
+
+    @Test
+    @DisplayName("should_readAll_tornLastRecord_dropIt")
+    void should_readAll_tornLastRecord_dropIt() throws IOException {
+        // given
+        Path path = directory.resolve("flow.bin");
+        try (FlowCaptureFile file = new FlowCaptureFile(path)) {
+            file.append(FlowEvent.matched(1L, "BTC"));
+            file.append(FlowEvent.created(2L, order()));
+        }
+        long size = Files.size(path);
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+        // when
+        List<FlowEvent> events = FlowCaptureFile.readAll(path);
+        // then
+        assertThat(events).containsExactly(FlowEvent.matched(1L, "BTC"));
+    }
+
+    @Test
+    @DisplayName("should_create_existingCapture_refuseToOverwrite")
+    void should_create_existingCapture_refuseToOverwrite() throws IOException {
+        // given
+        Path path = directory.resolve("flow.bin");
+        new FlowCaptureFile(path).close();
+        // when / then
+        assertThatThrownBy(() -> new FlowCaptureFile(path)).isInstanceOf(IOException.class);
+    }
+
+    private static Order order() {
+        Order order = Order.builder()
+                .customerId(3L)
+                .assetName("BTC")
+                .orderSide(OrderSide.SELL)
+                .size(new BigDecimal("1.25"))
+                .price(new BigDecimal("48500.5"))
+                .timeInForce(TimeInForce.GTC)
+                .metadata(new HashMap<>(Map.of("orderType", "STOP_LOSS", "triggerPrice", "49000")))
+                .build();
+        order.setId(7L);
+        return order;
+    }
+}
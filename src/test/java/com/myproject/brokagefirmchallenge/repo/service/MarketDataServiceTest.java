@@ -0,0 +1,75 @@
+package com.myproject.brokagefirmchallenge.repo.service;
+
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketStatisticsVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MarketDataServiceTest {
+
+    private static final String ASSET = "BTC";
+
+    private MarketDataService marketDataService;
+
+    @BeforeEach
+    void setup() {
+        marketDataService = new MarketDataService();
+    }
+
+    @Test
+    @DisplayName("should_onTrades_trackLastPriceVwapHighLowAndVolume")
+    void should_onTrades_trackLastPriceVwapHighLowAndVolume() {
+        // given
+        List<MatchResult> trades = List.of(trade("100", "1"), trade("110", "3"), trade("95", "1"));
+        // when
+        marketDataService.onTrades(trades);
+        // then
+        MarketStatisticsVO stats = marketDataService.getStatistics(ASSET);
+        assertThat(marketDataService.getCurrentPrice(ASSET)).isEqualByComparingTo("95");
+        assertThat(stats.getVwap()).isEqualByComparingTo("105");
+        assertThat(stats.getHigh()).isEqualByComparingTo("110");
+        assertThat(stats.getLow()).isEqualByComparingTo("95");
+        assertThat(stats.getVolume()).isEqualByComparingTo("5");
+        assertThat(stats.getTradeCount()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("should_getCurrentPrice_untradedAsset_returnNull")
+    void should_getCurrentPrice_untradedAsset_returnNull() {
+        // given
+        marketDataService.onTrades(List.of(trade("100", "1")));
+        // when
+        BigDecimal price = marketDataService.getCurrentPrice("ETH");
+        // then
+        assertThat(price).isNull();
+        assertThat(marketDataService.getStatistics("ETH").getVolume()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("should_resetSession_keepLastPriceAndRestartSessionStatistics")
+    void should_resetSession_keepLastPriceAndRestartSessionStatistics() {
+        // given
+        marketDataService.onTrades(List.of(trade("100", "1"), trade("120", "1")));
+        // when
+        marketDataService.resetSession();
+        marketDataService.onTrades(List.of(trade("90", "2")));
+        // then
+        MarketStatisticsVO stats = marketDataService.getStatistics(ASSET);
+        assertThat(stats.getLastPrice()).isEqualByComparingTo("90");
+        assertThat(stats.getHigh()).isEqualByComparingTo("90");
+        assertThat(stats.getVolume()).isEqualByComparingTo("2");
+        assertThat(stats.getTradeCount()).isEqualTo(1L);
+    }
+
+    private MatchResult trade(String price, String size) {
+        return new MatchResult(ASSET, 1L, 1L, 2L, 2L,
+                FixedPoint.toTicks(new BigDecimal(size)), FixedPoint.toTicks(new BigDecimal(price)));
+    }
+}
@@ -148,6 +148,20 @@ class AuditServiceImplTest {
         assertCommon(log);
     }
 
+    @Test
+    @DisplayName("orderActionLog should build ORDER action log without saving it")
+    void should_orderActionLog_buildLogWithoutSaving() {
+        // when
+        AuditLog log = auditService.orderActionLog(123L, AuditAction.ORDER_MATCHED, "details");
+        // then
+        verify(auditLogRepository, never()).save(any());
+        assertThat(log.getEntityName()).isEqualTo("Order");
+        assertThat(log.getEntityId()).isEqualTo(123L);
+        assertThat(log.getAction()).isEqualTo(AuditAction.ORDER_MATCHED);
+        assertThat(log.getNewValue()).isEqualTo("details");
+        assertCommon(log);
+    }
+
     @Test
     @DisplayName("auditBalanceChange should prefix assetName and set old/new balance")
     void should_auditBalanceChange_saveCorrectLog() {
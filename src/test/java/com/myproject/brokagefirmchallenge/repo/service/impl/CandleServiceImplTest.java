@@ -0,0 +1,121 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.candle.Candle;
+import com.myproject.brokagefirmchallenge.repo.candle.CandleFile;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.enumtype.CandleInterval;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CandleServiceImplTest {
+
+    private static final String ASSET = "BTC";
+
+    @TempDir
+    private Path directory;
+
+    private CandleServiceImpl candleService;
+
+    @BeforeEach
+    void setup() {
+        candleService = new CandleServiceImpl();
+        ReflectionTestUtils.setField(candleService, "ringSize", 16);
+        ReflectionTestUtils.setField(candleService, "persistenceEnabled", true);
+        ReflectionTestUtils.setField(candleService, "directory", directory.toString());
+    }
+
+    @Test
+    @DisplayName("should_onTrades_buildOpenBarOfEveryInterval")
+    void should_onTrades_buildOpenBarOfEveryInterval() {
+        // given
+        List<MatchResult> trades = List.of(trade("100", "1"), trade("110", "2"), trade("95", "1"));
+        // when
+        candleService.onTrades(trades);
+        // then
+        for (CandleInterval interval : CandleInterval.values()) {
+            List<Candle> candles = candleService.getCandles(ASSET, interval, 0L, Long.MAX_VALUE, 10);
+            assertThat(candles).hasSize(1);
+            Candle bar = candles.get(0);
+            assertThat(bar.open()).isEqualByComparingTo("100");
+            assertThat(bar.high()).isEqualByComparingTo("110");
+            assertThat(bar.low()).isEqualByComparingTo("95");
+            assertThat(bar.close()).isEqualByComparingTo("95");
+            assertThat(bar.volume()).isEqualByComparingTo("4");
+            assertThat(bar.tradeCount()).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    @DisplayName("should_getCandles_olderThanMemory_readTailOfFileThenMemory")
+    void should_getCandles_olderThanMemory_readTailOfFileThenMemory() throws Exception {
+        // given
+        try (CandleFile file = new CandleFile(directory.resolve(ASSET).resolve("1m.bin"))) {
+            file.append(List.of(bar(60_000L), bar(120_000L), bar(180_000L)));
+        }
+        candleService.onTrades(List.of(trade("100", "1")));
+        // when
+        List<Candle> candles = candleService.getCandles(ASSET, CandleInterval.ONE_MINUTE, 0L, Long.MAX_VALUE, 3);
+        // then
+        assertThat(candles).extracting(Candle::openTime).startsWith(120_000L, 180_000L);
+        assertThat(candles.get(2).openTime()).isGreaterThan(180_000L);
+        assertThat(candleService.getCandles(ASSET, CandleInterval.ONE_MINUTE, 100_000L, 150_000L, 10))
+                .extracting(Candle::openTime).containsExactly(120_000L);
+    }
+
+    @Test
+    @DisplayName("should_getCandles_unknownAsset_returnEmptyWithoutCreatingFiles")
+    void should_getCandles_unknownAsset_returnEmptyWithoutCreatingFiles() {
+        // when
+        List<Candle> candles = candleService.getCandles("ETH", CandleInterval.ONE_HOUR, 0L, Long.MAX_VALUE, 10);
+        // then
+        assertThat(candles).isEmpty();
+        assertThat(directory.resolve("ETH")).doesNotExist();
+        assertThatThrownBy(() -> candleService.getCandles("../ETH", CandleInterval.ONE_HOUR, 0L, Long.MAX_VALUE, 10))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    @DisplayName("should_close_writeOpenBar_andCompleteItInPlaceAfterRestart")
+    void should_close_writeOpenBar_andCompleteItInPlaceAfterRestart() throws Exception {
+        // given
+        candleService.onTrades(List.of(trade("100", "1")));
+        candleService.close();
+        CandleServiceImpl restarted = new CandleServiceImpl();
+        ReflectionTestUtils.setField(restarted, "ringSize", 16);
+        ReflectionTestUtils.setField(restarted, "persistenceEnabled", true);
+        ReflectionTestUtils.setField(restarted, "directory", directory.toString());
+        // when
+        restarted.onTrades(List.of(trade("110", "2")));
+        restarted.close();
+        // then
+        try (CandleFile file = new CandleFile(directory.resolve(ASSET).resolve("1d.bin"))) {
+            List<Candle> candles = file.read(Long.MIN_VALUE, Long.MAX_VALUE, 10);
+            assertThat(candles).hasSize(1);
+            assertThat(candles.get(0).open()).isEqualByComparingTo("100");
+            assertThat(candles.get(0).high()).isEqualByComparingTo("110");
+            assertThat(candles.get(0).volume()).isEqualByComparingTo("3");
+            assertThat(candles.get(0).tradeCount()).isEqualTo(2L);
+        }
+    }
+
+    private MatchResult trade(String price, String size) {
+        return new MatchResult(ASSET, 1L, 1L, 2L, 2L,
+                FixedPoint.toTicks(new BigDecimal(size)), FixedPoint.toTicks(new BigDecimal(price)));
+    }
+
+    private Candle bar(long openTime) {
+        long ticks = FixedPoint.toTicks(new BigDecimal("100"));
+        return new Candle(openTime, ticks, ticks, ticks, ticks, FixedPoint.toTicks(BigDecimal.ONE), 1L);
+    }
+}
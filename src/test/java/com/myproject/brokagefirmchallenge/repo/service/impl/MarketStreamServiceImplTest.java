@@ -0,0 +1,195 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.myproject.brokagefirmchallenge.repo.controller.MarketController;
+import com.myproject.brokagefirmchallenge.repo.engine.DepthLevel;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.manager.MarketManager;
+import com.myproject.brokagefirmchallenge.repo.service.CandleService;
+import com.myproject.brokagefirmchallenge.repo.service.MarketDataService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
+import com.myproject.brokagefirmchallenge.repo.vo.MarketUpdateVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+class MarketStreamServiceImplTest {
+
+    private static final String ASSET_NAME = "BTC";
+
+    @Mock
+    private OrderMatchingService orderMatchingService;
+
+    @Mock
+    private MarketDataService marketDataService;
+
+    @Mock
+    private CandleService candleService;
+
+    private final Deque<Runnable> streamTasks = new ArrayDeque<>();
+    private ObjectMapper objectMapper;
+    private MarketStreamServiceImpl marketStreamService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = spy(new ObjectMapper().registerModule(new JavaTimeModule()));
+        marketStreamService = new MarketStreamServiceImpl(objectMapper, streamTasks::add);
+        ReflectionTestUtils.setField(marketStreamService, "sendBufferSize", 2);
+        ReflectionTestUtils.setField(marketStreamService, "timeoutMillis", 60000L);
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new MarketController(new MarketManager(orderMatchingService, marketStreamService, marketDataService, candleService)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should start with a snapshot and then stream changed levels and trades")
+    void should_start_with_snapshot_then_stream_changed_levels_and_trades() throws Exception {
+        // given
+        marketStreamService.onDepth(depth(1, List.of(level("100", "2", 2), level("99", "1", 1)), List.of(level("101", "1", 1))));
+        MockHttpServletResponse response = subscribe();
+        runStreamTasks();
+
+        // when
+        marketStreamService.onTrades(List.of(trade("101", "1")));
+        marketStreamService.onDepth(depth(2, List.of(level("100", "2", 2), level("99", "3", 2)), List.of()));
+        runStreamTasks();
+
+        // then
+        List<MarketUpdateVO> events = events(response);
+        assertEquals(2, events.size());
+
+        MarketUpdateVO snapshot = events.get(0);
+        assertTrue(snapshot.getSnapshot());
+        assertEquals(2, snapshot.getBids().size());
+        assertEquals(0, new BigDecimal("100").compareTo(snapshot.getBestBid().getPrice()));
+        assertEquals(0, new BigDecimal("101").compareTo(snapshot.getBestAsk().getPrice()));
+
+        MarketUpdateVO update = events.get(1);
+        assertFalse(update.getSnapshot());
+        assertEquals(snapshot.getSequence() + 1, update.getSequence());
+        assertEquals(1, update.getBids().size());
+        assertEquals(0, new BigDecimal("3").compareTo(update.getBids().get(0).getSize()));
+        assertEquals(1, update.getAsks().size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(update.getAsks().get(0).getSize()));
+        assertNull(update.getBestAsk());
+        assertEquals(1, update.getTrades().size());
+        assertEquals(0, new BigDecimal("101").compareTo(update.getTrades().get(0).getPrice()));
+    }
+
+    @Test
+    @DisplayName("Should serialize each update once regardless of the number of subscribers")
+    void should_serialize_each_update_once_for_all_subscribers() throws Exception {
+        // given
+        MockHttpServletResponse first = subscribe();
+        MockHttpServletResponse second = subscribe();
+        runStreamTasks();
+        clearInvocations(objectMapper);
+
+        // when
+        marketStreamService.onDepth(depth(1, List.of(level("100", "1", 1)), List.of()));
+        runStreamTasks();
+
+        // then
+        verify(objectMapper, times(1)).writeValueAsString(any());
+        assertEquals(2, marketStreamService.subscriberCount(ASSET_NAME));
+        assertEquals(events(first).get(1), events(second).get(1));
+    }
+
+    @Test
+    @DisplayName("Should conflate a slow subscriber backlog into a single snapshot")
+    void should_conflate_slow_subscriber_backlog_into_snapshot() throws Exception {
+        // given
+        MockHttpServletResponse response = subscribe();
+        runStreamTasks();
+
+        // when
+        for (int i = 1; i <= 5; i++) {
+            marketStreamService.onDepth(depth(i, List.of(level("100", Integer.toString(i), i)), List.of()));
+            runLatestDrain();
+        }
+        runStreamTasks();
+
+        // then
+        List<MarketUpdateVO> events = events(response);
+        assertEquals(2, events.size());
+        MarketUpdateVO resync = events.get(1);
+        assertTrue(resync.getSnapshot());
+        assertEquals(5L, resync.getSequence());
+        assertEquals(5, resync.getBestBid().getOrderCount());
+    }
+
+    private MockHttpServletResponse subscribe() throws Exception {
+        return mockMvc.perform(get("/api/v1/market/{assetName}/stream", ASSET_NAME))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private void runStreamTasks() {
+        for (Runnable task; (task = streamTasks.poll()) != null; ) {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs the drain just queued by the feed but leaves the subscriber flush queued ahead of it,
+     * as a stalled connection would.
+     */
+    private void runLatestDrain() {
+        streamTasks.pollLast().run();
+    }
+
+    private List<MarketUpdateVO> events(MockHttpServletResponse response) throws Exception {
+        return Arrays.stream(response.getContentAsString().split("\n\n"))
+                .flatMap(event -> event.lines().filter(line -> line.startsWith("data:")))
+                .map(line -> line.substring("data:".length()))
+                .map(this::readUpdate)
+                .toList();
+    }
+
+    private MarketUpdateVO readUpdate(String payload) {
+        try {
+            return objectMapper.readValue(payload, MarketUpdateVO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MarketDepth depth(long timestamp, List<DepthLevel> bids, List<DepthLevel> asks) {
+        return new MarketDepth(ASSET_NAME, bids, asks, timestamp);
+    }
+
+    private static DepthLevel level(String price, String size, int orderCount) {
+        return new DepthLevel(FixedPoint.toTicks(new BigDecimal(price)), FixedPoint.toTicks(new BigDecimal(size)), orderCount);
+    }
+
+    private static MatchResult trade(String price, String size) {
+        return new MatchResult(ASSET_NAME, 1L, 1L, 2L, 2L,
+                FixedPoint.toTicks(new BigDecimal(size)), FixedPoint.toTicks(new BigDecimal(price)));
+    }
+}
@@ -0,0 +1,197 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.engine.ExpiredOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.entity.AuditLog;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.entity.OrderExecution;
+import com.myproject.brokagefirmchallenge.repo.enumtype.AuditAction;
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.publisher.EventPublisher;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderExecutionRepository;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
+import com.myproject.brokagefirmchallenge.repo.service.AssetService;
+import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import com.myproject.brokagefirmchallenge.repo.service.SettlementService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExecutionServiceImplTest {
+
+    @Mock private OrderRepository orderRepository;
+    @Mock private OrderExecutionRepository orderExecutionRepository;
+    @Mock private SettlementService settlementService;
+    @Mock private AuditService auditService;
+    @Mock private EventPublisher eventPublisher;
+    @Mock private AssetService assetService;
+    @InjectMocks private OrderExecutionServiceImpl orderExecutionService;
+
+    @Captor private ArgumentCaptor<List<OrderExecution>> executionsCaptor;
+    @Captor private ArgumentCaptor<List<AuditLog>> auditLogsCaptor;
+
+    @Test
+    @DisplayName("should_persistMatches_batchOfFills_writeExecutionsInOneBatch")
+    void should_persistMatches_batchOfFills_writeExecutionsInOneBatch() {
+        // given
+        Order buy = createOrder(1L, 10L, OrderSide.BUY, "2");
+        Order firstSell = createOrder(2L, 20L, OrderSide.SELL, "1");
+        Order secondSell = createOrder(3L, 30L, OrderSide.SELL, "1");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(buy, firstSell, secondSell));
+        List<MatchResult> matches = List.of(
+                match(buy, firstSell, "1", "100"),
+                match(buy, secondSell, "1", "102"));
+        // when
+        orderExecutionService.persistMatches(matches);
+        // then
+        verify(orderRepository).findAllById(anyList());
+        verify(orderExecutionRepository).batchInsert(executionsCaptor.capture());
+        verify(orderRepository).saveAll(anyCollection());
+        verify(settlementService).settle(eq(matches), anyMap());
+
+        List<OrderExecution> executions = executionsCaptor.getValue();
+        assertThat(executions).hasSize(4);
+        assertThat(executions).extracting(OrderExecution::getOrderId).containsExactly(1L, 2L, 1L, 3L);
+        assertThat(executions).extracting(OrderExecution::getMatchingOrderId).containsExactly(2L, 1L, 3L, 1L);
+        assertThat(executions.get(2).getExecutionValue()).isEqualByComparingTo("102");
+        assertThat(executions.get(2).getBuyCustomerId()).isEqualTo(10L);
+        assertThat(executions.get(2).getSellCustomerId()).isEqualTo(30L);
+    }
+
+    @Test
+    @DisplayName("should_persistMatches_batchOfFills_writeAuditRowsInOneBatch")
+    void should_persistMatches_batchOfFills_writeAuditRowsInOneBatch() {
+        // given
+        Order buy = createOrder(1L, 10L, OrderSide.BUY, "2");
+        Order firstSell = createOrder(2L, 20L, OrderSide.SELL, "1");
+        Order secondSell = createOrder(3L, 30L, OrderSide.SELL, "1");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(buy, firstSell, secondSell));
+        when(auditService.orderActionLog(anyLong(), any(), anyString()))
+                .thenAnswer(invocation -> AuditLog.builder()
+                        .entityId(invocation.getArgument(0))
+                        .action(invocation.getArgument(1))
+                        .build());
+        // when
+        orderExecutionService.persistMatches(List.of(
+                match(buy, firstSell, "1", "100"),
+                match(buy, secondSell, "1", "102")));
+        // then
+        verify(auditService, never()).auditOrderAction(anyLong(), any(), anyString());
+        verify(auditService).auditOrderActions(auditLogsCaptor.capture());
+        assertThat(auditLogsCaptor.getValue()).extracting(AuditLog::getEntityId).containsExactly(1L, 2L, 1L, 3L);
+        assertThat(auditLogsCaptor.getValue()).extracting(AuditLog::getAction).containsExactly(
+                AuditAction.ORDER_PARTIALLY_MATCHED, AuditAction.ORDER_MATCHED,
+                AuditAction.ORDER_MATCHED, AuditAction.ORDER_MATCHED);
+    }
+
+    @Test
+    @DisplayName("should_persistMatches_partialThenFull_updateOrderState")
+    void should_persistMatches_partialThenFull_updateOrderState() {
+        // given
+        Order buy = createOrder(1L, 10L, OrderSide.BUY, "3");
+        Order sell = createOrder(2L, 20L, OrderSide.SELL, "2");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(buy, sell));
+        // when
+        orderExecutionService.persistMatches(List.of(
+                match(buy, sell, "1", "100"),
+                match(buy, sell, "1", "103")));
+        // then
+        assertThat(buy.getExecutedSize()).isEqualByComparingTo("2");
+        assertThat(buy.getRemainingSize()).isEqualByComparingTo("1");
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.PARTIALLY_MATCHED);
+        assertThat(buy.getAverageExecutionPrice()).isEqualByComparingTo("101.5");
+        assertThat(sell.getRemainingSize()).isEqualByComparingTo("0");
+        assertThat(sell.getStatus()).isEqualTo(OrderStatus.MATCHED);
+        verify(eventPublisher, times(4)).publishOrderMatched(any(), anyLong(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("should_persistMatches_missingOrder_skipItsExecutionRow")
+    void should_persistMatches_missingOrder_skipItsExecutionRow() {
+        // given
+        Order buy = createOrder(1L, 10L, OrderSide.BUY, "1");
+        Order sell = createOrder(2L, 20L, OrderSide.SELL, "1");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(buy));
+        // when
+        orderExecutionService.persistMatches(List.of(match(buy, sell, "1", "100")));
+        // then
+        verify(orderExecutionRepository).batchInsert(executionsCaptor.capture());
+        assertThat(executionsCaptor.getValue()).extracting(OrderExecution::getOrderId).containsExactly(1L);
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.MATCHED);
+    }
+
+    @Test
+    @DisplayName("should_expireOrders_unfilledRemainder_cancelAndReleaseBlockedBalance")
+    void should_expireOrders_unfilledRemainder_cancelAndReleaseBlockedBalance() {
+        // given
+        Order buy = createOrder(1L, 10L, OrderSide.BUY, "3");
+        Order sell = createOrder(2L, 20L, OrderSide.SELL, "2");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(buy, sell));
+        // when
+        orderExecutionService.expireOrders(List.of(
+                expired(buy, ExpiryReason.UNFILLED_REMAINDER, "1"),
+                expired(sell, ExpiryReason.FILL_OR_KILL, "2")));
+        // then
+        verify(assetService).releaseAsset(10L, "TRY", new BigDecimal("100.0000"));
+        verify(assetService).releaseAsset(20L, "BTC", new BigDecimal("2.0000"));
+        verify(orderRepository).saveAll(anyCollection());
+        verify(eventPublisher, times(2)).publishOrderCanceled(any(), anyString());
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        assertThat(sell.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        assertThat(sell.getCancelReason()).contains("Fill-or-kill");
+    }
+
+    @Test
+    @DisplayName("should_markStopsTriggered_stopOrders_noLongerDormant")
+    void should_markStopsTriggered_stopOrders_noLongerDormant() {
+        // given
+        Order stop = createOrder(1L, 20L, OrderSide.SELL, "1");
+        stop.getMetadata().put("orderType", "STOP_LOSS");
+        stop.getMetadata().put("triggerPrice", "95");
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(stop));
+        assertThat(stop.isDormantStop()).isTrue();
+        // when
+        orderExecutionService.markStopsTriggered(List.of(1L));
+        // then
+        verify(orderRepository).saveAll(anyCollection());
+        assertThat(stop.isDormantStop()).isFalse();
+        assertThat(stop.stopTriggerPrice()).isEqualByComparingTo("95");
+        assertThat(stop.getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    private Order createOrder(Long id, Long customerId, OrderSide side, String size) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(customerId);
+        order.setAssetName("BTC");
+        order.setOrderSide(side);
+        order.setSize(new BigDecimal(size));
+        order.setPrice(new BigDecimal("100"));
+        order.setStatus(OrderStatus.PENDING);
+        order.setRemainingSize(order.getSize());
+        return order;
+    }
+
+    private ExpiredOrder expired(Order order, ExpiryReason reason, String remainingSize) {
+        return new ExpiredOrder("BTC", order.getId(), order.getCustomerId(), order.getOrderSide(), reason,
+                FixedPoint.toTicks(order.getPrice()), FixedPoint.toTicks(new BigDecimal(remainingSize)));
+    }
+
+    private MatchResult match(Order buy, Order sell, String size, String price) {
+        return new MatchResult("BTC", buy.getId(), buy.getCustomerId(), sell.getId(), sell.getCustomerId(),
+                FixedPoint.toTicks(new BigDecimal(size)), FixedPoint.toTicks(new BigDecimal(price)));
+    }
+}
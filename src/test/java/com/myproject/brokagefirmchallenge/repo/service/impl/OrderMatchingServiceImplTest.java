@@ -1,25 +1,65 @@
 package com.myproject.brokagefirmchallenge.repo.service.impl;
 
+import com.myproject.brokagefirmchallenge.repo.engine.BookOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.EngineMetrics;
+import com.myproject.brokagefirmchallenge.repo.engine.ExpiredOrder;
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.InProcessShardRouter;
+import com.myproject.brokagefirmchallenge.repo.engine.MarketDepth;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchOutcome;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchingEngine;
+import com.myproject.brokagefirmchallenge.repo.engine.OrderBook;
+import com.myproject.brokagefirmchallenge.repo.engine.OrderBookFactory;
+import com.myproject.brokagefirmchallenge.repo.engine.SlabOrderBook;
+import com.myproject.brokagefirmchallenge.repo.engine.TopOfBook;
+import com.myproject.brokagefirmchallenge.repo.engine.TradeListener;
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
+import com.myproject.brokagefirmchallenge.repo.enumtype.MatchingMode;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
+import com.myproject.brokagefirmchallenge.repo.enumtype.SelfTradePrevention;
+import com.myproject.brokagefirmchallenge.repo.enumtype.TimeInForce;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ConcurrencyException;
+import com.myproject.brokagefirmchallenge.repo.exceptions.ValidationException;
+import com.myproject.brokagefirmchallenge.repo.factory.MarketOrderFactory;
+import com.myproject.brokagefirmchallenge.repo.repository.OrderExecutionRepository;
 import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
+import com.myproject.brokagefirmchallenge.repo.request.CreateOrderRequest;
+import com.myproject.brokagefirmchallenge.repo.strategy.MidPointPricingStrategy;
 import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategy;
 import com.myproject.brokagefirmchallenge.repo.strategy.PricingStrategyFactory;
+import com.myproject.brokagefirmchallenge.repo.strategy.TakerPricingStrategy;
+import com.myproject.brokagefirmchallenge.repo.strategy.WeightedAveragePricingStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,13 +69,22 @@ class OrderMatchingServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderExecutionRepository orderExecutionRepository;
+
     @Mock
     private PricingStrategyFactory pricingStrategyFactory;
 
     @Mock
     private PricingStrategy pricingStrategy;
 
-    @InjectMocks
+    @Mock
+    private TradeListener tradeListener;
+
+    private OrderBookFactory orderBookFactory;
+    private SimpleMeterRegistry meterRegistry;
+    private EngineMetrics engineMetrics;
+    private MatchingEngine matchingEngine;
     private OrderMatchingServiceImpl orderMatchingService;
 
     private Order buyOrder;
@@ -47,27 +96,61 @@ class OrderMatchingServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(orderMatchingService, "defaultStrategyName", "taker");
-
-        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(pricingStrategy);
+        orderBookFactory = new OrderBookFactory(pricingStrategyFactory);
+        ReflectionTestUtils.setField(orderBookFactory, "defaultStrategyName", "taker");
+        ReflectionTestUtils.setField(orderBookFactory, "assetStrategies", Map.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "ladderTickSize", new BigDecimal("0.01"));
+        ReflectionTestUtils.setField(orderBookFactory, "ladderCapacity", 64);
+        ReflectionTestUtils.setField(orderBookFactory, "offHeapAssets", Set.of());
+        ReflectionTestUtils.setField(orderBookFactory, "slabRecords", 1024);
+        ReflectionTestUtils.setField(orderBookFactory, "selfTradePrevention", SelfTradePrevention.SKIP);
+
+        meterRegistry = new SimpleMeterRegistry();
+        engineMetrics = new EngineMetrics(meterRegistry);
+        ReflectionTestUtils.setField(engineMetrics, "maxTaggedAssets", 100);
+
+        matchingEngine = new MatchingEngine(List.of(tradeListener), List.of(), Runnable::run, orderBookFactory, engineMetrics,
+                new InProcessShardRouter());
+        ReflectionTestUtils.setField(matchingEngine, "shardCount", 2);
+        ReflectionTestUtils.setField(matchingEngine, "ringBufferSize", 1024);
+        ReflectionTestUtils.setField(matchingEngine, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(matchingEngine, "submitTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(matchingEngine, "depthLevels", 50);
+        matchingEngine.start();
+
+        orderMatchingService = new OrderMatchingServiceImpl(orderRepository, orderExecutionRepository, pricingStrategyFactory, matchingEngine);
+        ReflectionTestUtils.setField(orderMatchingService, "matchingMode", MatchingMode.CONTINUOUS);
+
+        lenient().when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(pricingStrategy);
 
         buyOrder = createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
         sellOrder = createOrder(2L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL);
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        matchingEngine.stop();
+    }
+
     @Test
     @org.junit.jupiter.api.Order(1)
     @DisplayName("Should initialize order books with active orders on post construct")
     void should_initialize_order_books_with_active_orders() {
         // given
+        buyOrder.setStatus(OrderStatus.PENDING);
+        sellOrder.setStatus(OrderStatus.PARTIALLY_MATCHED);
         List<Order> activeOrders = Arrays.asList(buyOrder, sellOrder);
-        when(orderRepository.findAll()).thenReturn(activeOrders);
+        when(orderRepository.findByStatusIn(anyCollection())).thenReturn(activeOrders);
 
         // when
         orderMatchingService.initializeOrderBooks();
 
         // then
-        verify(orderRepository).findAll();
+        verify(orderRepository).findByStatusIn(EnumSet.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_MATCHED));
+        verify(orderRepository, never()).findAll();
+        assertEquals(1, orderCount(OrderSide.BUY));
+        assertEquals(1, orderCount(OrderSide.SELL));
     }
 
     @Test
@@ -80,13 +163,9 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.addOrderToBook(buyOrder);
 
         // then
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> buyOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "buyOrderBooks");
-
-        assertNotNull(buyOrderBooks);
-        assertTrue(buyOrderBooks.containsKey(ASSET_NAME));
-        assertTrue(buyOrderBooks.get(ASSET_NAME).containsKey(BUY_PRICE));
-        assertEquals(buyOrder, buyOrderBooks.get(ASSET_NAME).get(BUY_PRICE).peek());
+        assertTrue(matchingEngine.getAssetNames().contains(ASSET_NAME));
+        assertTrue(hasLevel(OrderSide.BUY, BUY_PRICE));
+        assertEquals(buyOrder.getId(), this.<Long>inspect(book -> book.bestBid().map(BookOrder::getOrderId).orElse(null)));
     }
 
     @Test
@@ -99,13 +178,9 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.addOrderToBook(sellOrder);
 
         // then
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> sellOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "sellOrderBooks");
-
-        assertNotNull(sellOrderBooks);
-        assertTrue(sellOrderBooks.containsKey(ASSET_NAME));
-        assertTrue(sellOrderBooks.get(ASSET_NAME).containsKey(SELL_PRICE));
-        assertEquals(sellOrder, sellOrderBooks.get(ASSET_NAME).get(SELL_PRICE).peek());
+        assertTrue(matchingEngine.getAssetNames().contains(ASSET_NAME));
+        assertTrue(hasLevel(OrderSide.SELL, SELL_PRICE));
+        assertEquals(sellOrder.getId(), this.<Long>inspect(book -> book.bestAsk().map(BookOrder::getOrderId).orElse(null)));
     }
 
     @Test
@@ -162,8 +237,9 @@ class OrderMatchingServiceImplTest {
         buyOrder.setRemainingSize(ORDER_SIZE);
         sellOrder.setRemainingSize(ORDER_SIZE);
 
-        when(pricingStrategy.canMatch(any(), any())).thenReturn(true);
-        when(pricingStrategy.calculateExecutionPrice(any(), any())).thenReturn(BUY_PRICE);
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(BUY_PRICE));
 
         orderMatchingService.addOrderToBook(buyOrder);
         orderMatchingService.addOrderToBook(sellOrder);
@@ -172,7 +248,17 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.matchOrders(ASSET_NAME);
 
         // then
-        verify(pricingStrategy, atLeastOnce()).canMatch(any(), any());
+        verify(pricingStrategy, atLeastOnce()).canMatch(anyLong(), anyLong());
+        assertTrue(isBookEmpty(ASSET_NAME));
+
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(1, fills.getValue().size());
+        MatchResult fill = fills.getValue().get(0);
+        assertEquals(1L, fill.buyOrderId());
+        assertEquals(2L, fill.sellOrderId());
+        assertEquals(0, ORDER_SIZE.compareTo(fill.size()));
+        assertEquals(0, BUY_PRICE.compareTo(fill.price()));
     }
 
     @Test
@@ -183,7 +269,7 @@ class OrderMatchingServiceImplTest {
         buyOrder = createOrder(1L, ASSET_NAME, new BigDecimal("48000"), ORDER_SIZE, OrderSide.BUY);
         sellOrder = createOrder(2L, ASSET_NAME, new BigDecimal("50000"), ORDER_SIZE, OrderSide.SELL);
 
-        when(pricingStrategy.canMatch(any(), any())).thenReturn(false);
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(false);
 
         orderMatchingService.addOrderToBook(buyOrder);
         orderMatchingService.addOrderToBook(sellOrder);
@@ -192,7 +278,10 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.matchOrders(ASSET_NAME);
 
         // then
-        verify(pricingStrategy, atMost(1)).canMatch(any(), any());
+        verify(pricingStrategy, atMost(1)).canMatch(anyLong(), anyLong());
+        verifyNoInteractions(tradeListener);
+        assertEquals(1, orderCount(OrderSide.BUY));
+        assertEquals(1, orderCount(OrderSide.SELL));
     }
 
     @Test
@@ -205,8 +294,9 @@ class OrderMatchingServiceImplTest {
         Order sellOrder1 = createOrder(3L, ASSET_NAME, new BigDecimal("49000"), ORDER_SIZE, OrderSide.SELL);
         Order sellOrder2 = createOrder(4L, ASSET_NAME, new BigDecimal("50000"), ORDER_SIZE, OrderSide.SELL);
 
-        when(pricingStrategy.canMatch(any(), any())).thenReturn(true);
-        when(pricingStrategy.calculateExecutionPrice(any(), any())).thenReturn(new BigDecimal("50000"));
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(new BigDecimal("50000")));
 
         orderMatchingService.addOrderToBook(buyOrder1);
         orderMatchingService.addOrderToBook(buyOrder2);
@@ -217,7 +307,13 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.matchOrders(ASSET_NAME);
 
         // then
-        verify(pricingStrategy, atLeastOnce()).canMatch(any(), any());
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(2, fills.getValue().size());
+        assertEquals(1L, fills.getValue().get(0).buyOrderId());
+        assertEquals(3L, fills.getValue().get(0).sellOrderId());
+        assertEquals(2L, fills.getValue().get(1).buyOrderId());
+        assertEquals(4L, fills.getValue().get(1).sellOrderId());
     }
 
     @Test
@@ -230,8 +326,9 @@ class OrderMatchingServiceImplTest {
         Order ethBuyOrder = createOrder(3L, "ETH", new BigDecimal("3000"), ORDER_SIZE, OrderSide.BUY);
         Order ethSellOrder = createOrder(4L, "ETH", new BigDecimal("2900"), ORDER_SIZE, OrderSide.SELL);
 
-        when(pricingStrategy.canMatch(any(), any())).thenReturn(true);
-        when(pricingStrategy.calculateExecutionPrice(any(), any())).thenReturn(BUY_PRICE);
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(BUY_PRICE));
 
         orderMatchingService.addOrderToBook(btcBuyOrder);
         orderMatchingService.addOrderToBook(btcSellOrder);
@@ -242,7 +339,9 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.matchAllPendingOrders();
 
         // then
-        verify(pricingStrategy, atLeastOnce()).canMatch(any(), any());
+        verify(pricingStrategy, atLeastOnce()).canMatch(anyLong(), anyLong());
+        assertTrue(isBookEmpty("BTC"));
+        assertTrue(isBookEmpty("ETH"));
     }
 
     @Test
@@ -253,8 +352,9 @@ class OrderMatchingServiceImplTest {
         buyOrder.setRemainingSize(new BigDecimal("2.0"));
         sellOrder.setRemainingSize(new BigDecimal("1.0"));
 
-        when(pricingStrategy.canMatch(any(), any())).thenReturn(true);
-        when(pricingStrategy.calculateExecutionPrice(any(), any())).thenReturn(BUY_PRICE);
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(BUY_PRICE));
 
         orderMatchingService.addOrderToBook(buyOrder);
         orderMatchingService.addOrderToBook(sellOrder);
@@ -263,10 +363,10 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.matchOrders(ASSET_NAME);
 
         // then
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> buyOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "buyOrderBooks");
-
-        assertTrue(buyOrderBooks.get(ASSET_NAME).containsKey(BUY_PRICE));
+        assertTrue(hasLevel(OrderSide.BUY, BUY_PRICE));
+        assertFalse(hasLevel(OrderSide.SELL, SELL_PRICE));
+        assertEquals(0, new BigDecimal("1.0").compareTo(remainingSize(buyOrder.getId()).orElseThrow()));
+        assertEquals(0, new BigDecimal("2.0").compareTo(buyOrder.getRemainingSize()));
     }
 
     @Test
@@ -279,7 +379,7 @@ class OrderMatchingServiceImplTest {
         assertDoesNotThrow(() -> orderMatchingService.matchOrders(ASSET_NAME));
 
         // then
-        verify(pricingStrategy, never()).canMatch(any(), any());
+        verify(pricingStrategy, never()).canMatch(anyLong(), anyLong());
     }
 
     @Test
@@ -290,13 +390,13 @@ class OrderMatchingServiceImplTest {
         orderMatchingService.addOrderToBook(buyOrder);
         orderMatchingService.addOrderToBook(sellOrder);
 
-        when(pricingStrategy.canMatch(any(), any())).thenThrow(new RuntimeException("Test exception"));
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenThrow(new RuntimeException("Test exception"));
 
         // when
         assertDoesNotThrow(() -> orderMatchingService.matchAllPendingOrders());
 
         // then
-        verify(pricingStrategy, atLeastOnce()).canMatch(any(), any());
+        verify(pricingStrategy, atLeastOnce()).canMatch(anyLong(), anyLong());
     }
 
     @Test
@@ -313,12 +413,7 @@ class OrderMatchingServiceImplTest {
         orders.parallelStream().forEach(order -> orderMatchingService.addOrderToBook(order));
 
         // then
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> buyOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "buyOrderBooks");
-
-        assert buyOrderBooks != null;
-        assertNotNull(buyOrderBooks.get(ASSET_NAME));
-        assertEquals(10, buyOrderBooks.get(ASSET_NAME).size());
+        assertEquals(10, levelCount(OrderSide.BUY));
     }
 
     @Test
@@ -326,42 +421,1020 @@ class OrderMatchingServiceImplTest {
     @DisplayName("Should remove fully filled orders from order book")
     void should_remove_fully_filled_orders_from_order_book() {
         // given
-        buyOrder.setRemainingSize(BigDecimal.ZERO);
-        sellOrder.setRemainingSize(BigDecimal.ZERO);
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(SELL_PRICE));
 
         orderMatchingService.addOrderToBook(buyOrder);
         orderMatchingService.addOrderToBook(sellOrder);
 
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> buyOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "buyOrderBooks");
-        Map<String, NavigableMap<BigDecimal, Queue<Order>>> sellOrderBooks =
-                (Map<String, NavigableMap<BigDecimal, Queue<Order>>>) ReflectionTestUtils.getField(orderMatchingService, "sellOrderBooks");
-
         // when
-        ReflectionTestUtils.invokeMethod(orderMatchingService, "updateOrderInBook", buyOrder, buyOrderBooks);
-        ReflectionTestUtils.invokeMethod(orderMatchingService, "updateOrderInBook", sellOrder, sellOrderBooks);
+        orderMatchingService.matchOrders(ASSET_NAME);
 
         // then
-        assertFalse(buyOrderBooks.get(ASSET_NAME).containsKey(BUY_PRICE));
-        assertFalse(sellOrderBooks.get(ASSET_NAME).containsKey(SELL_PRICE));
+        assertFalse(hasLevel(OrderSide.BUY, BUY_PRICE));
+        assertFalse(hasLevel(OrderSide.SELL, SELL_PRICE));
+        assertTrue(remainingSize(buyOrder.getId()).isEmpty());
+        assertTrue(remainingSize(sellOrder.getId()).isEmpty());
     }
 
     @Test
     @org.junit.jupiter.api.Order(16)
-    @DisplayName("Should return correct pricing strategy")
-    void should_return_correct_pricing_strategy() {
+    @DisplayName("Should bind pricing strategy per asset and switch it at runtime")
+    void should_bind_pricing_strategy_per_asset_and_switch_it_at_runtime() {
+        // given
+        ReflectionTestUtils.setField(orderBookFactory, "assetStrategies", Map.of("ETH", "midPoint"));
+        PricingStrategy midPointStrategy = mock(PricingStrategy.class);
+        PricingStrategy weightedStrategy = mock(PricingStrategy.class);
+        when(pricingStrategyFactory.getStrategy("midPoint")).thenReturn(midPointStrategy);
+        when(pricingStrategyFactory.getRequiredStrategy("weightedAverage")).thenReturn(weightedStrategy);
+        when(pricingStrategyFactory.getStrategyName(midPointStrategy)).thenReturn("midPoint");
+        orderMatchingService.addOrderToBook(createOrder(1L, "ETH", BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(buyOrder);
+        orderMatchingService.matchOrders("ETH");
+        orderMatchingService.matchOrders("ETH");
+
+        // when
+        String previous = orderMatchingService.switchPricingStrategy("ETH", "weightedAverage");
+
+        // then
+        assertEquals("midPoint", previous);
+        assertSame(weightedStrategy, inspect("ETH", OrderBook::getPricingStrategy));
+        assertSame(pricingStrategy, inspect(ASSET_NAME, OrderBook::getPricingStrategy));
+        verify(pricingStrategyFactory, times(1)).getStrategy("midPoint");
+        verify(pricingStrategyFactory, times(1)).getStrategy("taker");
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(17)
+    @DisplayName("Should remove canceled order from order book")
+    void should_remove_canceled_order_from_order_book() {
+        // given
+        orderMatchingService.addOrderToBook(buyOrder);
+
+        // when
+        Optional<BigDecimal> canceled = orderMatchingService.cancelOrder(buyOrder);
+
+        // then
+        assertTrue(canceled.isPresent());
+        assertTrue(isBookEmpty(ASSET_NAME));
+        assertTrue(orderMatchingService.cancelOrder(buyOrder).isEmpty());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(18)
+    @DisplayName("Should fill each order exactly once when the same asset is matched concurrently")
+    void should_fill_each_order_once_when_matched_concurrently() {
+        // given
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(SELL_PRICE));
+
+        for (long i = 0; i < 50; i++) {
+            orderMatchingService.addOrderToBook(createOrder(i, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+            orderMatchingService.addOrderToBook(createOrder(100 + i, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL));
+        }
+
+        // when
+        List<CompletableFuture<Void>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(CompletableFuture.runAsync(() -> orderMatchingService.matchOrders(ASSET_NAME)));
+        }
+        callers.forEach(CompletableFuture::join);
+
+        // then
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener, atLeastOnce()).onTrades(fills.capture());
+        List<Long> filledBuyOrders = fills.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(MatchResult::buyOrderId)
+                .toList();
+        assertEquals(50, filledBuyOrders.size());
+        assertEquals(50, new HashSet<>(filledBuyOrders).size());
+        assertTrue(isBookEmpty(ASSET_NAME));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(19)
+    @DisplayName("Should match submitted order on arrival in continuous mode")
+    void should_match_submitted_order_on_arrival_in_continuous_mode() {
+        // given
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(SELL_PRICE));
+        orderMatchingService.addOrderToBook(sellOrder);
+
+        // when
+        int matchCount = MatchingEngine.await(orderMatchingService.submitOrder(buyOrder));
+
+        // then
+        assertEquals(1, matchCount);
+        assertTrue(isBookEmpty(ASSET_NAME));
+        verify(tradeListener).onTrades(anyList());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(20)
+    @DisplayName("Should only rest submitted order in batch mode")
+    void should_only_rest_submitted_order_in_batch_mode() {
+        // given
+        ReflectionTestUtils.setField(orderMatchingService, "matchingMode", MatchingMode.BATCH);
+        orderMatchingService.addOrderToBook(sellOrder);
+
+        // when
+        int matchCount = MatchingEngine.await(orderMatchingService.submitOrder(buyOrder));
+
+        // then
+        assertEquals(0, matchCount);
+        assertEquals(1, orderCount(OrderSide.BUY));
+        assertEquals(1, orderCount(OrderSide.SELL));
+        verify(pricingStrategy, never()).canMatch(anyLong(), anyLong());
+        verifyNoInteractions(tradeListener);
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(21)
+    @DisplayName("Should not match orders of the same customer")
+    void should_not_match_orders_of_the_same_customer() {
+        // given
+        sellOrder.setCustomerId(buyOrder.getCustomerId());
+        orderMatchingService.addOrderToBook(buyOrder);
+        orderMatchingService.addOrderToBook(sellOrder);
+
+        // when
+        orderMatchingService.matchOrders(ASSET_NAME);
+
+        // then
+        assertEquals(1, orderCount(OrderSide.BUY));
+        assertEquals(1, orderCount(OrderSide.SELL));
+        verify(pricingStrategy, never()).canMatch(anyLong(), anyLong());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(22)
+    @DisplayName("Should price weighted average in ticks and fall back on overflow")
+    void should_price_weighted_average_in_ticks_and_fall_back_on_overflow() {
+        // given
+        WeightedAveragePricingStrategy strategy = new WeightedAveragePricingStrategy();
+        long largeLots = FixedPoint.toTicks(new BigDecimal("100000000"));
+
+        // when
+        long price = strategy.calculateExecutionPrice(
+                FixedPoint.toTicks(new BigDecimal("101")), FixedPoint.toTicks(new BigDecimal("1")),
+                FixedPoint.toTicks(new BigDecimal("100")), FixedPoint.toTicks(new BigDecimal("2")));
+        long overflowPrice = strategy.calculateExecutionPrice(
+                FixedPoint.toTicks(new BigDecimal("999999")), largeLots,
+                FixedPoint.toTicks(new BigDecimal("999998")), largeLots);
+
+        // then
+        assertEquals(0, new BigDecimal("100.33").compareTo(FixedPoint.toBigDecimal(price)));
+        assertEquals(0, new BigDecimal("999998.50").compareTo(FixedPoint.toBigDecimal(overflowPrice)));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(23)
+    @DisplayName("Should cancel resting orders by id and keep priority of the rest")
+    void should_cancel_resting_orders_by_id_and_keep_priority_of_the_rest() {
+        // given
+        for (long i = 1; i <= 1000; i++) {
+            orderMatchingService.addOrderToBook(createOrder(i, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        }
+
+        // when
+        for (long i = 1; i <= 1000; i += 2) {
+            assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, i)));
+        }
+
+        // then
+        assertFalse(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 1L)));
+        assertEquals(500, orderCount(OrderSide.BUY));
+        assertEquals(2L, this.<Long>inspect(book -> book.bestBid().orElseThrow().getOrderId()));
+        assertTrue(remainingSize(1000L).isPresent());
+        assertTrue(remainingSize(999L).isEmpty());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(24)
+    @DisplayName("Should reduce resting order in place without losing time priority")
+    void should_reduce_resting_order_in_place_without_losing_time_priority() {
+        // given
+        Order laterBuyOrder = createOrder(3L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
+        orderMatchingService.addOrderToBook(buyOrder);
+        orderMatchingService.addOrderToBook(laterBuyOrder);
+
+        // when
+        boolean reduced = MatchingEngine.await(matchingEngine.reduceOrder(ASSET_NAME, buyOrder.getId(), new BigDecimal("0.4")));
+        boolean reducedToZero = MatchingEngine.await(matchingEngine.reduceOrder(ASSET_NAME, laterBuyOrder.getId(), ORDER_SIZE));
+
+        // then
+        assertTrue(reduced);
+        assertTrue(reducedToZero);
+        assertEquals(buyOrder.getId(), this.<Long>inspect(book -> book.bestBid().orElseThrow().getOrderId()));
+        assertEquals(0, new BigDecimal("0.6").compareTo(remainingSize(buyOrder.getId()).orElseThrow()));
+        assertEquals(1, orderCount(OrderSide.BUY));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(25)
+    @DisplayName("Should keep price-time priority on ladder book including overflow levels")
+    void should_keep_price_time_priority_on_ladder_book_including_overflow_levels() {
+        // given
+        ReflectionTestUtils.setField(orderBookFactory, "ladderAssets", Set.of(ASSET_NAME));
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, new BigDecimal("100.00"), ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, new BigDecimal("100.05"), ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(3L, ASSET_NAME, new BigDecimal("100.015"), ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(4L, ASSET_NAME, new BigDecimal("10.00"), ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(5L, ASSET_NAME, new BigDecimal("100.05"), ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(6L, ASSET_NAME, new BigDecimal("99.90"), ORDER_SIZE, OrderSide.BUY));
+        assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 2L)));
+
+        // when
+        orderMatchingService.addOrderToBook(createOrder(100L, ASSET_NAME, new BigDecimal("9.00"), new BigDecimal("10.0"), OrderSide.SELL));
+        orderMatchingService.matchOrders(ASSET_NAME);
+
+        // then
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(List.of(5L, 3L, 1L, 6L, 4L), fills.getValue().stream().map(MatchResult::buyOrderId).toList());
+        assertEquals(0, orderCount(OrderSide.BUY));
+        assertEquals(1, levelCount(OrderSide.SELL));
+        assertEquals(0, new BigDecimal("5.0").compareTo(remainingSize(100L).orElseThrow()));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(26)
+    @DisplayName("Should restore books from snapshot and journal tail on restart")
+    void should_restore_books_from_snapshot_and_journal_tail_on_restart(@TempDir Path journalDirectory) throws Exception {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        MatchingEngine firstRun = startJournaledEngine(journalDirectory);
+        firstRun.addOrder(createOrder(1L, ASSET_NAME, BUY_PRICE, new BigDecimal("2.0"), OrderSide.BUY));
+        firstRun.addOrder(createOrder(2L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        MatchingEngine.await(firstRun.placeOrder(createOrder(3L, ASSET_NAME, SELL_PRICE, new BigDecimal("0.5"), OrderSide.SELL)));
+        firstRun.snapshot();
+        MatchingEngine.await(firstRun.cancelOrder(ASSET_NAME, 2L));
+        MatchingEngine.await(firstRun.addOrder(createOrder(4L, "ETH", new BigDecimal("3000"), ORDER_SIZE, OrderSide.SELL)));
+
+        // when
+        MatchingEngine secondRun = startJournaledEngine(journalDirectory);
+
+        // then
+        assertTrue(secondRun.isRecovered());
+        assertEquals(Set.of(ASSET_NAME, "ETH"), secondRun.getAssetNames());
+        assertEquals(0, new BigDecimal("1.5").compareTo(MatchingEngine.await(
+                secondRun.inspect(ASSET_NAME, book -> book.remainingSize(1L))).orElseThrow()));
+        assertTrue(MatchingEngine.await(secondRun.inspect(ASSET_NAME, book -> book.remainingSize(2L))).isEmpty());
+        assertEquals(Integer.valueOf(1), MatchingEngine.await(secondRun.<Integer>inspect("ETH", book -> book.orderCount(OrderSide.SELL))));
+
+        firstRun.stop();
+        secondRun.stop();
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(27)
+    @DisplayName("Should match all assets in parallel and report each asset separately")
+    void should_match_all_assets_in_parallel_and_report_each_asset_separately() {
+        // given
+        BigDecimal ethPrice = new BigDecimal("3000");
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.canMatch(eq(FixedPoint.toTicks(ethPrice)), anyLong())).thenThrow(new RuntimeException("ETH failure"));
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(FixedPoint.toTicks(SELL_PRICE));
+        orderMatchingService.addOrderToBook(buyOrder);
+        orderMatchingService.addOrderToBook(sellOrder);
+        orderMatchingService.addOrderToBook(createOrder(3L, "ETH", ethPrice, ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(4L, "ETH", ethPrice, ORDER_SIZE, OrderSide.SELL));
+        orderMatchingService.addOrderToBook(createOrder(5L, "AAPL", new BigDecimal("150"), ORDER_SIZE, OrderSide.BUY));
+
+        // when
+        List<MatchOutcome> report = orderMatchingService.matchAllPendingOrders();
+
+        // then
+        assertEquals(List.of("AAPL", "BTC", "ETH"), report.stream().map(MatchOutcome::assetName).toList());
+        assertEquals(0, report.get(0).matchCount());
+        assertEquals(1, report.get(1).matchCount());
+        assertTrue(report.get(1).isSuccessful());
+        assertFalse(report.get(2).isSuccessful());
+        assertEquals("ETH failure", report.get(2).error());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(28)
+    @DisplayName("Should publish aggregated depth after add, fill and cancel")
+    void should_publish_aggregated_depth_after_add_fill_and_cancel() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        BigDecimal lowerBid = new BigDecimal("49900");
+        orderMatchingService.addOrderToBook(buyOrder);
+        orderMatchingService.addOrderToBook(createOrder(3L, ASSET_NAME, BUY_PRICE, new BigDecimal("2.0"), OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(4L, ASSET_NAME, lowerBid, ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(5L, ASSET_NAME, new BigDecimal("50100"), ORDER_SIZE, OrderSide.SELL));
+        MarketDepth beforeFill = orderMatchingService.getMarketDepth(ASSET_NAME, 10);
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(6L, ASSET_NAME, BUY_PRICE, new BigDecimal("1.5"), OrderSide.SELL)));
+        MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 4L));
+        MarketDepth afterCancel = orderMatchingService.getMarketDepth(ASSET_NAME, 1);
+
+        // then
+        assertEquals(2, beforeFill.bids().size());
+        assertEquals(0, BUY_PRICE.compareTo(beforeFill.bids().get(0).price()));
+        assertEquals(0, new BigDecimal("3.0").compareTo(beforeFill.bids().get(0).size()));
+        assertEquals(2, beforeFill.bids().get(0).orderCount());
+        assertEquals(1, beforeFill.asks().size());
+
+        assertEquals(1, afterCancel.bids().size());
+        assertEquals(0, new BigDecimal("1.5").compareTo(afterCancel.bids().get(0).size()));
+        assertEquals(1, afterCancel.bids().get(0).orderCount());
+        assertEquals(0, new BigDecimal("50100").compareTo(afterCancel.asks().get(0).price()));
+        assertTrue(orderMatchingService.getMarketDepth("ETH", 10).bids().isEmpty());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(29)
+    @DisplayName("Should publish best bid, best offer and last trade after each batch")
+    void should_publish_best_bid_offer_and_last_trade_after_each_batch() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        BigDecimal askPrice = new BigDecimal("50100");
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, BUY_PRICE, new BigDecimal("2.0"), OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, askPrice, ORDER_SIZE, OrderSide.SELL));
+        TopOfBook beforeTrade = matchingEngine.getTopOfBook(ASSET_NAME);
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(3L, ASSET_NAME, SELL_PRICE, new BigDecimal("0.5"), OrderSide.SELL)));
+        TopOfBook afterTrade = matchingEngine.getTopOfBook(ASSET_NAME);
+
+        // then
+        assertEquals(0, BUY_PRICE.compareTo(beforeTrade.bestBid().orElseThrow()));
+        assertEquals(0, askPrice.compareTo(beforeTrade.bestAsk().orElseThrow()));
+        assertTrue(beforeTrade.lastTrade().isEmpty());
+        assertEquals(FixedPoint.toTicks(new BigDecimal("1.5")), afterTrade.bidLots());
+        assertEquals(0, BUY_PRICE.compareTo(afterTrade.lastTrade().orElseThrow()));
+        assertEquals(FixedPoint.toTicks(new BigDecimal("0.5")), afterTrade.lastTradeLots());
+        assertTrue(matchingEngine.getTopOfBook("ETH").bestBid().isEmpty());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(30)
+    @DisplayName("Should place only the stop orders crossed by a trade and keep the rest dormant")
+    void should_place_only_crossed_stop_orders_and_keep_the_rest_dormant() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, SELL_PRICE, new BigDecimal("2.0"), OrderSide.BUY));
+        MatchingEngine.await(orderMatchingService.submitStopOrder(
+                createOrder(10L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL), new BigDecimal("49500")));
+        MatchingEngine.await(orderMatchingService.submitStopOrder(
+                createOrder(11L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL), new BigDecimal("48000")));
+        MatchingEngine.await(orderMatchingService.submitStopOrder(
+                createOrder(12L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL), new BigDecimal("49800")));
+        assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 12L)));
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(3L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // then
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(List.of(3L, 10L), fills.getValue().stream().map(MatchResult::sellOrderId).toList());
+        assertEquals(List.of(1L, 2L), fills.getValue().stream().map(MatchResult::buyOrderId).toList());
+        verify(tradeListener).onStopsTriggered(List.of(10L));
+        assertEquals(0, ORDER_SIZE.compareTo(remainingSize(2L).orElseThrow()));
+        assertEquals(0, orderCount(OrderSide.SELL));
+        assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 11L)));
+        assertFalse(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 12L)));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(31)
+    @DisplayName("Should walk the book with an IOC order and expire its remainder instead of resting it")
+    void should_walk_book_with_ioc_order_and_expire_remainder() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        BigDecimal higherAsk = new BigDecimal("49500");
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL));
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, higherAsk, ORDER_SIZE, OrderSide.SELL));
+        orderMatchingService.addOrderToBook(createOrder(3L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.SELL));
+        Order marketBuy = createOrder(10L, ASSET_NAME, higherAsk, new BigDecimal("2.5"), OrderSide.BUY);
+        marketBuy.setTimeInForce(TimeInForce.IOC);
+
+        // when
+        int matchCount = MatchingEngine.await(orderMatchingService.submitOrder(marketBuy));
+
+        // then
+        assertEquals(2, matchCount);
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(10L, expired.getValue().get(0).orderId());
+        assertEquals(0, new BigDecimal("0.5").compareTo(expired.getValue().get(0).remainingSize()));
+        assertTrue(remainingSize(10L).isEmpty());
+        assertEquals(0, orderCount(OrderSide.BUY));
+        assertEquals(1, orderCount(OrderSide.SELL));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(32)
+    @DisplayName("Should reject a FOK order the book cannot fill without trading or touching the book")
+    void should_reject_fok_order_without_trading_when_depth_is_insufficient() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL));
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.SELL));
+        Order fillOrKill = createOrder(10L, ASSET_NAME, SELL_PRICE, new BigDecimal("1.5"), OrderSide.BUY);
+        fillOrKill.setTimeInForce(TimeInForce.FOK);
+
+        // when
+        int matchCount = MatchingEngine.await(orderMatchingService.submitOrder(fillOrKill));
+
+        // then
+        assertEquals(0, matchCount);
+        verify(tradeListener, never()).onTrades(anyList());
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(ExpiryReason.FILL_OR_KILL, expired.getValue().get(0).reason());
+        assertEquals(0, new BigDecimal("1.5").compareTo(expired.getValue().get(0).remainingSize()));
+        assertEquals(0, orderCount(OrderSide.BUY));
+        assertEquals(2, orderCount(OrderSide.SELL));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(33)
+    @DisplayName("Should skip a resting order of the same customer and keep matching behind it")
+    void should_skip_resting_order_of_same_customer_and_keep_matching_behind_it() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order ownBid = createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
+        ownBid.setCustomerId(2L);
+        orderMatchingService.addOrderToBook(ownBid);
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        orderMatchingService.addOrderToBook(createOrder(3L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.BUY));
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(10L, ASSET_NAME, SELL_PRICE, new BigDecimal("2.0"), OrderSide.SELL)));
+
+        // then
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(List.of(2L, 3L), fills.getValue().stream().map(MatchResult::buyOrderId).toList());
+        assertEquals(0, ORDER_SIZE.compareTo(remainingSize(1L).orElseThrow()));
+        assertEquals(1, orderCount(OrderSide.BUY));
+        assertEquals(0, orderCount(OrderSide.SELL));
+        verify(tradeListener, never()).onExpired(anyList());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(34)
+    @DisplayName("Should cancel the oldest of two self-crossing orders and match the newest with others")
+    void should_cancel_oldest_self_crossing_order_and_match_newest_with_others() {
+        // given
+        ReflectionTestUtils.setField(orderBookFactory, "selfTradePrevention", SelfTradePrevention.CANCEL_OLDEST);
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order ownBid = createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
+        ownBid.setCustomerId(2L);
+        orderMatchingService.addOrderToBook(ownBid);
+        orderMatchingService.addOrderToBook(createOrder(2L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(10L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // then
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(1L, expired.getValue().get(0).orderId());
+        assertEquals(ExpiryReason.SELF_TRADE, expired.getValue().get(0).reason());
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(List.of(2L), fills.getValue().stream().map(MatchResult::buyOrderId).toList());
+        assertTrue(isBookEmpty(ASSET_NAME));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(35)
+    @DisplayName("Should record latencies, activity and book gauges per asset")
+    void should_record_latencies_activity_and_book_gauges_per_asset() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(2L, ASSET_NAME, new BigDecimal("48000"), ORDER_SIZE, OrderSide.BUY)));
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(3L, ASSET_NAME, new BigDecimal("51000"), new BigDecimal("2.0"), OrderSide.SELL)));
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(10L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY)));
+        MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 2L));
+
+        // then
+        assertEquals(4, meterRegistry.get("matching.engine.order.ack").tag("asset", ASSET_NAME).timer().count());
+        assertEquals(1, meterRegistry.get("matching.engine.order.first-fill").tag("asset", ASSET_NAME).timer().count());
+        assertEquals(1, meterRegistry.get("matching.engine.match").tag("asset", ASSET_NAME).timer().count());
+        assertEquals(1.0, meterRegistry.get("matching.engine.matches").tag("asset", ASSET_NAME).counter().count());
+        assertEquals(1.0, meterRegistry.get("matching.engine.cancels").tag("asset", ASSET_NAME).counter().count());
+        assertEquals(1.0, meterRegistry.get("matching.engine.book.orders").tag("asset", ASSET_NAME).gauge().value());
+        assertEquals(0.0, meterRegistry.get("matching.engine.book.levels").tags("asset", ASSET_NAME, "side", "BUY").gauge().value());
+        assertEquals(1.0, meterRegistry.get("matching.engine.book.levels").tags("asset", ASSET_NAME, "side", "SELL").gauge().value());
+        assertEquals(2.0, meterRegistry.get("matching.engine.book.depth").tags("asset", ASSET_NAME, "side", "SELL").gauge().value());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(36)
+    @DisplayName("Should fold assets beyond the tagged limit into a shared tag without gauges")
+    void should_fold_assets_beyond_tagged_limit_into_shared_tag_without_gauges() {
+        // given
+        ReflectionTestUtils.setField(engineMetrics, "maxTaggedAssets", 1);
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // when
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(2L, "ETH", new BigDecimal("3000"), ORDER_SIZE, OrderSide.SELL)));
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(3L, "SOL", new BigDecimal("150"), ORDER_SIZE, OrderSide.SELL)));
+
+        // then
+        assertEquals(1, meterRegistry.get("matching.engine.order.ack").tag("asset", ASSET_NAME).timer().count());
+        assertEquals(2, meterRegistry.get("matching.engine.order.ack").tag("asset", "other").timer().count());
+        assertNull(meterRegistry.find("matching.engine.order.ack").tag("asset", "ETH").timer());
+        assertNull(meterRegistry.find("matching.engine.book.orders").tag("asset", "other").gauge());
+        assertEquals(1, meterRegistry.find("matching.engine.book.orders").gauges().size());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(37)
+    @DisplayName("Should rank self-crossing orders by arrival in the book rather than by order id")
+    void should_rank_self_crossing_orders_by_arrival_rather_than_order_id() {
+        // given
+        ReflectionTestUtils.setField(orderBookFactory, "selfTradePrevention", SelfTradePrevention.CANCEL_OLDEST);
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order ownBid = createOrder(5L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
+        ownBid.setCustomerId(2L);
+        orderMatchingService.addOrderToBook(ownBid);
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(3L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // then
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(5L, expired.getValue().get(0).orderId());
+        assertEquals(3L, this.<Long>inspect(book -> book.bestAsk().map(BookOrder::getOrderId).orElse(null)));
+        assertFalse(hasLevel(OrderSide.BUY, BUY_PRICE));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(38)
+    @DisplayName("Should match and restore an off-heap book including a partially filled taker from the journal")
+    void should_match_and_restore_off_heap_book_including_partially_filled_taker(@TempDir Path journalDirectory) throws Exception {
         // given
-        String strategyName = "maker";
-        ReflectionTestUtils.setField(orderMatchingService, "defaultStrategyName", strategyName);
-        PricingStrategy expectedStrategy = mock(PricingStrategy.class);
-        when(pricingStrategyFactory.getStrategy(strategyName)).thenReturn(expectedStrategy);
+        ReflectionTestUtils.setField(orderBookFactory, "offHeapAssets", Set.of(ASSET_NAME));
+        ReflectionTestUtils.setField(orderBookFactory, "slabRecords", 2);
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        MatchingEngine firstRun = startJournaledEngine(journalDirectory);
+        MatchingEngine.await(firstRun.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+        MatchingEngine.await(firstRun.addOrder(createOrder(2L, ASSET_NAME, new BigDecimal("49500"), ORDER_SIZE, OrderSide.SELL)));
+        firstRun.snapshot();
 
         // when
-        PricingStrategy actualStrategy = (PricingStrategy) ReflectionTestUtils.invokeMethod(orderMatchingService, "getStrategy");
+        int matchCount = MatchingEngine.await(firstRun.placeOrder(
+                createOrder(3L, ASSET_NAME, SELL_PRICE, new BigDecimal("3.0"), OrderSide.BUY)));
+        MatchingEngine secondRun = startJournaledEngine(journalDirectory);
 
         // then
-        assertEquals(expectedStrategy, actualStrategy);
-        verify(pricingStrategyFactory).getStrategy(strategyName);
+        assertEquals(1, matchCount);
+        assertEquals(Boolean.TRUE, MatchingEngine.await(firstRun.inspect(ASSET_NAME, SlabOrderBook.class::isInstance)));
+        assertEquals(Boolean.TRUE, MatchingEngine.await(secondRun.inspect(ASSET_NAME, SlabOrderBook.class::isInstance)));
+        assertEquals(0, new BigDecimal("2.0").compareTo(MatchingEngine.await(
+                secondRun.inspect(ASSET_NAME, book -> book.remainingSize(3L))).orElseThrow()));
+        assertTrue(MatchingEngine.await(secondRun.inspect(ASSET_NAME, book -> book.remainingSize(1L))).isEmpty());
+        assertEquals(Long.valueOf(2L), MatchingEngine.await(secondRun.inspect(ASSET_NAME, book -> book.bestAsk().orElseThrow().getOrderId())));
+
+        firstRun.stop();
+        secondRun.stop();
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(39)
+    @DisplayName("Should cancel exactly the unfilled remainder and report it after the fills that preceded it")
+    void should_cancel_unfilled_remainder_and_report_it_after_preceding_fills() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+        Order buyOrder = createOrder(2L, ASSET_NAME, SELL_PRICE, new BigDecimal("3.0"), OrderSide.BUY);
+        MatchingEngine.await(matchingEngine.placeOrder(buyOrder));
+
+        // when
+        Optional<BigDecimal> canceled = orderMatchingService.cancelOrder(buyOrder);
+        Optional<BigDecimal> canceledAgain = orderMatchingService.cancelOrder(buyOrder);
+
+        // then
+        assertEquals(0, new BigDecimal("2.0").compareTo(canceled.orElseThrow()));
+        assertTrue(canceledAgain.isEmpty());
+        assertFalse(hasLevel(OrderSide.BUY, SELL_PRICE));
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(tradeListener);
+        inOrder.verify(tradeListener).onTrades(anyList());
+        inOrder.verify(tradeListener).onExpired(expired.capture());
+        assertEquals(1, expired.getValue().size());
+        assertEquals(2L, expired.getValue().get(0).orderId());
+        assertEquals(ExpiryReason.USER_CANCELED, expired.getValue().get(0).reason());
+        assertEquals(0, new BigDecimal("2.0").compareTo(expired.getValue().get(0).remainingSize()));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(40)
+    @DisplayName("Should hand on the rest of a batch whose fills cannot be handed on and halt the shard")
+    void should_hand_on_rest_of_batch_and_halt_shard_when_hand_off_fails() throws InterruptedException {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        AtomicBoolean rejected = new AtomicBoolean();
+        Executor rejectingOnce = task -> {
+            if (rejected.compareAndSet(false, true)) {
+                throw new RejectedExecutionException("Persistence queue is full");
+            }
+            task.run();
+        };
+        MatchingEngine engine = new MatchingEngine(List.of(tradeListener), List.of(), rejectingOnce, orderBookFactory,
+                engineMetrics, new InProcessShardRouter());
+        ReflectionTestUtils.setField(engine, "shardCount", 1);
+        ReflectionTestUtils.setField(engine, "ringBufferSize", 1024);
+        ReflectionTestUtils.setField(engine, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(engine, "depthLevels", 50);
+        engine.start();
+
+        try {
+            MatchingEngine.await(engine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+            // when
+            Order iocBuy = createOrder(2L, ASSET_NAME, SELL_PRICE, new BigDecimal("2.0"), OrderSide.BUY);
+            iocBuy.setTimeInForce(TimeInForce.IOC);
+            CompletableFuture<Integer> failed = engine.placeOrder(iocBuy);
+
+            // then
+            assertThrows(RejectedExecutionException.class, () -> MatchingEngine.await(failed));
+            verify(tradeListener, never()).onTrades(anyList());
+            ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+            verify(tradeListener).onExpired(expired.capture());
+            assertEquals(2L, expired.getValue().get(0).orderId());
+            assertEquals(ExpiryReason.UNFILLED_REMAINDER, expired.getValue().get(0).reason());
+            assertThrows(ConcurrencyException.class,
+                    () -> engine.placeOrder(createOrder(4L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.BUY)));
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(41)
+    @DisplayName("Should retry a failing fill batch, park it after the last attempt and redeliver it")
+    void should_retry_park_and_redeliver_failing_fill_batch() {
+        // given
+        ReflectionTestUtils.setField(matchingEngine, "persistenceMaxAttempts", 2);
+        ReflectionTestUtils.setField(matchingEngine, "persistenceRetryBackoffMillis", 1L);
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doNothing()
+                .when(tradeListener).onTrades(anyList());
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // when
+        int matchCount = MatchingEngine.await(matchingEngine.placeOrder(createOrder(2L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.BUY)));
+        double parked = meterRegistry.get("matching.engine.persistence.dead-letters").gauge().value();
+        matchingEngine.redeliverDeadLetters();
+
+        // then
+        assertEquals(1, matchCount);
+        assertEquals(1.0, parked);
+        assertEquals(0.0, meterRegistry.get("matching.engine.persistence.dead-letters").gauge().value());
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener, times(3)).onTrades(fills.capture());
+        assertEquals(1, fills.getValue().size());
+        assertEquals(2L, fills.getValue().get(0).buyOrderId());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(42)
+    @DisplayName("Should take an order the engine failed on out of the book and expire it as rejected")
+    void should_take_failed_order_out_of_book_and_expire_it_as_rejected() {
+        // given
+        when(pricingStrategy.canMatch(anyLong(), anyLong())).thenReturn(true);
+        when(pricingStrategy.calculateExecutionPrice(anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("Pricing failure"));
+        orderMatchingService.addOrderToBook(sellOrder);
+
+        // when
+        CompletableFuture<Integer> placed = matchingEngine.placeOrder(buyOrder);
+
+        // then
+        assertThrows(IllegalStateException.class, () -> MatchingEngine.await(placed));
+        assertTrue(this.<Optional<BigDecimal>>inspect(book -> book.remainingSize(buyOrder.getId())).isEmpty());
+        assertEquals(Long.valueOf(2L), this.<Long>inspect(book -> book.bestAsk().map(BookOrder::getOrderId).orElse(null)));
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(1L, expired.getValue().get(0).orderId());
+        assertEquals(ExpiryReason.REJECTED, expired.getValue().get(0).reason());
+        assertEquals(0, ORDER_SIZE.compareTo(expired.getValue().get(0).remainingSize()));
+        verify(tradeListener, never()).onTrades(anyList());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(43)
+    @DisplayName("Should fill a market sell at the resting bid rather than its collar price")
+    void should_fill_market_sell_at_resting_bid() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        CreateOrderRequest request = new CreateOrderRequest(ASSET_NAME, OrderSide.SELL, ORDER_SIZE, BUY_PRICE,
+                "MARKET", TimeInForce.IOC, null, null);
+        request.setCustomerId(2L);
+        Order marketSell = new MarketOrderFactory(matchingEngine).createOrder(request);
+        marketSell.setId(2L);
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(marketSell));
+
+        // then
+        assertEquals(0, new BigDecimal("49500").compareTo(marketSell.getPrice()));
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onTrades(fills.capture());
+        assertEquals(1, fills.getValue().size());
+        assertEquals(2L, fills.getValue().get(0).sellOrderId());
+        assertEquals(0, BUY_PRICE.compareTo(fills.getValue().get(0).price()));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(44)
+    @DisplayName("Should rest a stop triggered before a cold start and re-arm only the untriggered one")
+    void should_rest_triggered_stop_and_rearm_untriggered_stop_on_cold_start() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order triggeredStop = createStopOrder(10L, new BigDecimal("49500"));
+        triggeredStop.markStopTriggered();
+        Order dormantStop = createStopOrder(11L, new BigDecimal("48000"));
+        when(orderRepository.findByStatusIn(anyCollection())).thenReturn(List.of(triggeredStop, dormantStop));
+
+        // when
+        orderMatchingService.initializeOrderBooks();
+
+        // then
+        assertEquals(0, ORDER_SIZE.compareTo(remainingSize(10L).orElseThrow()));
+        assertTrue(remainingSize(11L).isEmpty());
+        assertEquals(1, orderCount(OrderSide.SELL));
+        assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 11L)));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(45)
+    @DisplayName("Should park the batches behind a parked fill batch so a cancel is not undone by the late fill")
+    void should_park_later_batches_behind_parked_fill_batch() {
+        // given
+        ReflectionTestUtils.setField(matchingEngine, "persistenceMaxAttempts", 1);
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Map<Long, OrderStatus> rows = new HashMap<>();
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (databaseDown.get()) {
+                throw new RuntimeException("Database unavailable");
+            }
+            List<MatchResult> fills = invocation.getArgument(0);
+            fills.forEach(fill -> rows.put(fill.buyOrderId(), OrderStatus.PARTIALLY_MATCHED));
+            return null;
+        }).when(tradeListener).onTrades(anyList());
+        doAnswer(invocation -> {
+            List<ExpiredOrder> expired = invocation.getArgument(0);
+            expired.forEach(order -> rows.put(order.orderId(), OrderStatus.CANCELED));
+            return null;
+        }).when(tradeListener).onExpired(anyList());
+        MatchingEngine.await(matchingEngine.addOrder(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+        Order buyOrder = createOrder(2L, ASSET_NAME, SELL_PRICE, new BigDecimal("3.0"), OrderSide.BUY);
+        MatchingEngine.await(matchingEngine.placeOrder(buyOrder));
+
+        // when
+        Optional<BigDecimal> canceled = orderMatchingService.cancelOrder(buyOrder);
+        double parked = meterRegistry.get("matching.engine.persistence.dead-letters").gauge().value();
+        databaseDown.set(false);
+        matchingEngine.redeliverDeadLetters();
+
+        // then
+        assertTrue(canceled.isPresent());
+        assertEquals(2.0, parked);
+        assertEquals(0.0, meterRegistry.get("matching.engine.persistence.dead-letters").gauge().value());
+        assertEquals(OrderStatus.CANCELED, rows.get(2L));
+        InOrder inOrder = inOrder(tradeListener);
+        inOrder.verify(tradeListener, times(2)).onTrades(anyList());
+        inOrder.verify(tradeListener).onExpired(anyList());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(46)
+    @DisplayName("Should reject a FOK order whose crossing depth is partly its own customer's without trading")
+    void should_reject_fok_order_when_part_of_the_depth_is_its_own_customers() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL));
+        Order ownSell = createOrder(2L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL);
+        ownSell.setCustomerId(1L);
+        orderMatchingService.addOrderToBook(ownSell);
+        Order fillOrKill = createOrder(10L, ASSET_NAME, SELL_PRICE, new BigDecimal("2.0"), OrderSide.BUY);
+        fillOrKill.setTimeInForce(TimeInForce.FOK);
+
+        // when
+        int matchCount = MatchingEngine.await(orderMatchingService.submitOrder(fillOrKill));
+
+        // then
+        assertEquals(0, matchCount);
+        verify(tradeListener, never()).onTrades(anyList());
+        ArgumentCaptor<List<ExpiredOrder>> expired = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener).onExpired(expired.capture());
+        assertEquals(1, expired.getValue().size());
+        assertEquals(ExpiryReason.FILL_OR_KILL, expired.getValue().get(0).reason());
+        assertEquals(0, new BigDecimal("2.0").compareTo(expired.getValue().get(0).remainingSize()));
+        assertEquals(2, orderCount(OrderSide.SELL));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(47)
+    @DisplayName("Should submit pending orders missing from the recovered books and leave journaled ones alone")
+    void should_submit_pending_orders_missing_from_recovered_books(@TempDir Path journalDirectory) throws Exception {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order journaled = createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY);
+        MatchingEngine firstRun = startJournaledEngine(journalDirectory);
+        MatchingEngine.await(firstRun.addOrder(journaled));
+        firstRun.stop();
+        MatchingEngine secondRun = startJournaledEngine(journalDirectory);
+        OrderMatchingServiceImpl recoveredService = new OrderMatchingServiceImpl(orderRepository, orderExecutionRepository, pricingStrategyFactory, secondRun);
+        ReflectionTestUtils.setField(recoveredService, "matchingMode", MatchingMode.CONTINUOUS);
+        journaled.setStatus(OrderStatus.PENDING);
+        Order lostLimit = createOrder(5L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.BUY);
+        lostLimit.setStatus(OrderStatus.PENDING);
+        Order lostImmediate = createOrder(6L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.SELL);
+        lostImmediate.setStatus(OrderStatus.PENDING);
+        lostImmediate.setTimeInForce(TimeInForce.IOC);
+        when(orderRepository.findByStatusIn(anyCollection())).thenReturn(List.of(journaled, lostLimit, lostImmediate));
+
+        try {
+            // when
+            recoveredService.initializeOrderBooks();
+
+            // then
+            assertTrue(secondRun.isRecovered());
+            ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+            verify(tradeListener).onTrades(fills.capture());
+            assertEquals(1L, fills.getValue().get(0).buyOrderId());
+            assertEquals(6L, fills.getValue().get(0).sellOrderId());
+            assertEquals(0, ORDER_SIZE.compareTo(MatchingEngine.await(
+                    secondRun.inspect(ASSET_NAME, book -> book.remainingSize(5L))).orElseThrow()));
+            assertEquals(Integer.valueOf(1), MatchingEngine.await(secondRun.<Integer>inspect(ASSET_NAME, book -> book.orderCount(OrderSide.BUY))));
+        } finally {
+            secondRun.stop();
+        }
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(48)
+    @DisplayName("Should report a stalled asset as failed after the await timeout and keep the other outcomes")
+    void should_report_stalled_asset_as_failed_and_keep_other_outcomes() {
+        // given
+        MatchingEngine stalledEngine = mock(MatchingEngine.class);
+        when(stalledEngine.getAssetNames()).thenReturn(Set.of(ASSET_NAME, "ETH"));
+        when(stalledEngine.matchOrders(ASSET_NAME)).thenReturn(new CompletableFuture<>());
+        when(stalledEngine.matchOrders("ETH")).thenReturn(CompletableFuture.completedFuture(new MatchOutcome("ETH", 2, 0, null)));
+        OrderMatchingServiceImpl service = new OrderMatchingServiceImpl(orderRepository, orderExecutionRepository, pricingStrategyFactory, stalledEngine);
+
+        // when
+        List<MatchOutcome> report = assertTimeoutPreemptively(
+                Duration.ofMillis(MatchingEngine.AWAIT_TIMEOUT_MILLIS * 2), service::matchAllPendingOrders);
+
+        // then
+        assertEquals(List.of(ASSET_NAME, "ETH"), report.stream().map(MatchOutcome::assetName).toList());
+        assertFalse(report.get(0).isSuccessful());
+        assertTrue(report.get(0).error().contains("did not respond"));
+        assertTrue(report.get(1).isSuccessful());
+        assertEquals(2, report.get(1).matchCount());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(49)
+    @DisplayName("Should fill a market sell at the resting bid under the mid-point strategy and keep mid-point for limits")
+    void should_fill_market_sell_at_resting_bid_under_mid_point_strategy() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new MidPointPricingStrategy());
+        orderMatchingService.addOrderToBook(createOrder(1L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        CreateOrderRequest request = new CreateOrderRequest(ASSET_NAME, OrderSide.SELL, ORDER_SIZE, BUY_PRICE,
+                "MARKET", TimeInForce.IOC, null, null);
+        request.setCustomerId(2L);
+        Order marketSell = new MarketOrderFactory(matchingEngine).createOrder(request);
+        marketSell.setId(2L);
+
+        // when
+        MatchingEngine.await(matchingEngine.placeOrder(marketSell));
+        orderMatchingService.addOrderToBook(createOrder(3L, ASSET_NAME, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        MatchingEngine.await(matchingEngine.placeOrder(createOrder(4L, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL)));
+
+        // then
+        ArgumentCaptor<List<MatchResult>> fills = ArgumentCaptor.forClass(List.class);
+        verify(tradeListener, times(2)).onTrades(fills.capture());
+        assertEquals(2L, fills.getAllValues().get(0).get(0).sellOrderId());
+        assertEquals(0, BUY_PRICE.compareTo(fills.getAllValues().get(0).get(0).price()));
+        assertEquals(4L, fills.getAllValues().get(1).get(0).sellOrderId());
+        assertEquals(0, new BigDecimal("49500").compareTo(fills.getAllValues().get(1).get(0).price()));
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(50)
+    @DisplayName("Should leave unknown assets without a book or meters when only admin and inspect commands name them")
+    void should_not_create_book_or_meters_for_non_entry_commands() {
+        // given
+        String unknownAsset = "BTCX";
+        when(pricingStrategyFactory.getRequiredStrategy("weightedAverage")).thenReturn(new WeightedAveragePricingStrategy());
+
+        // when
+        orderMatchingService.matchOrders(unknownAsset);
+        boolean canceled = MatchingEngine.await(matchingEngine.cancelOrder(unknownAsset, 1L));
+        Optional<BigDecimal> remainder = orderMatchingService.cancelOrder(createOrder(2L, unknownAsset, BUY_PRICE, ORDER_SIZE, OrderSide.BUY));
+        PricingStrategy strategy = inspect(unknownAsset, OrderBook::getPricingStrategy);
+
+        // then
+        assertFalse(canceled);
+        assertTrue(remainder.isEmpty());
+        assertSame(pricingStrategy, strategy);
+        assertThrows(ValidationException.class, () -> orderMatchingService.switchPricingStrategy(unknownAsset, "weightedAverage"));
+        assertTrue(matchingEngine.getAssetNames().isEmpty());
+        assertTrue(meterRegistry.find("matching.engine.match").tag("asset", unknownAsset).timers().isEmpty());
+        assertTrue(meterRegistry.find("matching.engine.book.orders").gauges().isEmpty());
+    }
+
+    @Test
+    @org.junit.jupiter.api.Order(51)
+    @DisplayName("Should fire a stop on arming when the last persisted execution is already through its trigger")
+    void should_fire_stop_on_arming_when_last_persisted_execution_crossed_its_trigger() {
+        // given
+        when(pricingStrategyFactory.getStrategy(anyString())).thenReturn(new TakerPricingStrategy());
+        Order crossedStop = createStopOrder(10L, new BigDecimal("49500"));
+        Order dormantStop = createStopOrder(11L, new BigDecimal("48000"));
+        when(orderRepository.findByStatusIn(anyCollection())).thenReturn(List.of(crossedStop, dormantStop));
+        when(orderExecutionRepository.findExecutionPricesByAssetName(eq(ASSET_NAME), any()))
+                .thenReturn(List.of(new BigDecimal("49200")));
+
+        // when
+        orderMatchingService.initializeOrderBooks();
+
+        // then
+        verify(orderExecutionRepository, times(1)).findExecutionPricesByAssetName(eq(ASSET_NAME), any());
+        verify(tradeListener).onStopsTriggered(List.of(10L));
+        assertEquals(0, ORDER_SIZE.compareTo(remainingSize(10L).orElseThrow()));
+        assertTrue(remainingSize(11L).isEmpty());
+        assertTrue(MatchingEngine.await(matchingEngine.cancelOrder(ASSET_NAME, 11L)));
+    }
+
+    private Order createStopOrder(Long id, BigDecimal triggerPrice) {
+        Order order = createOrder(id, ASSET_NAME, SELL_PRICE, ORDER_SIZE, OrderSide.SELL);
+        order.setStatus(OrderStatus.PENDING);
+        order.getMetadata().put("orderType", "STOP_LOSS");
+        order.getMetadata().put("triggerPrice", triggerPrice.toPlainString());
+        return order;
+    }
+
+    private MatchingEngine startJournaledEngine(Path journalDirectory) {
+        MatchingEngine engine = new MatchingEngine(List.of(tradeListener), List.of(), Runnable::run, orderBookFactory, engineMetrics,
+                new InProcessShardRouter());
+        ReflectionTestUtils.setField(engine, "shardCount", 2);
+        ReflectionTestUtils.setField(engine, "ringBufferSize", 1024);
+        ReflectionTestUtils.setField(engine, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(engine, "depthLevels", 50);
+        ReflectionTestUtils.setField(engine, "journalEnabled", true);
+        ReflectionTestUtils.setField(engine, "journalDirectory", journalDirectory.toString());
+        ReflectionTestUtils.setField(engine, "journalSizeMb", 1);
+        engine.start();
+        return engine;
+    }
+
+    private int orderCount(OrderSide side) {
+        return this.<Integer>inspect(book -> book.orderCount(side));
+    }
+
+    private int levelCount(OrderSide side) {
+        return this.<Integer>inspect(book -> book.levelCount(side));
+    }
+
+    private boolean hasLevel(OrderSide side, BigDecimal price) {
+        return this.<Boolean>inspect(book -> book.hasLevel(side, price));
+    }
+
+    private Optional<BigDecimal> remainingSize(Long orderId) {
+        return this.<Optional<BigDecimal>>inspect(book -> book.remainingSize(orderId));
+    }
+
+    private boolean isBookEmpty(String assetName) {
+        return MatchingEngine.await(matchingEngine.inspect(assetName, OrderBook::isEmpty));
+    }
+
+    private <T> T inspect(Function<OrderBook, T> query) {
+        return inspect(ASSET_NAME, query);
+    }
+
+    private <T> T inspect(String assetName, Function<OrderBook, T> query) {
+        return MatchingEngine.await(matchingEngine.inspect(assetName, query));
     }
 
     private Order createOrder(Long id, String assetName, BigDecimal price, BigDecimal size, OrderSide side) {
@@ -372,6 +1445,7 @@ class OrderMatchingServiceImplTest {
         order.setSize(size);
         order.setRemainingSize(size);
         order.setOrderSide(side);
+        order.setCustomerId(side == OrderSide.BUY ? 1L : 2L);
         order.setStatus(OrderStatus.MATCHED);
         return order;
     }
@@ -1,13 +1,15 @@
 package com.myproject.brokagefirmchallenge.repo.service.impl;
 
 import com.myproject.brokagefirmchallenge.repo.entity.Order;
-import com.myproject.brokagefirmchallenge.repo.enumtype.AuditAction;
+import com.myproject.brokagefirmchallenge.repo.enumtype.ExpiryReason;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
 import com.myproject.brokagefirmchallenge.repo.enumtype.OrderStatus;
 import com.myproject.brokagefirmchallenge.repo.exceptions.*;
 import com.myproject.brokagefirmchallenge.repo.publisher.EventPublisher;
 import com.myproject.brokagefirmchallenge.repo.repository.OrderRepository;
+import com.myproject.brokagefirmchallenge.repo.service.AssetService;
 import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import com.myproject.brokagefirmchallenge.repo.service.OrderMatchingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -25,8 +27,10 @@ import static org.mockito.Mockito.*;
 class OrderServiceImplTest {
 
     @Mock private OrderRepository orderRepository;
+    @Mock private AssetService assetService;
     @Mock private AuditService auditService;
     @Mock private EventPublisher eventPublisher;
+    @Mock private OrderMatchingService orderMatchingService;
     @InjectMocks private OrderServiceImpl orderService;
 
     private Order order;
@@ -56,25 +60,43 @@ class OrderServiceImplTest {
     }
 
     @Test
-    @DisplayName("should_cancelOrder_success_inOrder")
-    void should_cancelOrder_success_inOrder() {
+    @DisplayName("should_cancelOrder_throughEngine_withoutTouchingRowOrBalance")
+    void should_cancelOrder_throughEngine_withoutTouchingRowOrBalance() {
         // given
         order.setOrderSide(OrderSide.SELL);
-        order.setStatus(OrderStatus.PENDING);
+        order.setStatus(OrderStatus.PARTIALLY_MATCHED);
+        order.setSize(new BigDecimal("2"));
         order.setRemainingSize(new BigDecimal("2"));
-        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(order)).thenReturn(order);
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
+        when(orderMatchingService.cancelOrder(order)).thenReturn(Optional.of(new BigDecimal("0.5")));
         // when
         Order result = orderService.cancelOrder(10L, 1L);
         // then
+        assertThat(result).isNotSameAs(order);
+        assertThat(result.getId()).isEqualTo(10L);
         assertThat(result.getStatus()).isEqualTo(OrderStatus.CANCELED);
-        InOrder in = inOrder(orderRepository, auditService, eventPublisher);
-        in.verify(orderRepository).findByIdForUpdate(10L);
-        in.verify(orderRepository).save(order);
-        in.verify(auditService).auditOrderAction(
-                10L, AuditAction.ORDER_CANCELED, "Order canceled by user");
-        in.verify(eventPublisher).publishOrderCanceled(order, "Canceled by user");
+        assertThat(result.getCancelReason()).isEqualTo(ExpiryReason.USER_CANCELED.getDescription());
+        assertThat(result.getRemainingSize()).isEqualByComparingTo("0.5");
+        assertThat(result.getExecutedSize()).isEqualByComparingTo("1.5");
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PARTIALLY_MATCHED);
+        InOrder in = inOrder(orderRepository, orderMatchingService);
+        in.verify(orderRepository).findById(10L);
+        in.verify(orderMatchingService).cancelOrder(order);
         in.verifyNoMoreInteractions();
+        verifyNoInteractions(assetService, auditService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("should_cancelOrder_notRestingInEngine_throwInvalidOrderStateException")
+    void should_cancelOrder_notRestingInEngine_throw() {
+        // given
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
+        when(orderMatchingService.cancelOrder(order)).thenReturn(Optional.empty());
+        // when // then
+        assertThatThrownBy(() -> orderService.cancelOrder(10L, 1L))
+                .isInstanceOf(InvalidOrderStateException.class)
+                .hasMessageContaining("no longer resting");
+        verifyNoInteractions(assetService, auditService, eventPublisher);
     }
 
     @Test
@@ -82,7 +104,7 @@ class OrderServiceImplTest {
     void should_cancelOrder_unauthorized_throw() {
         // given
         order.setCustomerId(2L);
-        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(order));
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
         // when // then
         assertThatThrownBy(() -> orderService.cancelOrder(10L, 1L))
                 .isInstanceOf(UnauthorizedAccessException.class);
@@ -93,7 +115,7 @@ class OrderServiceImplTest {
     void should_cancelOrder_invalidState_throw() {
         // given
         order.setStatus(OrderStatus.MATCHED);
-        when(orderRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(order));
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
         // when // then
         assertThatThrownBy(() -> orderService.cancelOrder(10L, 1L))
                 .isInstanceOf(InvalidOrderStateException.class);
@@ -0,0 +1,150 @@
+package com.myproject.brokagefirmchallenge.repo.service.impl;
+
+import com.myproject.brokagefirmchallenge.repo.engine.FixedPoint;
+import com.myproject.brokagefirmchallenge.repo.engine.MatchResult;
+import com.myproject.brokagefirmchallenge.repo.entity.Asset;
+import com.myproject.brokagefirmchallenge.repo.entity.Order;
+import com.myproject.brokagefirmchallenge.repo.enumtype.OrderSide;
+import com.myproject.brokagefirmchallenge.repo.repository.AssetRepository;
+import com.myproject.brokagefirmchallenge.repo.service.AuditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementServiceImplTest {
+
+    @Mock private AssetRepository assetRepository;
+    @Mock private AuditService auditService;
+    @InjectMocks private SettlementServiceImpl settlementService;
+
+    private Asset buyerTry;
+    private Asset sellerBtc;
+    private Asset sellerTry;
+
+    @BeforeEach
+    void setUp() {
+        // Balances after the buyer blocked 2 @ 105 TRY and the seller blocked 2 BTC
+        buyerTry = asset(1L, "TRY", "1000", "790");
+        sellerBtc = asset(2L, "BTC", "5", "3");
+        sellerTry = asset(2L, "TRY", "0", "0");
+    }
+
+    @Test
+    @DisplayName("should_settle_manyFills_lockEachRowOnceInOrder")
+    void should_settle_manyFills_lockEachRowOnceInOrder() {
+        // given
+        Order buy = order(10L, 1L, OrderSide.BUY, "2", "105");
+        Order sell = order(20L, 2L, OrderSide.SELL, "2", "100");
+        stubAssets();
+        List<MatchResult> matches = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            matches.add(match(buy, sell, "0.5", "100"));
+        }
+        // when
+        settlementService.settle(matches, Map.of(10L, buy, 20L, sell));
+        // then
+        InOrder in = inOrder(assetRepository);
+        in.verify(assetRepository).findByCustomerIdAndAssetNameForUpdate(1L, "BTC");
+        in.verify(assetRepository).findByCustomerIdAndAssetNameForUpdate(1L, "TRY");
+        in.verify(assetRepository).findByCustomerIdAndAssetNameForUpdate(2L, "BTC");
+        in.verify(assetRepository).findByCustomerIdAndAssetNameForUpdate(2L, "TRY");
+        in.verify(assetRepository).saveAll(anyList());
+        verifyNoMoreInteractions(assetRepository);
+        verify(auditService, times(4)).auditBalanceChange(anyLong(), anyString(), any(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("should_settle_priceImprovement_moveBalancesAndReleaseDifference")
+    void should_settle_priceImprovement_moveBalancesAndReleaseDifference() {
+        // given
+        Order buy = order(10L, 1L, OrderSide.BUY, "2", "105");
+        Order sell = order(20L, 2L, OrderSide.SELL, "2", "100");
+        stubAssets();
+        // when
+        settlementService.settle(List.of(match(buy, sell, "2", "100")), Map.of(10L, buy, 20L, sell));
+        // then
+        assertThat(buyerTry.getSize()).isEqualByComparingTo("800");
+        assertThat(buyerTry.getUsableSize()).isEqualByComparingTo("800");
+        assertThat(sellerBtc.getSize()).isEqualByComparingTo("3");
+        assertThat(sellerBtc.getUsableSize()).isEqualByComparingTo("3");
+        assertThat(sellerTry.getSize()).isEqualByComparingTo("200");
+        assertThat(sellerTry.getUsableSize()).isEqualByComparingTo("200");
+    }
+
+    @Test
+    @DisplayName("should_settle_buyerWithoutAssetRow_createAsset")
+    void should_settle_buyerWithoutAssetRow_createAsset() {
+        // given
+        Order buy = order(10L, 1L, OrderSide.BUY, "2", "100");
+        Order sell = order(20L, 2L, OrderSide.SELL, "2", "100");
+        stubAssets();
+        ArgumentCaptor<List<Asset>> saved = ArgumentCaptor.forClass(List.class);
+        // when
+        settlementService.settle(List.of(match(buy, sell, "2", "100")), Map.of(10L, buy, 20L, sell));
+        // then
+        verify(assetRepository).saveAll(saved.capture());
+        Asset buyerBtc = saved.getValue().get(0);
+        assertThat(buyerBtc.getCustomerId()).isEqualTo(1L);
+        assertThat(buyerBtc.getAssetName()).isEqualTo("BTC");
+        assertThat(buyerBtc.getSize()).isEqualByComparingTo("2");
+        assertThat(buyerBtc.getUsableSize()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    @DisplayName("should_settle_unknownOrder_skipFill")
+    void should_settle_unknownOrder_skipFill() {
+        // given
+        Order buy = order(10L, 1L, OrderSide.BUY, "2", "100");
+        Order sell = order(20L, 2L, OrderSide.SELL, "2", "100");
+        // when
+        settlementService.settle(List.of(match(buy, sell, "2", "100")), Map.of(10L, buy));
+        // then
+        verifyNoInteractions(assetRepository, auditService);
+    }
+
+    private void stubAssets() {
+        when(assetRepository.findByCustomerIdAndAssetNameForUpdate(1L, "BTC")).thenReturn(Optional.empty());
+        when(assetRepository.findByCustomerIdAndAssetNameForUpdate(1L, "TRY")).thenReturn(Optional.of(buyerTry));
+        when(assetRepository.findByCustomerIdAndAssetNameForUpdate(2L, "BTC")).thenReturn(Optional.of(sellerBtc));
+        when(assetRepository.findByCustomerIdAndAssetNameForUpdate(2L, "TRY")).thenReturn(Optional.of(sellerTry));
+    }
+
+    private Asset asset(Long customerId, String assetName, String size, String usableSize) {
+        return Asset.builder()
+                .customerId(customerId)
+                .assetName(assetName)
+                .size(new BigDecimal(size))
+                .usableSize(new BigDecimal(usableSize))
+                .build();
+    }
+
+    private Order order(Long id, Long customerId, OrderSide side, String size, String price) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(customerId);
+        order.setAssetName("BTC");
+        order.setOrderSide(side);
+        order.setSize(new BigDecimal(size));
+        order.setPrice(new BigDecimal(price));
+        return order;
+    }
+
+    private MatchResult match(Order buy, Order sell, String size, String price) {
+        return new MatchResult("BTC", buy.getId(), buy.getCustomerId(), sell.getId(), sell.getCustomerId(),
+                FixedPoint.toTicks(new BigDecimal(size)), FixedPoint.toTicks(new BigDecimal(price)));
+    }
+}